@@ -0,0 +1,32 @@
+package com.customersupport.config;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** The public path check the JWT filter runs before anything else on every request. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+  // An exact match, a prefix match and an authenticated API path that matches neither
+  @Param({"/login.html", "/css/app.css", "/api/tickets/123/responses"})
+  private String requestUri;
+
+  @Benchmark
+  public boolean shouldSkipJwtProcessing() {
+    return JwtAuthenticationFilter.shouldSkipJwtProcessing(requestUri);
+  }
+}
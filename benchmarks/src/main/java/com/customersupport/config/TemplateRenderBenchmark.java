@@ -0,0 +1,79 @@
+package com.customersupport.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+/**
+ * Rendering the new-ticket notification email with the engine ThymeleafEmailConfig builds, with
+ * templates.cache.enabled on and off. Off, every render reads and parses the template again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateRenderBenchmark {
+
+  @Param({"true", "false"})
+  private boolean cacheEnabled;
+
+  private AnnotationConfigApplicationContext applicationContext;
+  private SpringTemplateEngine templateEngine;
+  private Context context;
+
+  @Setup
+  public void setUp() {
+    applicationContext = new AnnotationConfigApplicationContext();
+    applicationContext
+        .getEnvironment()
+        .getPropertySources()
+        .addFirst(
+            new MapPropertySource(
+                "benchmark", Map.of("templates.cache.enabled", String.valueOf(cacheEnabled))));
+    applicationContext.register(ThymeleafEmailConfig.class);
+    applicationContext.refresh();
+    templateEngine = applicationContext.getBean("templateEngine", SpringTemplateEngine.class);
+
+    // The model EmailService.sendNewTicketNotification builds
+    Map<String, Object> model = new HashMap<>();
+    model.put("agentName", "Grace Hopper");
+    model.put("customerName", "Ada Lovelace");
+    model.put("ticketNumber", "T7-001001");
+    model.put("ticketTitle", "Invoice shows the wrong amount");
+    model.put("ticketDescription", "The March invoice was charged twice.");
+    model.put("ticketPriority", "HIGH");
+    model.put("ticketCategory", "Billing");
+    model.put("ticketCreatedAt", "2024-03-14 09:26:53");
+    model.put("ticketUrl", "http://localhost:8082/agent/ticket-response?ticketId=1001");
+    context = new Context();
+    context.setVariables(model);
+  }
+
+  @TearDown
+  public void tearDown() {
+    applicationContext.close();
+  }
+
+  @Benchmark
+  public String renderNewTicketNotification() {
+    return templateEngine.process("ticket-notification", context);
+  }
+}
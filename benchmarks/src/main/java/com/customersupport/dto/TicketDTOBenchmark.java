@@ -0,0 +1,105 @@
+package com.customersupport.dto;
+
+import com.customersupport.entity.Agent;
+import com.customersupport.entity.Category;
+import com.customersupport.entity.Company;
+import com.customersupport.entity.Customer;
+import com.customersupport.entity.Review;
+import com.customersupport.entity.Ticket;
+import com.customersupport.entity.User;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Mapping a fully loaded ticket to its DTO, as every ticket list and detail page does. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketDTOBenchmark {
+
+  @Param({"false", "true"})
+  private boolean reviewed;
+
+  private Ticket ticket;
+
+  @Setup
+  public void setUp() {
+    LocalDateTime now = LocalDateTime.now();
+    Company company = new Company();
+    company.setId(7L);
+    company.setName("Acme");
+
+    Customer customer = new Customer();
+    customer.setId(11L);
+    customer.setUser(user(101L, "Ada", "Lovelace"));
+    customer.setCompany(company);
+
+    Agent agent = new Agent();
+    agent.setId(21L);
+    agent.setUser(user(201L, "Grace", "Hopper"));
+    agent.setCompany(company);
+
+    Category category = new Category();
+    category.setId(31L);
+    category.setName("Billing");
+    category.setCompany(company);
+
+    ticket = new Ticket();
+    ticket.setId(1001L);
+    ticket.setTicketNumber("T7-001001");
+    ticket.setCompany(company);
+    ticket.setCustomer(customer);
+    ticket.setAgent(agent);
+    ticket.setCategory(category);
+    ticket.setTitle("Invoice shows the wrong amount");
+    ticket.setDescription("The March invoice was charged twice.");
+    ticket.setPriority(Ticket.Priority.HIGH);
+    ticket.setStatus(Ticket.Status.RESOLVED);
+    ticket.setResolution("Refunded the duplicate charge");
+    ticket.setTags("billing,refund");
+    ticket.setCreatedAt(now.minusDays(2));
+    ticket.setFirstResponseTime(now.minusDays(2).plusHours(1));
+    ticket.setActualResolutionTime(now.minusDays(1));
+    ticket.setVersion(4L);
+
+    if (reviewed) {
+      Review review = new Review();
+      review.setId(41L);
+      review.setTicket(ticket);
+      review.setCustomer(customer);
+      review.setAgent(agent);
+      review.setCompany(company);
+      review.setRating(5);
+      review.setFeedback("Quick and friendly");
+      review.setWouldRecommend(true);
+      ticket.setReview(review);
+    }
+  }
+
+  @Benchmark
+  public TicketDTO fromEntity() {
+    return TicketDTO.fromEntity(ticket);
+  }
+
+  private static User user(Long id, String firstname, String lastname) {
+    User user = new User();
+    user.setId(id);
+    user.setFirstname(firstname);
+    user.setLastname(lastname);
+    user.setEmail(firstname.toLowerCase() + "@example.com");
+    return user;
+  }
+}
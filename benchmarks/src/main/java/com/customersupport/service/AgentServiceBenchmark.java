@@ -0,0 +1,32 @@
+package com.customersupport.service;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Working days normalization on agent writes, for each input shape it accepts. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgentServiceBenchmark {
+
+  // A JSON array, a JSON string and free text that falls through to the manual split
+  @Param({"[\"MONDAY\",\"TUESDAY\",\"FRIDAY\"]", "\"MONDAY\"", "Monday, Tuesday; Friday"})
+  private String workingDays;
+
+  @Benchmark
+  public String normalizeWorkingDays() {
+    return AgentService.normalizeWorkingDays(workingDays);
+  }
+}
@@ -0,0 +1,100 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.AgentDTO;
+import com.customersupport.dto.CompanyPerformanceReportDTO;
+import com.customersupport.dto.TicketReportRow;
+import com.customersupport.entity.Ticket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The ticket part of the company performance report: every ticket row folded into the aggregator,
+ * then the summary, agent and ticket sections built from it. Rows are synthetic and generated up
+ * front, so the database scan is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class PerformanceReportAggregatorBenchmark {
+
+  private static final int AGENTS = 50;
+  private static final int CUSTOMERS = 5000;
+  private static final String[] CATEGORIES = {
+    "Billing", "Login", "Shipping", "Returns", "Bug", "Feature request", "Account", "Other"
+  };
+
+  @Param({"10000", "100000", "1000000"})
+  private int ticketCount;
+
+  private LocalDateTime now;
+  private List<AgentDTO> agents;
+  private TicketReportRow[] tickets;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    now = LocalDateTime.now();
+
+    agents = new ArrayList<>(AGENTS);
+    for (int i = 1; i <= AGENTS; i++) {
+      AgentDTO agent = new AgentDTO();
+      agent.setId((long) i);
+      agent.setFirstName("Agent");
+      agent.setLastName(String.valueOf(i));
+      agent.setEmail("agent" + i + "@example.com");
+      agents.add(agent);
+    }
+
+    Ticket.Status[] statuses = Ticket.Status.values();
+    Ticket.Priority[] priorities = Ticket.Priority.values();
+    tickets = new TicketReportRow[ticketCount];
+    for (int i = 0; i < ticketCount; i++) {
+      Ticket.Status status = statuses[random.nextInt(statuses.length)];
+      // Spread over the last year, so the monthly and 30 day figures both have data
+      LocalDateTime createdAt = now.minusMinutes(random.nextInt(365 * 24 * 60));
+      LocalDateTime closedAt =
+          status == Ticket.Status.RESOLVED || status == Ticket.Status.CLOSED
+              ? createdAt.plusMinutes(1 + random.nextInt(7 * 24 * 60))
+              : null;
+      tickets[i] =
+          new TicketReportRow(
+              random.nextInt(10) == 0 ? null : (long) (1 + random.nextInt(AGENTS)),
+              (long) (1 + random.nextInt(CUSTOMERS)),
+              random.nextInt(20) == 0 ? null : CATEGORIES[random.nextInt(CATEGORIES.length)],
+              status,
+              priorities[random.nextInt(priorities.length)],
+              createdAt,
+              closedAt);
+    }
+  }
+
+  @Benchmark
+  public CompanyPerformanceReportDTO buildTicketReport() {
+    PerformanceReportAggregator aggregator = new PerformanceReportAggregator(agents, now);
+    for (TicketReportRow ticket : tickets) {
+      aggregator.acceptTicket(ticket);
+    }
+    return CompanyPerformanceReportDTO.builder()
+        .summary(aggregator.summary())
+        .agents(aggregator.agentPerformance())
+        .tickets(aggregator.ticketInsights())
+        .build();
+  }
+}
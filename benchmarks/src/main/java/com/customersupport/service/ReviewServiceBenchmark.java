@@ -0,0 +1,58 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.ReviewAnalyticsDTO;
+import com.customersupport.dto.ReviewDTO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Review analytics over a company's reviews, as shown on the reviews dashboard. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewServiceBenchmark {
+
+  @Param({"100", "10000", "100000"})
+  private int reviewCount;
+
+  // calculateAnalytics only works on its argument, so no repositories are wired in
+  private final ReviewService reviewService = new ReviewService();
+  private List<ReviewDTO> reviews;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    reviews = new ArrayList<>(reviewCount);
+    for (int i = 0; i < reviewCount; i++) {
+      ReviewDTO review = new ReviewDTO();
+      review.setId((long) i);
+      review.setRating(1 + random.nextInt(5));
+      // Optional ratings are left out on some reviews, as customers do
+      review.setServiceQualityRating(random.nextInt(4) == 0 ? null : 1 + random.nextInt(5));
+      review.setResponseTimeRating(random.nextInt(4) == 0 ? null : 1 + random.nextInt(5));
+      review.setProfessionalismRating(random.nextInt(4) == 0 ? null : 1 + random.nextInt(5));
+      review.setWouldRecommend(random.nextInt(5) != 0);
+      reviews.add(review);
+    }
+  }
+
+  @Benchmark
+  public ReviewAnalyticsDTO calculateAnalytics() {
+    return reviewService.calculateAnalytics(reviews);
+  }
+}
@@ -0,0 +1,107 @@
+package com.customersupport.util;
+
+import com.customersupport.entity.Company;
+import com.customersupport.entity.Role;
+import com.customersupport.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Token validation as done on every authenticated request. The baseline repeats what JwtUtil did
+ * before the key and parser were built once: derive the key, build a parser, parse and copy the
+ * claims on every call. The current path runs with the verified token cache off and on.
+ *
+ * <p>Run with {@code -prof gc} to get the bytes allocated per call (gc.alloc.rate.norm) next to
+ * the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+  private static final String SECRET = "benchmarkSecretKey12345678901234567890";
+  private static final long EXPIRATION_MS = 86400000L;
+
+  private String token;
+
+  @Setup
+  public void setUp() {
+    token = new JwtUtil(SECRET, EXPIRATION_MS, 0).generateToken(user());
+  }
+
+  /** The current JwtUtil, with its verified token cache disabled or sized as in production. */
+  @State(Scope.Benchmark)
+  public static class Current {
+
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    private JwtUtil jwtUtil;
+
+    @Setup
+    public void setUp() {
+      jwtUtil = new JwtUtil(SECRET, EXPIRATION_MS, cacheSize);
+    }
+  }
+
+  @Benchmark
+  public Map<String, Object> validateTokenBaseline() {
+    Claims claims =
+        Jwts.parserBuilder()
+            .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+    if (claims.getExpiration().before(new Date())) {
+      throw new RuntimeException("Token has expired");
+    }
+
+    Map<String, Object> userData = new HashMap<>();
+    userData.put("userId", claims.get("userId"));
+    userData.put("email", claims.get("email"));
+    userData.put("role", claims.get("role"));
+    if (claims.get("companyId") != null) {
+      userData.put("companyId", claims.get("companyId"));
+      userData.put("companyName", claims.get("companyName"));
+    }
+    return userData;
+  }
+
+  @Benchmark
+  public JwtClaims validateToken(Current current) {
+    return current.jwtUtil.validateToken(token);
+  }
+
+  private static User user() {
+    Company company = new Company();
+    company.setId(7L);
+    company.setName("Acme");
+    Role role = new Role();
+    role.setName("SUPPORT_AGENT");
+    User user = new User();
+    user.setId(42L);
+    user.setEmail("agent@example.com");
+    user.setRole(role);
+    user.setCompany(company);
+    return user;
+  }
+}
@@ -17,6 +17,8 @@ CREATE TABLE companies(
                           updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                           created_date BIGINT,
                           created_by BIGINT,
+                          review_count BIGINT NOT NULL DEFAULT 0,
+                          rating_total BIGINT NOT NULL DEFAULT 0,
                           INDEX idx_company_status (status),
                           INDEX idx_company_name (name),
                           CHECK (max_agent > 0),
@@ -203,12 +205,15 @@ CREATE TABLE agents (
                         total_tickets_handled INT DEFAULT 0,
                         average_resolution_time DECIMAL(8,2) DEFAULT 0.00,
                         customer_satisfaction_rating DECIMAL(3,2) DEFAULT 0.00,
+                        review_count BIGINT NOT NULL DEFAULT 0,
+                        rating_total BIGINT NOT NULL DEFAULT 0,
                         is_available BOOLEAN DEFAULT TRUE,
                         shift_start DATETIME,
                         shift_end DATETIME,
                         working_days JSON,
                         created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                         updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                        version BIGINT NOT NULL DEFAULT 0,
                         FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
                         FOREIGN KEY (company_id) REFERENCES companies(id) ON DELETE CASCADE,
                         INDEX idx_agent_company (company_id),
@@ -239,7 +244,7 @@ CREATE TABLE categories (
 -- Ticket table
 CREATE TABLE tickets(
                         id BIGINT AUTO_INCREMENT PRIMARY KEY,
-                        ticket_number VARCHAR(20) NOT NULL UNIQUE,
+                        ticket_number VARCHAR(32) NOT NULL UNIQUE,
                         company_id BIGINT NOT NULL,
                         customer_id BIGINT NOT NULL,
                         agent_id BIGINT NULL,
@@ -259,6 +264,9 @@ CREATE TABLE tickets(
                         created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                         updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                         closed_at TIMESTAMP NULL,
+                        response_breached_at TIMESTAMP NULL,
+                        resolution_breached_at TIMESTAMP NULL,
+                        version BIGINT NOT NULL DEFAULT 0,
                         FOREIGN KEY (company_id) REFERENCES companies(id) ON DELETE CASCADE,
                         FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE,
                         FOREIGN KEY (agent_id) REFERENCES agents(id) ON DELETE SET NULL,
@@ -269,7 +277,15 @@ CREATE TABLE tickets(
                         INDEX idx_ticket_status (status),
                         INDEX idx_ticket_priority (priority),
                         INDEX idx_ticket_number (ticket_number),
-                        INDEX idx_ticket_created (created_at)
+                        INDEX idx_ticket_created (created_at),
+                        INDEX idx_ticket_company_created (company_id, created_at, id)
+);
+
+-- Ticket number blocks (hi/lo allocator); company_id 0 is the sequence shared by TIMESTAMP numbers
+CREATE TABLE ticket_number_sequences (
+                                         company_id BIGINT PRIMARY KEY,
+                                         next_value BIGINT NOT NULL DEFAULT 1,
+                                         updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
 
 -- Ticket response table
@@ -473,6 +489,23 @@ CREATE TABLE notifications (
                                INDEX idx_notification_created (created_at)
 );
 
+-- Outgoing email queue, drained by the background dispatcher
+CREATE TABLE email_outbox (
+                              id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                              recipient VARCHAR(255) NOT NULL,
+                              subject VARCHAR(500) NOT NULL,
+                              template_name VARCHAR(100) NOT NULL,
+                              template_model JSON,
+                              status ENUM('PENDING', 'SENDING', 'SENT', 'FAILED') DEFAULT 'PENDING',
+                              attempts INT NOT NULL DEFAULT 0,
+                              next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                              last_error TEXT,
+                              created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                              sent_at TIMESTAMP NULL,
+                              INDEX idx_email_outbox_due (status, next_attempt_at),
+                              INDEX idx_email_outbox_sent (status, sent_at)
+);
+
 DELIMITER //
 
 -- Trigger to update customer satisfaction score when review is added
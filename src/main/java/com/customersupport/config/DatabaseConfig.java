@@ -2,11 +2,15 @@ package com.customersupport.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Properties;
 import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -55,19 +59,37 @@ public class DatabaseConfig {
   @Value("${spring.datasource.hikari.idle-timeout:600000}")
   private int idleTimeout;
 
+  @Value("${spring.datasource.hikari.pool-name:customer-support}")
+  private String poolName;
+
+  @Value("${ticket.number.pool-size:2}")
+  private int ticketNumberPoolSize;
+
+  @Value("${report.pool-size:4}")
+  private int reportPoolSize;
+
+  @Autowired private MeterRegistry meterRegistry;
+
   @Bean
+  @Primary
   public DataSource dataSource() {
-    HikariConfig config = new HikariConfig();
-    config.setJdbcUrl(dataSourceUrl);
-    config.setUsername(dataSourceUsername);
-    config.setPassword(dataSourcePassword);
-    config.setDriverClassName(dataSourceDriverClassName);
-    config.setConnectionTimeout(connectionTimeout);
-    config.setMaximumPoolSize(maximumPoolSize);
-    config.setMinimumIdle(minimumIdle);
-    config.setIdleTimeout(idleTimeout);
+    return newPool(poolName, dataSourceUrl, maximumPoolSize, minimumIdle);
+  }
 
-    return new HikariDataSource(config);
+  // Ticket number blocks are reserved while the caller's transaction holds a main pool connection,
+  // so they get a small pool of their own rather than competing for a second one
+  @Bean
+  public DataSource ticketNumberDataSource() {
+    return newPool("ticket-numbers", dataSourceUrl, ticketNumberPoolSize, 0);
+  }
+
+  // Report scans stream whole companies through server-side cursors. useCursorFetch makes the
+  // driver use server-side prepared statements for every query on the connection, so it is only
+  // set on this pool rather than on the main URL.
+  @Bean
+  public DataSource reportDataSource() {
+    String separator = dataSourceUrl.contains("?") ? "&" : "?";
+    return newPool("reports", dataSourceUrl + separator + "useCursorFetch=true", reportPoolSize, 0);
   }
 
   @Bean
@@ -95,4 +117,20 @@ public class DatabaseConfig {
     transactionManager.setEntityManagerFactory(entityManagerFactory().getObject());
     return transactionManager;
   }
+
+  private HikariDataSource newPool(String name, String url, int maxPoolSize, int minIdle) {
+    HikariConfig config = new HikariConfig();
+    config.setJdbcUrl(url);
+    config.setUsername(dataSourceUsername);
+    config.setPassword(dataSourcePassword);
+    config.setDriverClassName(dataSourceDriverClassName);
+    config.setConnectionTimeout(connectionTimeout);
+    config.setMaximumPoolSize(maxPoolSize);
+    config.setMinimumIdle(minIdle);
+    config.setIdleTimeout(idleTimeout);
+    config.setPoolName(name);
+    // Pool gauges (active, idle, pending, acquire time) must be bound before the pool starts
+    config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+    return new HikariDataSource(config);
+  }
 }
@@ -1,8 +1,11 @@
 package com.customersupport.config;
 
-import com.customersupport.entity.User;
-import com.customersupport.repository.UserRepository;
+import com.customersupport.dto.PrincipalSnapshot;
+import com.customersupport.service.PrincipalCacheService;
+import com.customersupport.util.JwtClaims;
 import com.customersupport.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,7 +13,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,9 +28,42 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+  // Checked on every request, so built once rather than per call
+  private static final Set<String> EXACT_PUBLIC_PATHS =
+      Set.of(
+          "/",
+          "/favicon.ico",
+          "/index.html",
+          "/login.html",
+          "/register.html",
+          "/company-selection.html",
+          "/super-admin/dashboard.html",
+          "/super-admin/company-management.html",
+          "/super-admin/company-registration.html",
+          "/company-admin/dashboard.html",
+          "/company-admin/user-management.html",
+          "/company-admin/agent-registration.html",
+          "/agent/dashboard.html",
+          "/agent/ticket-queue.html",
+          "/agent/ticket-response.html",
+          "/customer/dashboard.html",
+          "/customer/registration.html",
+          "/customer/ticket-create.html",
+          "/customer/ticket-list.html",
+          "/auth/login.html",
+          "/auth/company-selection.html",
+          "/auth/password-reset-request.html",
+          "/auth/password-reset.html",
+          "/api/customers/register");
+
+  private static final List<String> PREFIX_PUBLIC_PATHS =
+      List.of("/css/", "/js/", "/images/", "/static/", "/api/auth/", "/api/test/");
+
   @Autowired private JwtUtil jwtUtil;
 
-  @Autowired private UserRepository userRepository;
+  @Autowired private PrincipalCacheService principalCacheService;
+
+  @Autowired private MeterRegistry meterRegistry;
 
   @Override
   protected void doFilterInternal(
@@ -41,7 +76,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     // Skip JWT processing for public endpoints
     if (shouldSkipJwtProcessing(requestURI)) {
-      System.out.println("JWT Filter: Skipping public endpoint: " + requestURI);
       filterChain.doFilter(request, response);
       return;
     }
@@ -51,7 +85,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     // If no token or not Bearer token, continue chain
     if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-      System.out.println("JWT Filter: No Bearer token found for: " + requestURI);
       filterChain.doFilter(request, response);
       return;
     }
@@ -61,21 +94,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     try {
       // Validate token and get user data
-      Map<String, Object> userData = jwtUtil.validateTokenAndGetData(jwt);
+      JwtClaims claims = validateToken(jwt);
 
       // If token is valid and user is not already authenticated
-      if (userData != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-        Long userId = Long.valueOf(userData.get("userId").toString());
-        String roleName = userData.get("role").toString();
+      if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        Long userId = claims.userId();
+        String roleName = claims.role();
 
-        // Get user from database
-        Optional<User> userOpt = userRepository.findById(userId);
+        // Status, role and company come from the principal cache; only misses hit the database
+        Optional<PrincipalSnapshot> principalOpt = principalCacheService.getPrincipal(userId);
 
-        if (userOpt.isPresent()) {
-          User user = userOpt.get();
+        if (principalOpt.isPresent()) {
+          PrincipalSnapshot principal = principalOpt.get();
 
           // Verify user is active
-          if (user.getStatus() != User.UserStatus.ACTIVE) {
+          if (!principal.isActive()) {
             filterChain.doFilter(request, response);
             return;
           }
@@ -86,7 +119,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
           // Create authentication token
           UsernamePasswordAuthenticationToken authToken =
-              new UsernamePasswordAuthenticationToken(user.getEmail(), null, authorities);
+              new UsernamePasswordAuthenticationToken(principal.getEmail(), null, authorities);
 
           // Set authentication details
           authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -103,60 +136,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 
+  // Times signature verification (or the cache lookup that replaces it) per outcome
+  private JwtClaims validateToken(String jwt) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "invalid";
+    try {
+      JwtClaims claims = jwtUtil.validateToken(jwt);
+      outcome = "valid";
+      return claims;
+    } finally {
+      sample.stop(
+          Timer.builder("cs.jwt.validation")
+              .description("JWT validation on authenticated requests")
+              .tag("outcome", outcome)
+              .register(meterRegistry));
+    }
+  }
+
   /** Check if JWT processing should be skipped for the given URI */
-  private boolean shouldSkipJwtProcessing(String requestURI) {
-    System.out.println("DEBUG: shouldSkipJwtProcessing called for URI: " + requestURI);
-
-    final Set<String> exactPublicPaths =
-        Set.of(
-            "/",
-            "/favicon.ico",
-            "/index.html",
-            "/login.html",
-            "/register.html",
-            "/company-selection.html",
-            "/super-admin/dashboard.html",
-            "/super-admin/company-management.html",
-            "/super-admin/company-registration.html",
-            "/company-admin/dashboard.html",
-            "/company-admin/user-management.html",
-            "/company-admin/agent-registration.html",
-            "/agent/dashboard.html",
-            "/agent/ticket-queue.html",
-            "/agent/ticket-response.html",
-            "/customer/dashboard.html",
-            "/customer/registration.html",
-            "/customer/ticket-create.html",
-            "/customer/ticket-list.html",
-            "/auth/login.html",
-            "/auth/company-selection.html",
-            "/auth/password-reset-request.html",
-            "/auth/password-reset.html",
-            "/api/customers/register");
-
-    final List<String> prefixPublicPaths =
-        List.of("/css/", "/js/", "/images/", "/static/", "/api/auth/", "/api/test/");
-
-    if (exactPublicPaths.contains(requestURI)) {
+  static boolean shouldSkipJwtProcessing(String requestURI) {
+    if (EXACT_PUBLIC_PATHS.contains(requestURI)) {
       return true;
     }
 
-    for (String prefix : prefixPublicPaths) {
+    for (String prefix : PREFIX_PUBLIC_PATHS) {
       if (requestURI.startsWith(prefix)) {
-        System.out.println(
-            "DEBUG: Request URI '"
-                + requestURI
-                + "' matches public endpoint prefix '"
-                + prefix
-                + "'");
         return true;
       }
     }
-
-    System.out.println(
-        "DEBUG: Request URI '"
-            + requestURI
-            + "' does NOT match any public endpoint pattern. Should require JWT.");
     return false;
   }
 }
@@ -0,0 +1,133 @@
+package com.customersupport.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.Entity;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public service method and every repository call, and records how many rows each
+ * repository call returned or modified. Meters are tagged by class and method only, so their
+ * number is bounded by the code rather than by the data. A bean calling its own methods bypasses
+ * the proxy, so only the outer call is timed.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+
+  private static final String NO_EXCEPTION = "none";
+
+  private final MeterRegistry meterRegistry;
+
+  // Repository interface names by proxy class, e.g. TicketRepository
+  private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+  public MetricsAspect(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Around("execution(public * com.customersupport.service..*.*(..))")
+  public Object timeServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+    String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+    String method = joinPoint.getSignature().getName();
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String exception = NO_EXCEPTION;
+    try {
+      return joinPoint.proceed();
+    } catch (Throwable e) {
+      exception = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      sample.stop(
+          Timer.builder("cs.service")
+              .description("Service method calls")
+              .tag("class", className)
+              .tag("method", method)
+              .tag("exception", exception)
+              .register(meterRegistry));
+    }
+  }
+
+  @Around(
+      "target(org.springframework.data.repository.Repository) && execution(public * *(..))"
+          + " && !execution(* java.lang.Object.*(..))")
+  public Object timeRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+    String repository = repositoryName(joinPoint.getTarget());
+    Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String exception = NO_EXCEPTION;
+    Object result = null;
+    try {
+      result = joinPoint.proceed();
+      return result;
+    } catch (Throwable e) {
+      exception = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      sample.stop(
+          Timer.builder("cs.repository")
+              .description("Repository calls")
+              .tag("repository", repository)
+              .tag("method", method.getName())
+              .tag("exception", exception)
+              .register(meterRegistry));
+      long rows = exception.equals(NO_EXCEPTION) ? rowsOf(method, result) : -1;
+      if (rows >= 0) {
+        DistributionSummary.builder("cs.repository.rows")
+            .description("Rows returned or modified by repository calls")
+            .baseUnit("rows")
+            .tag("repository", repository)
+            .tag("method", method.getName())
+            .register(meterRegistry)
+            .record(rows);
+      }
+    }
+  }
+
+  private String repositoryName(Object target) {
+    return repositoryNames.computeIfAbsent(
+        target.getClass(),
+        proxyClass -> {
+          // The repository's own interface comes first on Spring Data proxies
+          for (Class<?> candidate : proxyClass.getInterfaces()) {
+            if (Repository.class.isAssignableFrom(candidate) && candidate != Repository.class) {
+              return candidate.getSimpleName();
+            }
+          }
+          return proxyClass.getSimpleName();
+        });
+  }
+
+  // Row count for results that have one; -1 for counts, flags, streams and projections
+  private static long rowsOf(Method method, Object result) {
+    if (result instanceof Collection<?> collection) {
+      return collection.size();
+    }
+    if (result instanceof Slice<?> slice) {
+      return slice.getNumberOfElements();
+    }
+    if (result instanceof Optional<?> optional) {
+      return optional.isPresent() ? 1 : 0;
+    }
+    if (result instanceof Number number && method.isAnnotationPresent(Modifying.class)) {
+      return number.longValue();
+    }
+    if (method.getReturnType().isAnnotationPresent(Entity.class)) {
+      return result != null ? 1 : 0;
+    }
+    return -1;
+  }
+}
@@ -1,5 +1,6 @@
 package com.customersupport.config;
 
+import jakarta.servlet.DispatcherType;
 import java.util.Arrays;
 import java.util.List;
 import org.springframework.context.annotation.Bean;
@@ -28,6 +29,10 @@ public class SecurityConfig {
         .configurationSource(corsConfigurationSource())
         .and()
         .authorizeHttpRequests()
+        // Ticket event streams complete on an async dispatch after the original request was
+        // already authorized; the stateless JWT filter does not run again for it
+        .dispatcherTypeMatchers(DispatcherType.ASYNC)
+        .permitAll()
         .requestMatchers(
             "/",
             "/index.html",
@@ -50,6 +55,11 @@ public class SecurityConfig {
         .permitAll()
         .requestMatchers("/api/system-feedback/public")
         .permitAll()
+        // Scraped by Prometheus on the management port; other actuator endpoints need a super admin
+        .requestMatchers("/actuator/health", "/actuator/prometheus")
+        .permitAll()
+        .requestMatchers("/actuator/**")
+        .hasRole("SUPER_ADMIN")
         .requestMatchers(HttpMethod.POST, "/api/system-feedback")
         .hasRole("COMPANY_ADMIN")
         .requestMatchers(HttpMethod.GET, "/api/system-feedback/company/**")
@@ -0,0 +1,88 @@
+package com.customersupport.config;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateInputException;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+/**
+ * Parses the email and PDF templates once at startup so the first notification or export does not
+ * pay for reading and parsing them. Thymeleaf caches the parsed template before processing it, so
+ * rendering with an empty context is enough even if the template then fails on missing variables.
+ */
+@Component
+public class TemplatePreloader {
+
+  private static final Logger log = LoggerFactory.getLogger(TemplatePreloader.class);
+
+  private static final String EMAIL_TEMPLATES = "classpath*:/templates/emails/*.html";
+
+  private static final List<String> PDF_TEMPLATES =
+      List.of("company-admin/company-performance-report");
+
+  @Value("${templates.cache.enabled:true}")
+  private boolean cacheEnabled;
+
+  private final SpringTemplateEngine templateEngine;
+  private final SpringTemplateEngine pdfTemplateEngine;
+  private final ResourcePatternResolver resourceResolver;
+
+  public TemplatePreloader(
+      SpringTemplateEngine templateEngine,
+      @Qualifier("pdfTemplateEngine") SpringTemplateEngine pdfTemplateEngine,
+      ResourcePatternResolver resourceResolver) {
+    this.templateEngine = templateEngine;
+    this.pdfTemplateEngine = pdfTemplateEngine;
+    this.resourceResolver = resourceResolver;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void preloadTemplates() {
+    if (!cacheEnabled) {
+      return;
+    }
+
+    int loaded = 0;
+    try {
+      for (Resource resource : resourceResolver.getResources(EMAIL_TEMPLATES)) {
+        String filename = resource.getFilename();
+        if (filename != null && preload(templateEngine, filename.replace(".html", ""))) {
+          loaded++;
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Unable to list email templates: {}", e.getMessage());
+    }
+
+    for (String template : PDF_TEMPLATES) {
+      if (preload(pdfTemplateEngine, template)) {
+        loaded++;
+      }
+    }
+    log.info("Preloaded {} email and report templates", loaded);
+  }
+
+  private boolean preload(SpringTemplateEngine engine, String template) {
+    try {
+      engine.process(template, new Context(), Writer.nullWriter());
+    } catch (TemplateInputException e) {
+      log.warn("Unable to preload template {}: {}", template, e.getMessage());
+      return false;
+    } catch (RuntimeException e) {
+      // Expected for templates that dereference model values; the parse is cached regardless
+      log.debug("Template {} preloaded with render error: {}", template, e.getMessage());
+    }
+    return true;
+  }
+}
@@ -1,9 +1,11 @@
 package com.customersupport.config;
 
 import java.nio.charset.StandardCharsets;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.thymeleaf.cache.StandardCacheManager;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
 import org.thymeleaf.templatemode.TemplateMode;
@@ -12,11 +14,23 @@ import org.thymeleaf.templateresolver.ITemplateResolver;
 @Configuration
 public class ThymeleafEmailConfig {
 
+  // Parsed templates are cached unless disabled for local template editing
+  @Value("${templates.cache.enabled:true}")
+  private boolean cacheEnabled;
+
+  // 0 keeps cached templates until evicted by size
+  @Value("${templates.cache.ttl-ms:0}")
+  private long cacheTtlMs;
+
+  @Value("${templates.cache.max-size:200}")
+  private int cacheMaxSize;
+
   @Primary
   @Bean
   public SpringTemplateEngine templateEngine() {
     SpringTemplateEngine templateEngine = new SpringTemplateEngine();
     templateEngine.addTemplateResolver(htmlTemplateResolver());
+    templateEngine.setCacheManager(cacheManager());
     return templateEngine;
   }
 
@@ -27,7 +41,7 @@ public class ThymeleafEmailConfig {
     emailTemplateResolver.setSuffix(".html");
     emailTemplateResolver.setTemplateMode(TemplateMode.HTML);
     emailTemplateResolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
-    emailTemplateResolver.setCacheable(false);
+    configureCaching(emailTemplateResolver);
     return emailTemplateResolver;
   }
 
@@ -35,6 +49,7 @@ public class ThymeleafEmailConfig {
   public SpringTemplateEngine pdfTemplateEngine() {
     SpringTemplateEngine templateEngine = new SpringTemplateEngine();
     templateEngine.addTemplateResolver(pdfTemplateResolver());
+    templateEngine.setCacheManager(cacheManager());
     return templateEngine;
   }
 
@@ -45,7 +60,21 @@ public class ThymeleafEmailConfig {
     templateResolver.setSuffix(".html");
     templateResolver.setTemplateMode(TemplateMode.HTML);
     templateResolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
-    templateResolver.setCacheable(false);
+    configureCaching(templateResolver);
     return templateResolver;
   }
+
+  private void configureCaching(SpringResourceTemplateResolver templateResolver) {
+    templateResolver.setCacheable(cacheEnabled);
+    if (cacheTtlMs > 0) {
+      templateResolver.setCacheTTLMs(cacheTtlMs);
+    }
+  }
+
+  // Each engine gets its own cache manager, as the managers hold the caches themselves
+  private StandardCacheManager cacheManager() {
+    StandardCacheManager cacheManager = new StandardCacheManager();
+    cacheManager.setTemplateCacheMaxSize(cacheMaxSize);
+    return cacheManager;
+  }
 }
@@ -2,6 +2,7 @@ package com.customersupport.controller;
 
 import com.customersupport.dto.AgentPerformanceDTO;
 import com.customersupport.dto.AgentTicketBoardDTO;
+import com.customersupport.dto.TicketBoardDeltaDTO;
 import com.customersupport.dto.TicketDTO;
 import com.customersupport.dto.TicketResponseDTO;
 import com.customersupport.entity.Agent;
@@ -10,6 +11,7 @@ import com.customersupport.entity.TicketResponse;
 import com.customersupport.repository.AgentRepository;
 import com.customersupport.repository.UserRepository;
 import com.customersupport.service.AgentService;
+import com.customersupport.service.TicketEventStream;
 import com.customersupport.service.TicketResponseService;
 import com.customersupport.service.TicketService;
 import jakarta.validation.Valid;
@@ -21,6 +23,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/agents")
@@ -31,6 +35,8 @@ public class AgentController {
 
   @Autowired private TicketService ticketService;
 
+  @Autowired private TicketEventStream ticketEventStream;
+
   @Autowired private TicketResponseService ticketResponseService;
 
   @Autowired private UserRepository userRepository;
@@ -61,6 +67,34 @@ public class AgentController {
     }
   }
 
+  // Tickets that changed on the board since the version the dashboard last loaded
+  @GetMapping("/ticket-board/changes")
+  public ResponseEntity<?> getAgentTicketBoardChanges(@RequestParam long since) {
+    try {
+      Agent agent = resolveAuthenticatedAgent();
+      TicketBoardDeltaDTO changes = ticketService.getAgentTicketBoardChanges(agent.getId(), since);
+      return ResponseEntity.ok(changes);
+    } catch (RuntimeException e) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
+    }
+  }
+
+  // Live ticket changes for the agent's company as Server-Sent Events
+  @GetMapping("/ticket-events")
+  public SseEmitter streamTicketEvents() {
+    Agent agent;
+    try {
+      agent = resolveAuthenticatedAgent();
+    } catch (RuntimeException e) {
+      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage());
+    }
+    try {
+      return ticketEventStream.subscribeAgent(agent.getCompany().getId());
+    } catch (RuntimeException e) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
+  }
+
   // Get assigned tickets for an agent
   @GetMapping("/{agentId}/tickets")
   public ResponseEntity<List<TicketDTO>> getAgentTickets(@PathVariable Long agentId) {
@@ -1,11 +1,14 @@
 package com.customersupport.controller;
 
 import com.customersupport.dto.AnalyticsDTO;
+import com.customersupport.dto.LatencyReportDTO;
 import com.customersupport.entity.Analytics;
 import com.customersupport.service.AnalyticsService;
+import com.customersupport.service.TicketLatencyHistograms;
 import jakarta.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +21,8 @@ public class AnalyticsController {
 
   @Autowired private AnalyticsService analyticsService;
 
+  @Autowired private TicketLatencyHistograms ticketLatencyHistograms;
+
   // Save analytics data
   @PostMapping
   public ResponseEntity<?> saveAnalytics(@Valid @RequestBody AnalyticsDTO analyticsDTO) {
@@ -29,6 +34,17 @@ public class AnalyticsController {
     }
   }
 
+  // Save a batch of analytics data
+  @PostMapping("/bulk")
+  public ResponseEntity<?> saveAnalyticsBatch(@RequestBody List<AnalyticsDTO> analyticsDTOs) {
+    try {
+      int saved = analyticsService.saveAnalyticsBatch(analyticsDTOs);
+      return ResponseEntity.ok(Map.of("saved", saved));
+    } catch (RuntimeException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
   // Get analytics by ID
   @GetMapping("/{id}")
   public ResponseEntity<AnalyticsDTO> getAnalyticsById(@PathVariable Long id) {
@@ -45,6 +61,12 @@ public class AnalyticsController {
     return ResponseEntity.ok(analytics);
   }
 
+  // Get first-response and resolution time percentiles for a company and its agents
+  @GetMapping("/company/{companyId}/latency")
+  public ResponseEntity<LatencyReportDTO> getLatencyReport(@PathVariable Long companyId) {
+    return ResponseEntity.ok(ticketLatencyHistograms.getLatencyReport(companyId));
+  }
+
   // Get analytics by company and metric type
   @GetMapping("/company/{companyId}/type/{metricType}")
   public ResponseEntity<List<AnalyticsDTO>> getAnalyticsByCompanyAndMetricType(
@@ -5,6 +5,7 @@ import com.customersupport.dto.PasswordResetRequestDTO;
 import com.customersupport.dto.PasswordUpdateDTO;
 import com.customersupport.service.AuthService;
 import com.customersupport.service.SimpleAuthService;
+import com.customersupport.util.JwtClaims;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.util.HashMap;
@@ -144,8 +145,8 @@ public class AuthController {
   @GetMapping("/verify-token")
   public ResponseEntity<?> verifyToken(@RequestParam String token) {
     try {
-      Map<String, Object> userData = authService.verifyToken(token);
-      return ResponseEntity.ok(userData);
+      JwtClaims claims = authService.verifyToken(token);
+      return ResponseEntity.ok(claims);
     } catch (RuntimeException e) {
       Map<String, String> errorResponse = new HashMap<>();
       errorResponse.put("error", e.getMessage());
@@ -5,15 +5,19 @@ import com.customersupport.dto.AgentRegistrationDTO;
 import com.customersupport.dto.CompanyPerformanceReportDTO;
 import com.customersupport.dto.CustomerDTO;
 import com.customersupport.dto.CustomerRegistrationDTO;
+import com.customersupport.dto.ReportJobDTO;
 import com.customersupport.dto.ReviewAnalyticsDTO;
 import com.customersupport.dto.ReviewDTO;
 import com.customersupport.dto.TicketDTO;
+import com.customersupport.dto.TicketPageDTO;
+import com.customersupport.dto.TicketStatusCounts;
 import com.customersupport.dto.TicketResponseDTO;
 import com.customersupport.dto.UserDTO;
 import com.customersupport.entity.Ticket;
 import com.customersupport.service.AgentService;
 import com.customersupport.service.CompanyPerformanceService;
 import com.customersupport.service.CustomerService;
+import com.customersupport.service.ReportJobService;
 import com.customersupport.service.ReviewService;
 import com.customersupport.service.TicketResponseService;
 import com.customersupport.service.TicketService;
@@ -25,6 +29,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
@@ -48,6 +54,8 @@ public class CompanyAdminController {
 
   @Autowired private CompanyPerformanceService companyPerformanceService;
 
+  @Autowired private ReportJobService reportJobService;
+
   @Autowired private ReviewService reviewService;
 
   @Autowired private TicketResponseService ticketResponseService;
@@ -272,6 +280,22 @@ public class CompanyAdminController {
     }
   }
 
+  @GetMapping("/tickets/page")
+  public ResponseEntity<TicketPageDTO> getCompanyTicketPage(
+      @RequestParam Long companyId,
+      @RequestParam(required = false) Ticket.Status status,
+      @RequestParam(required = false) String search,
+      @RequestParam(required = false) Integer size,
+      @RequestParam(required = false) String cursor) {
+    try {
+      TicketPageDTO page =
+          ticketService.getTicketPageByCompany(companyId, status, search, size, cursor);
+      return ResponseEntity.ok(page);
+    } catch (RuntimeException e) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
   @GetMapping("/tickets/{ticketId}/responses")
   public ResponseEntity<List<TicketResponseDTO>> getTicketResponsesForCompanyAdmin(
       @PathVariable Long ticketId, @RequestParam Long companyId) {
@@ -289,9 +313,10 @@ public class CompanyAdminController {
   @GetMapping("/tickets/status-summary")
   public ResponseEntity<Map<String, Object>> getTicketStatusSummary(@RequestParam Long companyId) {
     try {
+      TicketStatusCounts counts = ticketService.getTicketStatusCounts(companyId);
       Map<String, Object> summary = new HashMap<>();
-      summary.put("totals", ticketService.getTicketStatusBreakdown(companyId));
-      summary.put("totalTickets", ticketService.countTicketsByCompany(companyId));
+      summary.put("totals", counts.asMap());
+      summary.put("totalTickets", counts.getTotal());
       return ResponseEntity.ok(summary);
     } catch (RuntimeException e) {
       return ResponseEntity.badRequest().build();
@@ -304,18 +329,10 @@ public class CompanyAdminController {
     try {
       Map<String, Object> stats = new HashMap<>();
 
-      long totalTickets = ticketService.countTicketsByCompany(companyId);
-      stats.put("totalTickets", totalTickets);
-
-      long openTickets =
-          ticketService.countTicketsByCompanyAndStatus(companyId, Ticket.Status.OPEN)
-              + ticketService.countTicketsByCompanyAndStatus(companyId, Ticket.Status.IN_PROGRESS);
-      stats.put("openTickets", openTickets);
-
-      stats.put(
-          "resolvedTickets",
-          ticketService.countTicketsByCompanyAndStatus(companyId, Ticket.Status.RESOLVED)
-              + ticketService.countTicketsByCompanyAndStatus(companyId, Ticket.Status.CLOSED));
+      TicketStatusCounts counts = ticketService.getTicketStatusCounts(companyId);
+      stats.put("totalTickets", counts.getTotal());
+      stats.put("openTickets", counts.sum(Ticket.Status.OPEN, Ticket.Status.IN_PROGRESS));
+      stats.put("resolvedTickets", counts.sum(Ticket.Status.RESOLVED, Ticket.Status.CLOSED));
 
       List<AgentDTO> agents = agentService.getAgentsByCompany(companyId);
       stats.put("totalAgents", agents.size());
@@ -323,7 +340,7 @@ public class CompanyAdminController {
       List<CustomerDTO> customers = customerService.getCustomersByCompany(companyId);
       stats.put("totalCustomers", customers.size());
 
-      stats.put("statusBreakdown", ticketService.getTicketStatusBreakdown(companyId));
+      stats.put("statusBreakdown", counts.asMap());
       stats.put("averageRating", reviewService.getAverageRatingByCompany(companyId));
 
       return ResponseEntity.ok(stats);
@@ -407,4 +424,44 @@ public class CompanyAdminController {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
     }
   }
+
+  // Queue a PDF export on the report workers; poll the job and download it once COMPLETED
+  @PostMapping("/performance/pdf/jobs")
+  public ResponseEntity<?> submitPerformancePdfJob(@RequestParam Long companyId) {
+    try {
+      ReportJobDTO job = reportJobService.submitPerformancePdf(companyId);
+      return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    } catch (RuntimeException e) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+  }
+
+  @GetMapping("/performance/pdf/jobs/{jobId}")
+  public ResponseEntity<ReportJobDTO> getPerformancePdfJob(
+      @PathVariable String jobId, @RequestParam Long companyId) {
+    return reportJobService
+        .getJob(jobId, companyId)
+        .map(ResponseEntity::ok)
+        .orElse(ResponseEntity.notFound().build());
+  }
+
+  @GetMapping("/performance/pdf/jobs/{jobId}/download")
+  public ResponseEntity<Resource> downloadPerformancePdfJob(
+      @PathVariable String jobId, @RequestParam Long companyId) {
+    return reportJobService
+        .getReportFile(jobId, companyId)
+        .map(
+            file -> {
+              HttpHeaders headers = new HttpHeaders();
+              headers.setContentType(MediaType.APPLICATION_PDF);
+              headers.setContentDisposition(
+                  ContentDisposition.attachment().filename(file.filename()).build());
+              headers.setContentLength(file.sizeBytes());
+              // Streamed from disk by the resource message converter
+              return ResponseEntity.ok()
+                  .headers(headers)
+                  .<Resource>body(new FileSystemResource(file.path()));
+            })
+        .orElse(ResponseEntity.notFound().build());
+  }
 }
@@ -9,6 +9,7 @@ import com.customersupport.entity.TicketResponse;
 import com.customersupport.entity.User;
 import com.customersupport.repository.UserRepository;
 import com.customersupport.service.CustomerService;
+import com.customersupport.service.TicketEventStream;
 import com.customersupport.service.TicketResponseService;
 import com.customersupport.service.TicketService;
 import jakarta.validation.Valid;
@@ -16,11 +17,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/customers")
@@ -35,6 +39,8 @@ public class CustomerController {
 
   @Autowired private TicketResponseService ticketResponseService;
 
+  @Autowired private TicketEventStream ticketEventStream;
+
   @PostMapping("/register")
   public ResponseEntity<?> registerCustomer(
       @Valid @RequestBody CustomerRegistrationDTO registrationDTO) {
@@ -141,6 +147,22 @@ public class CustomerController {
     }
   }
 
+  // Live changes to the authenticated customer's own tickets as Server-Sent Events
+  @GetMapping("/ticket-events")
+  public SseEmitter streamTicketEvents() {
+    CustomerDTO customer =
+        resolveAuthenticatedCustomer()
+            .orElseThrow(
+                () ->
+                    new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "Authenticated customer profile not found"));
+    try {
+      return ticketEventStream.subscribeCustomer(customer.getCompanyId(), customer.getId());
+    } catch (RuntimeException e) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
+  }
+
   @GetMapping("/tickets/{id}")
   public ResponseEntity<?> getTicketById(@PathVariable Long id) {
     try {
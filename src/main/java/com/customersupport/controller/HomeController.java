@@ -1,7 +1,9 @@
 package com.customersupport.controller;
 
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @Controller
 public class HomeController {
@@ -10,4 +12,11 @@ public class HomeController {
   public String home() {
     return "forward:/index.html";
   }
+
+  // Target of the password links in account and reset emails
+  @GetMapping("/auth/password-reset")
+  public String passwordReset(@RequestParam(required = false) String token, Model model) {
+    model.addAttribute("token", token);
+    return "auth/password-reset";
+  }
 }
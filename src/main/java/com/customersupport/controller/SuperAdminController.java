@@ -4,9 +4,17 @@ import com.customersupport.dto.CompanyAdminRegistrationDTO;
 import com.customersupport.dto.CompanyDTO;
 import com.customersupport.dto.CompanyRegistrationDTO;
 import com.customersupport.entity.Company;
+import com.customersupport.service.AnalyticsRollup;
+import com.customersupport.service.AuditService;
 import com.customersupport.service.CompanyService;
+import com.customersupport.service.PrincipalCacheService;
+import com.customersupport.service.ReviewAggregateReconciler;
+import com.customersupport.service.SlaScheduler;
+import com.customersupport.service.TicketDispatcher;
+import com.customersupport.service.TicketEventStream;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,6 +26,20 @@ public class SuperAdminController {
 
   @Autowired private CompanyService companyService;
 
+  @Autowired private PrincipalCacheService principalCacheService;
+
+  @Autowired private AuditService auditService;
+
+  @Autowired private TicketEventStream ticketEventStream;
+
+  @Autowired private TicketDispatcher ticketDispatcher;
+
+  @Autowired private SlaScheduler slaScheduler;
+
+  @Autowired private AnalyticsRollup analyticsRollup;
+
+  @Autowired private ReviewAggregateReconciler reviewAggregateReconciler;
+
   @GetMapping("/companies")
   public ResponseEntity<List<CompanyDTO>> getAllCompanies() {
     List<CompanyDTO> companies = companyService.getAllCompanies();
@@ -120,6 +142,46 @@ public class SuperAdminController {
     }
   }
 
+  // Hit/miss counters of the JWT filter's principal cache
+  @GetMapping("/system/principal-cache")
+  public ResponseEntity<Map<String, Object>> getPrincipalCacheStats() {
+    return ResponseEntity.ok(principalCacheService.getStats());
+  }
+
+  // Queue depth and flush latency of the background audit writer
+  @GetMapping("/system/audit-writer")
+  public ResponseEntity<Map<String, Object>> getAuditWriterStats() {
+    return ResponseEntity.ok(auditService.getWriterStats());
+  }
+
+  // Queued tickets and batch counters of the automatic ticket dispatcher
+  @GetMapping("/system/ticket-dispatch")
+  public ResponseEntity<Map<String, Object>> getTicketDispatchStats() {
+    return ResponseEntity.ok(ticketDispatcher.getStats());
+  }
+
+  // Open ticket event stream connections and push counters
+  @GetMapping("/system/ticket-events")
+  public ResponseEntity<Map<String, Object>> getTicketEventStats() {
+    return ResponseEntity.ok(ticketEventStream.getStats());
+  }
+
+  // Tracked tickets, timers and escalation counters of the SLA scheduler
+  @GetMapping("/system/sla")
+  public ResponseEntity<Map<String, Object>> getSlaStats() {
+    return ResponseEntity.ok(slaScheduler.getStats());
+  }
+
+  @GetMapping("/system/analytics-rollup")
+  public ResponseEntity<Map<String, Object>> getAnalyticsRollupStats() {
+    return ResponseEntity.ok(analyticsRollup.getStats());
+  }
+
+  @GetMapping("/system/review-aggregates")
+  public ResponseEntity<Map<String, Object>> getReviewAggregateStats() {
+    return ResponseEntity.ok(reviewAggregateReconciler.getStats());
+  }
+
   // Helper classes for JSON responses
   public static class SuccessResponse {
     private String message;
@@ -24,7 +24,7 @@ public class TestEmailController {
       User user =
           userService.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
       String newPassword = userService.resetPassword(user.getId());
-      return ResponseEntity.ok("Password reset email sent with new password: " + newPassword);
+      return ResponseEntity.ok("Password reset email sent; temporary password: " + newPassword);
     } catch (Exception e) {
       return ResponseEntity.badRequest().body("Error: " + e.getMessage());
     }
@@ -22,6 +22,8 @@ public class AgentPerformanceDTO {
   // Performance metrics
   private Double averageResponseTime; // in minutes
   private Double averageResolutionTime; // in minutes
+  private LatencyPercentilesDTO responseTimePercentiles;
+  private LatencyPercentilesDTO resolutionTimePercentiles;
   private Double averageRating;
 
   // Detailed data for display
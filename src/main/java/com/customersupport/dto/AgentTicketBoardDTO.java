@@ -20,6 +20,9 @@ public class AgentTicketBoardDTO {
 
   private AgentSummary agent;
 
+  // Pass as ?since= to /api/agents/ticket-board/changes to fetch only what changed
+  private long version;
+
   @Data
   @Builder
   public static class AgentStats {
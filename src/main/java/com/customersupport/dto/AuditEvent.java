@@ -0,0 +1,29 @@
+package com.customersupport.dto;
+
+import com.customersupport.entity.AuditLog;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One audit_logs row as queued by AuditService; references are plain ids and the old/new values
+// are already JSON, so the writer never touches entities
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditEvent {
+  private Long companyId;
+  private Long userId;
+  private String action;
+  private String resourceType;
+  private Long resourceId;
+  private String oldValues;
+  private String newValues;
+  private String ipAddress;
+  private String userAgent;
+  private AuditLog.Severity severity;
+  private String details;
+  private LocalDateTime createdAt;
+}
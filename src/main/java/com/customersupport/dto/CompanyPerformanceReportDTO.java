@@ -31,6 +31,8 @@ public class CompanyPerformanceReportDTO {
     private long resolvedTickets;
     private long escalatedTickets;
     private double averageResolutionHours;
+    private LatencyPercentilesDTO firstResponseLatency;
+    private LatencyPercentilesDTO resolutionLatency;
     private long ticketsLast30Days;
     private double customerSatisfactionScore;
     private long activeAgents;
@@ -54,6 +56,8 @@ public class CompanyPerformanceReportDTO {
     private long activeTickets;
     private long resolvedTickets;
     private double averageResolutionHours;
+    private LatencyPercentilesDTO firstResponseLatency;
+    private LatencyPercentilesDTO resolutionLatency;
     private double satisfactionScore;
     private Integer totalTicketsHandled;
   }
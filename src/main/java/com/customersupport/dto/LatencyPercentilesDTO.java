@@ -0,0 +1,18 @@
+package com.customersupport.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Percentiles of a latency histogram, in minutes
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyPercentilesDTO {
+  private long count;
+  private double p50;
+  private double p90;
+  private double p99;
+}
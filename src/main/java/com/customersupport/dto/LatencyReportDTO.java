@@ -0,0 +1,29 @@
+package com.customersupport.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyReportDTO {
+
+  private Long companyId;
+  private LatencyPercentilesDTO firstResponse;
+  private LatencyPercentilesDTO resolution;
+  private List<AgentLatency> agents;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class AgentLatency {
+    private Long agentId;
+    private LatencyPercentilesDTO firstResponse;
+    private LatencyPercentilesDTO resolution;
+  }
+}
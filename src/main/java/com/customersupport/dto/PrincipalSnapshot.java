@@ -0,0 +1,23 @@
+package com.customersupport.dto;
+
+import com.customersupport.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// The slice of a user the security filter needs, filled by UserRepository.findPrincipalSnapshot.
+// Field order must match that constructor expression.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrincipalSnapshot {
+  private Long userId;
+  private String email;
+  private User.UserStatus status;
+  private String roleName;
+  private Long companyId;
+
+  public boolean isActive() {
+    return status == User.UserStatus.ACTIVE;
+  }
+}
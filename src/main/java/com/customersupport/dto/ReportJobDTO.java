@@ -0,0 +1,25 @@
+package com.customersupport.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDTO {
+  private String jobId;
+  private String reportType;
+  private Long companyId;
+  private String status;
+  private LocalDateTime submittedAt;
+  private LocalDateTime startedAt;
+  private LocalDateTime completedAt;
+  private LocalDateTime expiresAt;
+  private String filename;
+  private Long sizeBytes;
+  private String error;
+}
@@ -0,0 +1,25 @@
+package com.customersupport.dto;
+
+import com.customersupport.entity.Ticket;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// What the SLA scheduler needs of an open ticket. Field order must match
+// TicketRepository.findSlaTicketRows.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlaTicketRow {
+  private Long id;
+  private Long companyId;
+  private Long agentId;
+  private Ticket.Priority priority;
+  private Ticket.Status status;
+  private LocalDateTime createdAt;
+  private LocalDateTime firstResponseTime;
+  private LocalDateTime estimatedResolutionTime;
+  private LocalDateTime responseBreachedAt;
+  private LocalDateTime resolutionBreachedAt;
+}
@@ -0,0 +1,24 @@
+package com.customersupport.dto;
+
+import java.util.Collections;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Board changes since a version the client already has. When reset is true the client is too far
+// behind (or the server restarted) and should reload the full board instead.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketBoardDeltaDTO {
+  private long fromVersion;
+  private long version;
+  private boolean reset;
+  @Builder.Default private List<TicketDTO> changedTickets = Collections.emptyList();
+  @Builder.Default private List<Long> removedTicketIds = Collections.emptyList();
+  // Ticket counts only; agent ratings are part of the full board
+  private AgentTicketBoardDTO.AgentStats stats;
+}
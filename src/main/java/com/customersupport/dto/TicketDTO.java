@@ -35,6 +35,8 @@ public class TicketDTO {
   private LocalDateTime createdAt;
   private LocalDateTime updatedAt;
   private LocalDateTime closedAt;
+  // Optimistic lock version of the ticket as of this copy; orders change events per ticket
+  private Long version;
   private boolean canEdit;
   private boolean canCancel;
   private boolean hasReview;
@@ -80,6 +82,7 @@ public class TicketDTO {
     dto.setCreatedAt(ticket.getCreatedAt());
     dto.setUpdatedAt(ticket.getUpdatedAt());
     dto.setClosedAt(ticket.getClosedAt());
+    dto.setVersion(ticket.getVersion());
 
     dto.setCanEdit(ticket.canBeEditedByCustomer());
     dto.setCanCancel(ticket.canBeCancelledByCustomer());
@@ -91,4 +94,96 @@ public class TicketDTO {
 
     return dto;
   }
+
+  public static TicketDTO fromRow(TicketRow row) {
+    TicketDTO dto = new TicketDTO();
+    dto.setId(row.getId());
+    dto.setTicketNumber(row.getTicketNumber());
+    dto.setCompanyId(row.getCompanyId());
+    dto.setCompanyName(row.getCompanyName());
+    dto.setCustomerId(row.getCustomerId());
+    dto.setCustomerName(row.getCustomerFirstname() + " " + row.getCustomerLastname());
+
+    if (row.getAgentId() != null) {
+      dto.setAgentId(row.getAgentId());
+      dto.setAgentName(row.getAgentFirstname() + " " + row.getAgentLastname());
+    }
+
+    if (row.getCategoryId() != null) {
+      dto.setCategoryId(row.getCategoryId());
+      dto.setCategoryName(row.getCategoryName());
+    }
+
+    dto.setTitle(row.getTitle());
+    dto.setDescription(row.getDescription());
+    dto.setPriority(row.getPriority());
+    dto.setStatus(row.getStatus());
+    dto.setSource(row.getSource());
+    dto.setResolution(row.getResolution());
+    dto.setTags(row.getTags());
+    dto.setAttachments(row.getAttachment());
+    dto.setEstimatedResolutionTime(row.getEstimatedResolutionTime());
+    dto.setActualResolutionTime(row.getActualResolutionTime());
+    dto.setFirstResponseTime(row.getFirstResponseTime());
+    dto.setLastActivity(row.getLastActivity());
+    dto.setCreatedAt(row.getCreatedAt());
+    dto.setUpdatedAt(row.getUpdatedAt());
+    dto.setClosedAt(row.getClosedAt());
+    dto.setVersion(row.getVersion());
+
+    // Same rules as Ticket.canBeEditedByCustomer / canBeCancelledByCustomer
+    dto.setCanEdit(row.getStatus() == Ticket.Status.OPEN && row.getAgentId() == null);
+    dto.setCanCancel(
+        row.getStatus() == Ticket.Status.OPEN || row.getStatus() == Ticket.Status.IN_PROGRESS);
+    dto.setHasReview(row.getReviewId() != null);
+
+    if (row.getReviewId() != null) {
+      dto.setReview(reviewFromRow(row, dto));
+    }
+
+    return dto;
+  }
+
+  private static ReviewDTO reviewFromRow(TicketRow row, TicketDTO ticket) {
+    ReviewDTO review = new ReviewDTO();
+    review.setId(row.getReviewId());
+    review.setTicketId(ticket.getId());
+    review.setTicketNumber(ticket.getTicketNumber());
+    review.setCustomerId(ticket.getCustomerId());
+    review.setCustomerName(ticket.getCustomerName());
+    review.setAgentId(ticket.getAgentId());
+    review.setAgentName(ticket.getAgentName());
+    review.setCompanyId(ticket.getCompanyId());
+    review.setCompanyName(ticket.getCompanyName());
+    review.setRating(row.getReviewRating());
+    review.setFeedback(row.getReviewFeedback());
+    review.setServiceQualityRating(row.getReviewServiceQualityRating());
+    review.setResponseTimeRating(row.getReviewResponseTimeRating());
+    review.setProfessionalismRating(row.getReviewProfessionalismRating());
+    review.setWouldRecommend(row.getReviewWouldRecommend());
+    review.setAdditionalComments(row.getReviewAdditionalComments());
+    review.setIsPublished(row.getReviewIsPublished());
+    review.setIsFeatured(row.getReviewIsFeatured());
+    review.setCreatedAt(row.getReviewCreatedAt());
+    review.setUpdatedAt(row.getReviewUpdatedAt());
+
+    // Mirrors Review.getAverageRating
+    int count = 0;
+    int total = 0;
+    for (Integer value :
+        new Integer[] {
+          row.getReviewRating(),
+          row.getReviewServiceQualityRating(),
+          row.getReviewResponseTimeRating(),
+          row.getReviewProfessionalismRating()
+        }) {
+      if (value != null) {
+        total += value;
+        count++;
+      }
+    }
+    review.setAverageRating(count > 0 ? (double) total / count : 0.0);
+
+    return review;
+  }
 }
@@ -0,0 +1,22 @@
+package com.customersupport.dto;
+
+import com.customersupport.entity.Ticket;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// The ticket timestamps latency histograms are seeded from, streamed by
+// TicketReportQueries.streamLatencyRowsByCompany.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketLatencyRow {
+  private Long ticketId;
+  private Long agentId;
+  private Ticket.Status status;
+  private LocalDateTime createdAt;
+  private LocalDateTime firstResponseTime;
+  private LocalDateTime actualResolutionTime;
+  private LocalDateTime closedAt;
+}
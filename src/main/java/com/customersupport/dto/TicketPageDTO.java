@@ -0,0 +1,23 @@
+package com.customersupport.dto;
+
+import java.util.Collections;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketPageDTO {
+  @Builder.Default private List<TicketDTO> tickets = Collections.emptyList();
+
+  private int size;
+
+  // Opaque token for the next page; null when there are no more tickets
+  private String nextCursor;
+
+  private boolean hasMore;
+}
@@ -0,0 +1,22 @@
+package com.customersupport.dto;
+
+import com.customersupport.entity.Ticket;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// The ticket columns the performance report aggregates over, streamed by
+// TicketReportQueries.streamReportRowsByCompany.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketReportRow {
+  private Long agentId;
+  private Long customerId;
+  private String categoryName;
+  private Ticket.Status status;
+  private Ticket.Priority priority;
+  private LocalDateTime createdAt;
+  private LocalDateTime closedAt;
+}
@@ -0,0 +1,57 @@
+package com.customersupport.dto;
+
+import com.customersupport.entity.Ticket;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Flat ticket read model filled by a single JPQL constructor expression in TicketRepository.
+// Field order must match TicketRepository.TICKET_ROW_SELECT.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketRow {
+  private Long id;
+  private String ticketNumber;
+  private Long companyId;
+  private String companyName;
+  private Long customerId;
+  private String customerFirstname;
+  private String customerLastname;
+  private Long agentId;
+  private String agentFirstname;
+  private String agentLastname;
+  private Long categoryId;
+  private String categoryName;
+  private String title;
+  private String description;
+  private Ticket.Priority priority;
+  private Ticket.Status status;
+  private Ticket.Source source;
+  private String resolution;
+  private String tags;
+  private String attachment;
+  private LocalDateTime estimatedResolutionTime;
+  private LocalDateTime actualResolutionTime;
+  private LocalDateTime firstResponseTime;
+  private LocalDateTime lastActivity;
+  private LocalDateTime createdAt;
+  private LocalDateTime updatedAt;
+  private LocalDateTime closedAt;
+  private Long version;
+
+  // Review columns are null when the ticket has no review
+  private Long reviewId;
+  private Integer reviewRating;
+  private String reviewFeedback;
+  private Integer reviewServiceQualityRating;
+  private Integer reviewResponseTimeRating;
+  private Integer reviewProfessionalismRating;
+  private Boolean reviewWouldRecommend;
+  private String reviewAdditionalComments;
+  private Boolean reviewIsPublished;
+  private Boolean reviewIsFeatured;
+  private LocalDateTime reviewCreatedAt;
+  private LocalDateTime reviewUpdatedAt;
+}
@@ -0,0 +1,54 @@
+package com.customersupport.dto;
+
+import com.customersupport.entity.Ticket;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Immutable per-status ticket counts built from a single GROUP BY status query
+public final class TicketStatusCounts {
+
+  private final Map<Ticket.Status, Long> counts;
+  private final long total;
+
+  private TicketStatusCounts(Map<Ticket.Status, Long> counts) {
+    this.counts = Collections.unmodifiableMap(counts);
+    this.total = counts.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  // Rows are [Ticket.Status, Long] pairs as returned by the TicketRepository status aggregates
+  public static TicketStatusCounts fromRows(List<Object[]> rows) {
+    Map<Ticket.Status, Long> counts = new EnumMap<>(Ticket.Status.class);
+    for (Ticket.Status status : Ticket.Status.values()) {
+      counts.put(status, 0L);
+    }
+    for (Object[] row : rows) {
+      if (row[0] instanceof Ticket.Status status && row[1] instanceof Number count) {
+        counts.merge(status, count.longValue(), Long::sum);
+      }
+    }
+    return new TicketStatusCounts(counts);
+  }
+
+  public long get(Ticket.Status status) {
+    return counts.getOrDefault(status, 0L);
+  }
+
+  public long sum(Ticket.Status... statuses) {
+    long sum = 0;
+    for (Ticket.Status status : statuses) {
+      sum += get(status);
+    }
+    return sum;
+  }
+
+  public long getTotal() {
+    return total;
+  }
+
+  // Every status is present, zero when there are no tickets in it
+  public Map<Ticket.Status, Long> asMap() {
+    return counts;
+  }
+}
@@ -46,6 +46,13 @@ public class Agent {
   @Column(name = "customer_satisfaction_rating", precision = 3, scale = 2)
   private BigDecimal customerSatisfactionRating = BigDecimal.ZERO;
 
+  // Running review totals, only changed by the single UPDATEs in AgentRepository
+  @Column(name = "review_count", insertable = false, updatable = false)
+  private Long reviewCount = 0L;
+
+  @Column(name = "rating_total", insertable = false, updatable = false)
+  private Long ratingTotal = 0L;
+
   @Column(name = "is_available")
   private Boolean isAvailable = true;
 
@@ -64,6 +71,10 @@ public class Agent {
   @Column(name = "updated_at")
   private LocalDateTime updatedAt = LocalDateTime.now();
 
+  // Also bumped by the ticket count updates in AgentRepository, so a stale Agent cannot be saved
+  // over a newer count
+  @Version private Long version;
+
   @OneToMany(mappedBy = "agent", fetch = FetchType.LAZY)
   private List<Ticket> assignedTickets;
 
@@ -58,6 +58,13 @@ public class Company {
   @Column(name = "created_date")
   private Long createdBy;
 
+  // Running review totals, only changed by the single UPDATEs in CompanyRepository
+  @Column(name = "review_count", insertable = false, updatable = false)
+  private Long reviewCount = 0L;
+
+  @Column(name = "rating_total", insertable = false, updatable = false)
+  private Long ratingTotal = 0L;
+
   @OneToMany(mappedBy = "company", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
   @JsonIgnore
   private List<User> users;
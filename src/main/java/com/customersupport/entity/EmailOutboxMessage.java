@@ -0,0 +1,59 @@
+package com.customersupport.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "email_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutboxMessage {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false)
+  private String recipient;
+
+  @Column(nullable = false, length = 500)
+  private String subject;
+
+  // Thymeleaf template under templates/emails, rendered by the dispatcher at send time
+  @Column(name = "template_name", nullable = false, length = 100)
+  private String templateName;
+
+  @Column(name = "template_model", columnDefinition = "JSON")
+  private String templateModel;
+
+  @Enumerated(EnumType.STRING)
+  @Column(columnDefinition = "ENUM('PENDING', 'SENDING', 'SENT', 'FAILED') DEFAULT 'PENDING'")
+  private Status status = Status.PENDING;
+
+  @Column(nullable = false)
+  private Integer attempts = 0;
+
+  @Column(name = "next_attempt_at", nullable = false)
+  private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+  @Column(name = "last_error", columnDefinition = "TEXT")
+  private String lastError;
+
+  @Column(name = "created_at")
+  private LocalDateTime createdAt = LocalDateTime.now();
+
+  @Column(name = "sent_at")
+  private LocalDateTime sentAt;
+
+  public enum Status {
+    PENDING,
+    // Claimed by a dispatcher; next_attempt_at is the lease expiry after which it is retried
+    SENDING,
+    SENT,
+    FAILED
+  }
+}
@@ -34,13 +34,15 @@ public class Faq {
   @Column(columnDefinition = "TEXT")
   private String keywords;
 
-  @Column(name = "view_count")
+  // Counters are only ever changed by FaqCounterBuffer's relative updates, so saving an edited
+  // FAQ cannot write back a stale count
+  @Column(name = "view_count", updatable = false)
   private Integer viewCount = 0;
 
-  @Column(name = "helpful_count")
+  @Column(name = "helpful_count", updatable = false)
   private Integer helpfulCount = 0;
 
-  @Column(name = "not_helpful_count")
+  @Column(name = "not_helpful_count", updatable = false)
   private Integer notHelpfulCount = 0;
 
   @Column(name = "is_featured")
@@ -17,7 +17,7 @@ public class Ticket {
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
 
-  @Column(name = "ticket_number", nullable = false, unique = true, length = 20)
+  @Column(name = "ticket_number", nullable = false, unique = true, length = 32)
   private String ticketNumber;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -87,6 +87,15 @@ public class Ticket {
   @Column(name = "closed_at")
   private LocalDateTime closedAt;
 
+  // Set by the SLA scheduler when it escalates the ticket, so each target escalates at most once
+  @Column(name = "response_breached_at")
+  private LocalDateTime responseBreachedAt;
+
+  @Column(name = "resolution_breached_at")
+  private LocalDateTime resolutionBreachedAt;
+
+  @Version private Long version;
+
   //    @OneToMany(mappedBy = "ticket", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
   //    @JsonIgnore
   //    private List<TicketResponse> responses;
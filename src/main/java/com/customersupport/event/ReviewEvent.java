@@ -0,0 +1,25 @@
+package com.customersupport.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@code ReviewService} when a review is created, its rating is changed or it is
+ * deleted. The rating is the one after the change, or for DELETED the one the review had;
+ * previousRating is only set for UPDATED. createdAt is when the review was first submitted, which
+ * is the day its rating counts towards.
+ */
+public record ReviewEvent(
+    Type type,
+    Long companyId,
+    Long agentId,
+    Long reviewId,
+    Integer rating,
+    Integer previousRating,
+    LocalDateTime createdAt) {
+
+  public enum Type {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+}
@@ -0,0 +1,52 @@
+package com.customersupport.event;
+
+import com.customersupport.dto.TicketDTO;
+import com.customersupport.entity.Ticket;
+
+/**
+ * Published by the ticket services whenever a ticket changes. Listeners that keep derived state
+ * use {@code @TransactionalEventListener}, so they only see changes that were committed. The
+ * ticket is the state after the change, or null for DELETED. Status changes also carry the status
+ * the ticket had before, and RESPONSE_ADDED whether the response is visible to the customer; both
+ * are null for every other change.
+ */
+public record TicketEvent(
+    Type type,
+    Long companyId,
+    Long ticketId,
+    TicketDTO ticket,
+    Ticket.Status previousStatus,
+    Boolean publicResponse) {
+
+  public enum Type {
+    CREATED,
+    UPDATED,
+    CLAIMED,
+    ASSIGNED,
+    STATUS_CHANGED,
+    RESOLVED,
+    RESPONSE_ADDED,
+    SLA_WARNING,
+    SLA_BREACHED,
+    DELETED
+  }
+
+  public static TicketEvent of(Type type, TicketDTO ticket) {
+    return new TicketEvent(type, ticket.getCompanyId(), ticket.getId(), ticket, null, null);
+  }
+
+  public static TicketEvent statusChanged(
+      Type type, TicketDTO ticket, Ticket.Status previousStatus) {
+    return new TicketEvent(
+        type, ticket.getCompanyId(), ticket.getId(), ticket, previousStatus, null);
+  }
+
+  public static TicketEvent responseAdded(TicketDTO ticket, boolean publicResponse) {
+    return new TicketEvent(
+        Type.RESPONSE_ADDED, ticket.getCompanyId(), ticket.getId(), ticket, null, publicResponse);
+  }
+
+  public static TicketEvent deleted(Long companyId, Long ticketId) {
+    return new TicketEvent(Type.DELETED, companyId, ticketId, null, null, null);
+  }
+}
@@ -4,6 +4,7 @@ import com.customersupport.entity.Agent;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -29,6 +30,9 @@ public interface AgentRepository extends JpaRepository<Agent, Long> {
   @Query("SELECT a FROM Agent a WHERE a.company.id = :companyId ORDER BY a.createdAt DESC")
   List<Agent> findByCompanyIdOrderByCreatedAtDesc(@Param("companyId") Long companyId);
 
+  @Query("SELECT a FROM Agent a JOIN FETCH a.user WHERE a.company.id = :companyId")
+  List<Agent> findByCompanyIdWithUser(@Param("companyId") Long companyId);
+
   @Query(
       "SELECT a FROM Agent a WHERE a.isAvailable = true AND a.currentTicketCount <"
           + " a.maxConcurrentTickets ORDER BY a.currentTicketCount ASC")
@@ -46,4 +50,53 @@ public interface AgentRepository extends JpaRepository<Agent, Long> {
 
   @Query("SELECT a FROM Agent a JOIN FETCH a.company JOIN FETCH a.user WHERE a.user.id = :userId")
   Optional<Agent> findDetailedByUserId(@Param("userId") Long userId);
+
+  // Ticket count changes are single UPDATEs so concurrent claims and status changes cannot lose
+  // one another; each bumps the version so a stale Agent saved elsewhere fails instead of
+  // overwriting the count.
+
+  // Takes a ticket slot only while the agent is under their limit (zero or less means no limit)
+  @Modifying
+  @Query(
+      "UPDATE Agent a SET a.currentTicketCount = COALESCE(a.currentTicketCount, 0) + 1, a.version"
+          + " = a.version + 1 WHERE a.id = :agentId AND (a.maxConcurrentTickets IS NULL OR"
+          + " a.maxConcurrentTickets <= 0 OR COALESCE(a.currentTicketCount, 0) <"
+          + " a.maxConcurrentTickets)")
+  int reserveTicketSlot(@Param("agentId") Long agentId);
+
+  @Modifying
+  @Query(
+      "UPDATE Agent a SET a.currentTicketCount = COALESCE(a.currentTicketCount, 0) + 1, a.version"
+          + " = a.version + 1 WHERE a.id = :agentId")
+  int incrementTicketCount(@Param("agentId") Long agentId);
+
+  @Modifying
+  @Query(
+      "UPDATE Agent a SET a.currentTicketCount = a.currentTicketCount - 1, a.version = a.version"
+          + " + 1 WHERE a.id = :agentId AND a.currentTicketCount > 0")
+  int decrementTicketCount(@Param("agentId") Long agentId);
+
+  // Review totals follow the same rule. The stored average is assigned first because MySQL
+  // evaluates later assignments against the columns already updated.
+  @Modifying
+  @Query(
+      "UPDATE Agent a SET a.customerSatisfactionRating = CASE WHEN COALESCE(a.reviewCount, 0) +"
+          + " :reviews > 0 THEN (COALESCE(a.ratingTotal, 0) + :rating) * 1.0 /"
+          + " (COALESCE(a.reviewCount, 0) + :reviews) ELSE 0 END, a.reviewCount ="
+          + " COALESCE(a.reviewCount, 0) + :reviews, a.ratingTotal = COALESCE(a.ratingTotal, 0) +"
+          + " :rating, a.version = a.version + 1 WHERE a.id = :agentId")
+  int addReviewTotals(
+      @Param("agentId") Long agentId,
+      @Param("reviews") long reviews,
+      @Param("rating") long rating);
+
+  @Modifying
+  @Query(
+      "UPDATE Agent a SET a.customerSatisfactionRating = CASE WHEN :reviews > 0 THEN :rating * 1.0"
+          + " / :reviews ELSE 0 END, a.reviewCount = :reviews, a.ratingTotal = :rating, a.version"
+          + " = a.version + 1 WHERE a.id = :agentId")
+  int setReviewTotals(
+      @Param("agentId") Long agentId,
+      @Param("reviews") long reviews,
+      @Param("rating") long rating);
 }
@@ -2,6 +2,7 @@ package com.customersupport.repository;
 
 import com.customersupport.entity.Analytics;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,7 +11,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface AnalyticsRepository extends JpaRepository<Analytics, Long> {
+public interface AnalyticsRepository
+    extends JpaRepository<Analytics, Long>, AnalyticsRepositoryCustom {
 
   List<Analytics> findByCompanyId(Long companyId);
 
@@ -19,6 +21,11 @@ public interface AnalyticsRepository extends JpaRepository<Analytics, Long> {
   Optional<Analytics> findByCompanyIdAndMetricTypeAndMetricNameAndPeriodStart(
       Long companyId, Analytics.MetricType metricType, String metricName, LocalDate periodStart);
 
+  List<Analytics> findByCompanyIdInAndPeriodStartInAndMetricNameIn(
+      Collection<Long> companyIds,
+      Collection<LocalDate> periodStarts,
+      Collection<String> metricNames);
+
   @Query(
       "SELECT a FROM Analytics a WHERE a.company.id = :companyId AND a.metricType = :metricType AND"
           + " a.metricName = :metricName ORDER BY a.periodStart DESC")
@@ -0,0 +1,18 @@
+package com.customersupport.repository;
+
+import com.customersupport.dto.AnalyticsDTO;
+import java.util.Collection;
+
+/**
+ * Bulk writes for analytics rows, keyed by the unique (company, metric type, metric name, period
+ * start) index. Each call is sent as JDBC batches of {@code INSERT ... ON DUPLICATE KEY UPDATE}
+ * rather than a find and a save per metric.
+ */
+public interface AnalyticsRepositoryCustom {
+
+  /** Inserts each metric, or replaces the value, additional data and period end of its row. */
+  void upsertMetrics(Collection<AnalyticsDTO> metrics);
+
+  /** Inserts each metric, or adds its value to the value already stored. */
+  void incrementMetrics(Collection<AnalyticsDTO> metrics);
+}
@@ -0,0 +1,58 @@
+package com.customersupport.repository;
+
+import com.customersupport.dto.AnalyticsDTO;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class AnalyticsRepositoryImpl implements AnalyticsRepositoryCustom {
+
+  private static final int BATCH_SIZE = 500;
+
+  private static final String UPSERT_SQL =
+      "INSERT INTO analytics (company_id, metric_type, metric_name, metric_value,"
+          + " additional_data, period_start, period_end) VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE"
+          + " KEY UPDATE metric_value = VALUES(metric_value), additional_data ="
+          + " VALUES(additional_data), period_end = VALUES(period_end)";
+
+  private static final String INCREMENT_SQL =
+      "INSERT INTO analytics (company_id, metric_type, metric_name, metric_value,"
+          + " additional_data, period_start, period_end) VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE"
+          + " KEY UPDATE metric_value = metric_value + VALUES(metric_value)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  AnalyticsRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void upsertMetrics(Collection<AnalyticsDTO> metrics) {
+    if (!metrics.isEmpty()) {
+      jdbcTemplate.batchUpdate(UPSERT_SQL, metrics, BATCH_SIZE, AnalyticsRepositoryImpl::bind);
+    }
+  }
+
+  @Override
+  public void incrementMetrics(Collection<AnalyticsDTO> metrics) {
+    if (!metrics.isEmpty()) {
+      jdbcTemplate.batchUpdate(INCREMENT_SQL, metrics, BATCH_SIZE, AnalyticsRepositoryImpl::bind);
+    }
+  }
+
+  private static void bind(PreparedStatement ps, AnalyticsDTO metric) throws SQLException {
+    ps.setLong(1, metric.getCompanyId());
+    ps.setString(2, metric.getMetricType().name());
+    ps.setString(3, metric.getMetricName());
+    ps.setBigDecimal(4, metric.getMetricValue());
+    ps.setString(5, metric.getAdditionalData());
+    ps.setDate(6, Date.valueOf(metric.getPeriodStart()));
+    // A metric without an end covers a single day
+    ps.setDate(
+        7,
+        Date.valueOf(
+            metric.getPeriodEnd() != null ? metric.getPeriodEnd() : metric.getPeriodStart()));
+  }
+}
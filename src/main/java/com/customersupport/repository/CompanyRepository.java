@@ -1,9 +1,12 @@
 package com.customersupport.repository;
 
 import com.customersupport.entity.Company;
+import jakarta.persistence.LockModeType;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -38,4 +41,31 @@ public interface CompanyRepository extends JpaRepository<Company, Long> {
   boolean existsByName(String name);
 
   Integer countByStatus(Company.CompanyStatus status);
+
+  // Taken before review totals are reconciled; review writers update the company row first, so
+  // they wait for the reconciliation instead of racing it
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT c FROM Company c WHERE c.id = :companyId")
+  Optional<Company> findForUpdate(@Param("companyId") Long companyId);
+
+  @Query("SELECT c.id FROM Company c")
+  List<Long> findAllIds();
+
+  @Modifying
+  @Query(
+      "UPDATE Company c SET c.reviewCount = COALESCE(c.reviewCount, 0) + :reviews, c.ratingTotal ="
+          + " COALESCE(c.ratingTotal, 0) + :rating WHERE c.id = :companyId")
+  int addReviewTotals(
+      @Param("companyId") Long companyId,
+      @Param("reviews") long reviews,
+      @Param("rating") long rating);
+
+  @Modifying
+  @Query(
+      "UPDATE Company c SET c.reviewCount = :reviews, c.ratingTotal = :rating WHERE c.id ="
+          + " :companyId")
+  int setReviewTotals(
+      @Param("companyId") Long companyId,
+      @Param("reviews") long reviews,
+      @Param("rating") long rating);
 }
@@ -0,0 +1,33 @@
+package com.customersupport.repository;
+
+import com.customersupport.entity.EmailOutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+  // Due messages, locked with SKIP LOCKED so several nodes can dispatch without double sending
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query(
+      "SELECT m FROM EmailOutboxMessage m WHERE m.status IN ('PENDING', 'SENDING') AND"
+          + " m.nextAttemptAt <= :now ORDER BY m.id ASC")
+  List<EmailOutboxMessage> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+  @Modifying
+  @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = 'SENT' AND m.sentAt < :before")
+  int deleteSentBefore(@Param("before") LocalDateTime before);
+
+  long countByStatus(EmailOutboxMessage.Status status);
+}
@@ -2,6 +2,7 @@ package com.customersupport.repository;
 
 import com.customersupport.entity.Faq;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -27,11 +28,14 @@ public interface FaqRepository extends JpaRepository<Faq, Long> {
       @Param("companyId") Long companyId, @Param("keyword") String keyword);
 
   @Query(
-      "SELECT f FROM Faq f WHERE f.company.id = :company AND f.isPublished = true AND (f.question"
+      "SELECT f FROM Faq f WHERE f.company.id = :companyId AND f.isPublished = true AND (f.question"
           + " LIKE %:keyword% OR f.answer LIKE %:keyword% OR f.keywords LIKE %:keyword%)")
   List<Faq> searchPublishedFaqsByCompany(
       @Param("companyId") Long companyId, @Param("keyword") String keyword);
 
+  @Query("SELECT f.company.id FROM Faq f WHERE f.id = :id")
+  Optional<Long> findCompanyIdById(@Param("id") Long id);
+
   @Query(
       "SELECT f FROM Faq f WHERE f.company.id = :companyId ORDER BY f.viewCount DESC LIMIT :limit")
   List<Faq> findMostViewedFaqsByCompany(
@@ -51,4 +55,10 @@ public interface FaqRepository extends JpaRepository<Faq, Long> {
       "SELECT f FROM Faq f WHERE f.company.id = :companyId ORDER BY f.sortOrder ASC, f.createdAt"
           + " DESC")
   List<Faq> findByCompanyIdOrderBySortOrderAscCreatedAtDesc(@Param("companyId") Long companyId);
+
+  // Everything FaqDTO.fromEntity touches, in one statement, for building the search index
+  @Query(
+      "SELECT f FROM Faq f JOIN FETCH f.company LEFT JOIN FETCH f.category LEFT JOIN FETCH"
+          + " f.createdBy LEFT JOIN FETCH f.updatedBy")
+  List<Faq> findAllForSearchIndex();
 }
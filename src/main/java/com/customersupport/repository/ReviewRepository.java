@@ -48,6 +48,17 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
   @Query("SELECT AVG(r.rating) FROM Review r WHERE r.agent.id = :agentId")
   Double getAverageRatingByAgent(@Param("agentId") Long agentId);
 
+  // Raw totals the running review totals on companies and agents are reconciled against
+  @Query(
+      "SELECT COUNT(r), COALESCE(SUM(r.rating), 0) FROM Review r WHERE r.company.id = :companyId"
+          + " AND r.rating IS NOT NULL")
+  List<Object[]> sumRatingsByCompany(@Param("companyId") Long companyId);
+
+  @Query(
+      "SELECT r.agent.id, COUNT(r), SUM(r.rating) FROM Review r WHERE r.company.id = :companyId"
+          + " AND r.agent IS NOT NULL AND r.rating IS NOT NULL GROUP BY r.agent.id")
+  List<Object[]> sumRatingsByAgentForCompany(@Param("companyId") Long companyId);
+
   @Query(
       "SELECT COUNT(r) FROM Review r WHERE r.company.id = :companyId AND r.createdAt BETWEEN"
           + " :startDate AND :endDate")
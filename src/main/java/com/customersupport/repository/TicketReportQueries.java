@@ -0,0 +1,85 @@
+package com.customersupport.repository;
+
+import com.customersupport.dto.TicketLatencyRow;
+import com.customersupport.dto.TicketReportRow;
+import com.customersupport.entity.Ticket;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Forward-only ticket scans for the performance report and the latency histogram seed. They run on
+ * the report pool, whose connections have useCursorFetch=true, so the MySQL driver pulls rows from
+ * a server-side cursor in chunks of the fetch size instead of buffering the whole result. Other
+ * queries stay on the main pool with the driver's default fully buffered results.
+ *
+ * <p>Each stream holds a report pool connection until it is closed.
+ */
+@Repository
+public class TicketReportQueries {
+
+  private static final int FETCH_SIZE = 500;
+
+  private static final String REPORT_ROWS_SQL =
+      "SELECT t.agent_id, t.customer_id, cat.name, t.status, t.priority, t.created_at,"
+          + " t.closed_at FROM tickets t LEFT JOIN categories cat ON cat.id = t.category_id"
+          + " WHERE t.company_id = ?";
+
+  private static final String LATENCY_ROWS_SQL =
+      "SELECT t.id, t.agent_id, t.status, t.created_at, t.first_response_time,"
+          + " t.actual_resolution_time, t.closed_at FROM tickets t WHERE t.company_id = ? AND"
+          + " (t.first_response_time IS NOT NULL OR t.status IN ('RESOLVED', 'CLOSED'))";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public TicketReportQueries(@Qualifier("reportDataSource") DataSource reportDataSource) {
+    this.jdbcTemplate = new JdbcTemplate(reportDataSource);
+    this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+  }
+
+  /** The columns the performance report aggregates over, for every ticket of the company. */
+  public Stream<TicketReportRow> streamReportRowsByCompany(Long companyId) {
+    return jdbcTemplate.queryForStream(
+        REPORT_ROWS_SQL,
+        (rs, rowNum) ->
+            new TicketReportRow(
+                longOrNull(rs, 1),
+                longOrNull(rs, 2),
+                rs.getString(3),
+                enumOrNull(Ticket.Status.class, rs.getString(4)),
+                enumOrNull(Ticket.Priority.class, rs.getString(5)),
+                rs.getObject(6, LocalDateTime.class),
+                rs.getObject(7, LocalDateTime.class)),
+        companyId);
+  }
+
+  /** Tickets with a first response or a resolution, to seed the company's latency histograms. */
+  public Stream<TicketLatencyRow> streamLatencyRowsByCompany(Long companyId) {
+    return jdbcTemplate.queryForStream(
+        LATENCY_ROWS_SQL,
+        (rs, rowNum) ->
+            new TicketLatencyRow(
+                longOrNull(rs, 1),
+                longOrNull(rs, 2),
+                enumOrNull(Ticket.Status.class, rs.getString(3)),
+                rs.getObject(4, LocalDateTime.class),
+                rs.getObject(5, LocalDateTime.class),
+                rs.getObject(6, LocalDateTime.class),
+                rs.getObject(7, LocalDateTime.class)),
+        companyId);
+  }
+
+  private static Long longOrNull(ResultSet rs, int column) throws SQLException {
+    long value = rs.getLong(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  private static <E extends Enum<E>> E enumOrNull(Class<E> type, String name) {
+    return name != null ? Enum.valueOf(type, name) : null;
+  }
+}
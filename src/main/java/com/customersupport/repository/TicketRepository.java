@@ -1,10 +1,16 @@
 package com.customersupport.repository;
 
+import com.customersupport.dto.SlaTicketRow;
+import com.customersupport.dto.TicketRow;
+import com.customersupport.entity.Agent;
 import com.customersupport.entity.Ticket;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,6 +18,25 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
 
+  // Flat projection used by list endpoints so a page of tickets is read with a single statement
+  // instead of lazily walking company, customer.user, agent.user, category and review per row.
+  String TICKET_ROW_SELECT =
+      "SELECT new com.customersupport.dto.TicketRow(t.id, t.ticketNumber, co.id, co.name, cu.id,"
+          + " cuu.firstname, cuu.lastname, a.id, au.firstname, au.lastname, cat.id, cat.name,"
+          + " t.title, t.description, t.priority, t.status, t.source, t.resolution, t.tags,"
+          + " t.attachment, t.estimatedResolutionTime, t.actualResolutionTime,"
+          + " t.firstResponseTime, t.lastActivity, t.createdAt, t.updatedAt, t.closedAt,"
+          + " t.version, r.id, r.rating, r.feedback, r.serviceQualityRating, r.responseTimeRating,"
+          + " r.professionalismRating, r.wouldRecommend, r.additionalComments, r.isPublished,"
+          + " r.isFeatured, r.createdAt, r.updatedAt)"
+          + " FROM Ticket t JOIN t.company co JOIN t.customer cu JOIN cu.user cuu"
+          + " LEFT JOIN t.agent a LEFT JOIN a.user au LEFT JOIN t.category cat"
+          + " LEFT JOIN t.review r";
+
+  String KEYWORD_FILTER =
+      " (t.title LIKE CONCAT('%', :keyword, '%') OR t.description LIKE CONCAT('%', :keyword, '%')"
+          + " OR t.ticketNumber LIKE CONCAT('%', :keyword, '%'))";
+
   List<Ticket> findByCompanyId(Long companyId);
 
   List<Ticket> findByCustomerId(Long customerId);
@@ -46,6 +71,22 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
   Long countByCompanyIdAndStatus(
       @Param("companyId") Long companyId, @Param("status") Ticket.Status status);
 
+  // Status breakdowns in one round trip; rows are [Ticket.Status, Long]
+  @Query(
+      "SELECT t.status, COUNT(t) FROM Ticket t WHERE t.company.id = :companyId GROUP BY t.status")
+  List<Object[]> countByStatusForCompany(@Param("companyId") Long companyId);
+
+  @Query("SELECT t.status, COUNT(t) FROM Ticket t WHERE t.agent.id = :agentId GROUP BY t.status")
+  List<Object[]> countByStatusForAgent(@Param("agentId") Long agentId);
+
+  @Query(
+      "SELECT t.status, COUNT(t) FROM Ticket t WHERE t.customer.id = :customerId GROUP BY"
+          + " t.status")
+  List<Object[]> countByStatusForCustomer(@Param("customerId") Long customerId);
+
+  @Query("SELECT t.status, COUNT(t) FROM Ticket t GROUP BY t.status")
+  List<Object[]> countByStatus();
+
   @Query("SELECT COUNT(t) FROM Ticket t WHERE t.customer.id = :customerId AND t.status = :status")
   Long countByCustomerIdAndStatus(
       @Param("customerId") Long customerId, @Param("status") Ticket.Status status);
@@ -60,6 +101,79 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
 
   List<Ticket> findByCompanyIdOrderByCreatedAtDesc(Long companyId);
 
+  // Company ticket rows, newest first, with optional status and keyword filters. Pass
+  // Pageable.unpaged() for the full list or a limit for the first keyset page.
+  @Query(
+      TICKET_ROW_SELECT
+          + " WHERE t.company.id = :companyId AND (:status IS NULL OR t.status = :status)"
+          + " AND (:keyword IS NULL OR"
+          + KEYWORD_FILTER
+          + ") ORDER BY t.createdAt DESC, t.id DESC")
+  List<TicketRow> findCompanyTicketRows(
+      @Param("companyId") Long companyId,
+      @Param("status") Ticket.Status status,
+      @Param("keyword") String keyword,
+      Pageable pageable);
+
+  // Keyset pagination over (created_at, id), newest first
+  @Query(
+      TICKET_ROW_SELECT
+          + " WHERE t.company.id = :companyId AND (:status IS NULL OR t.status = :status)"
+          + " AND (:keyword IS NULL OR"
+          + KEYWORD_FILTER
+          + ") AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id))"
+          + " ORDER BY t.createdAt DESC, t.id DESC")
+  List<TicketRow> findCompanyTicketRowsAfter(
+      @Param("companyId") Long companyId,
+      @Param("status") Ticket.Status status,
+      @Param("keyword") String keyword,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") Long id,
+      Pageable pageable);
+
+  @Query(
+      TICKET_ROW_SELECT
+          + " WHERE t.customer.id = :customerId AND (:status IS NULL OR t.status = :status)"
+          + " AND (:keyword IS NULL OR"
+          + KEYWORD_FILTER
+          + ") ORDER BY t.createdAt DESC, t.id DESC")
+  List<TicketRow> findCustomerTicketRows(
+      @Param("customerId") Long customerId,
+      @Param("status") Ticket.Status status,
+      @Param("keyword") String keyword);
+
+  @Query(
+      TICKET_ROW_SELECT
+          + " WHERE t.agent.id = :agentId AND (:status IS NULL OR t.status = :status)"
+          + " ORDER BY t.createdAt DESC, t.id DESC")
+  List<TicketRow> findAgentTicketRows(
+      @Param("agentId") Long agentId, @Param("status") Ticket.Status status);
+
+  // Every OPEN, unassigned ticket across companies; seeds and resyncs the dispatch queues
+  @Query(TICKET_ROW_SELECT + " WHERE t.agent IS NULL AND t.status = 'OPEN'")
+  List<TicketRow> findUnassignedTicketRows();
+
+  @Query(TICKET_ROW_SELECT + " WHERE t.id IN :ids")
+  List<TicketRow> findTicketRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+  // (ticket id, customer email) pairs
+  @Query("SELECT t.id, u.email FROM Ticket t JOIN t.customer c JOIN c.user u WHERE t.id IN :ids")
+  List<Object[]> findCustomerEmailsByTicketIds(@Param("ids") Collection<Long> ids);
+
+  // (ticket id, agent user id, email, firstname, lastname) for the assigned tickets among ids
+  @Query(
+      "SELECT t.id, u.id, u.email, u.firstname, u.lastname FROM Ticket t JOIN t.agent a JOIN a.user"
+          + " u WHERE t.id IN :ids")
+  List<Object[]> findAgentUsersByTicketIds(@Param("ids") Collection<Long> ids);
+
+  // Tickets the SLA clock runs for; seeds and resyncs the SLA scheduler
+  @Query(
+      "SELECT new com.customersupport.dto.SlaTicketRow(t.id, t.company.id, a.id, t.priority,"
+          + " t.status, t.createdAt, t.firstResponseTime, t.estimatedResolutionTime,"
+          + " t.responseBreachedAt, t.resolutionBreachedAt) FROM Ticket t LEFT JOIN t.agent a"
+          + " WHERE t.status IN ('OPEN', 'IN_PROGRESS')")
+  List<SlaTicketRow> findSlaTicketRows();
+
   @Query("SELECT t FROM Ticket t WHERE t.customer.id = :customerId ORDER BY t.createdAt DESC")
   List<Ticket> findByCustomerIdOrderByCreatedAtDesc(@Param("customerId") Long customerId);
 
@@ -109,4 +223,16 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
       @Param("status") Ticket.Status status,
       @Param("startDate") LocalDateTime startDate,
       @Param("endDate") LocalDateTime endDate);
+
+  // Claims an OPEN, unassigned ticket; of several concurrent claims exactly one updates the row.
+  // Clears the persistence context because loaded Tickets and Agents no longer match the database.
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      "UPDATE Ticket t SET t.agent = :agent, t.status = 'IN_PROGRESS', t.lastActivity = :now,"
+          + " t.updatedAt = :now, t.version = t.version + 1 WHERE t.id = :ticketId AND t.agent IS"
+          + " NULL AND t.status = 'OPEN'")
+  int claimIfOpen(
+      @Param("ticketId") Long ticketId,
+      @Param("agent") Agent agent,
+      @Param("now") LocalDateTime now);
 }
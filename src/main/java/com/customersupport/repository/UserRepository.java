@@ -1,5 +1,6 @@
 package com.customersupport.repository;
 
+import com.customersupport.dto.PrincipalSnapshot;
 import com.customersupport.entity.User;
 import java.util.List;
 import java.util.Optional;
@@ -46,4 +47,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
   List<User> findAllOrderByCreatedAtDesc();
 
   Long countByCompanyId(Long companyId);
+
+  @Query(
+      "SELECT new com.customersupport.dto.PrincipalSnapshot(u.id, u.email, u.status, r.name, c.id)"
+          + " FROM User u JOIN u.role r LEFT JOIN u.company c WHERE u.id = :userId")
+  Optional<PrincipalSnapshot> findPrincipalSnapshot(@Param("userId") Long userId);
 }
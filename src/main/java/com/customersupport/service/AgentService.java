@@ -3,7 +3,7 @@ package com.customersupport.service;
 import com.customersupport.dto.AgentDTO;
 import com.customersupport.dto.AgentPerformanceDTO;
 import com.customersupport.dto.AgentRegistrationDTO;
-import com.customersupport.dto.ReviewDTO;
+import com.customersupport.dto.LatencyReportDTO;
 import com.customersupport.dto.TicketDTO;
 import com.customersupport.entity.Agent;
 import com.customersupport.entity.Company;
@@ -12,7 +12,6 @@ import com.customersupport.entity.Ticket;
 import com.customersupport.entity.User;
 import com.customersupport.repository.AgentRepository;
 import com.customersupport.repository.CompanyRepository;
-import com.customersupport.repository.ReviewRepository;
 import com.customersupport.repository.RoleRepository;
 import com.customersupport.repository.TicketRepository;
 import com.customersupport.repository.UserRepository;
@@ -47,9 +46,15 @@ public class AgentService {
 
   @Autowired private EmailService emailService;
 
+  @Autowired private AuthService authService;
+
   @Autowired private TicketRepository ticketRepository;
 
-  @Autowired private ReviewRepository reviewRepository;
+  @Autowired private ReviewService reviewService;
+
+  @Autowired private PrincipalCacheService principalCacheService;
+
+  @Autowired private TicketLatencyHistograms ticketLatencyHistograms;
 
   // Register a new agent
   public AgentDTO registerAgent(AgentRegistrationDTO registrationDTO) {
@@ -90,12 +95,12 @@ public class AgentService {
 
     User savedUser = userRepository.save(user);
 
-    // Send email with login credentials to the agent
+    // Send the agent a link to set their password
     emailService.sendAgentRegistrationEmail(
         registrationDTO.getFirstName(),
         registrationDTO.getLastName(),
         registrationDTO.getEmail(),
-        registrationDTO.getPassword(),
+        authService.issuePasswordSetupToken(savedUser),
         company,
         registrationDTO.getDepartment(),
         registrationDTO.getSpecialization());
@@ -194,6 +199,7 @@ public class AgentService {
 
     // Delete the user (should cascade to agent due to @OneToOne relationship)
     userRepository.delete(agent.getUser());
+    principalCacheService.invalidate(agent.getUser().getId());
   }
 
   // Helper method to convert entity to DTO
@@ -201,7 +207,7 @@ public class AgentService {
     return new AgentDTO().fromEntity(agent);
   }
 
-  private String normalizeWorkingDays(String rawValue) {
+  static String normalizeWorkingDays(String rawValue) {
     if (rawValue == null) {
       return "[]";
     }
@@ -249,22 +255,26 @@ public class AgentService {
             .findById(agentId)
             .orElseThrow(() -> new RuntimeException("Agent not found"));
 
-    // Get all tickets assigned to the agent
-    List<Ticket> assignedTickets = ticketRepository.findByAgentId(agentId);
+    // All tickets assigned to the agent in one projection query; status subsets are derived in
+    // memory instead of re-querying
+    List<TicketDTO> assignedTickets =
+        ticketRepository.findAgentTicketRows(agentId, null).stream()
+            .map(TicketDTO::fromRow)
+            .collect(Collectors.toList());
 
-    // Get tickets by status
-    List<Ticket> ongoingTickets =
-        ticketRepository.findByAgentIdAndStatus(agentId, Ticket.Status.IN_PROGRESS);
+    List<TicketDTO> ongoingTickets =
+        assignedTickets.stream()
+            .filter(ticket -> ticket.getStatus() == Ticket.Status.IN_PROGRESS)
+            .collect(Collectors.toList());
 
-    // Get closed tickets
-    List<Ticket> closedTickets =
-        ticketRepository.findByAgentIdAndStatus(agentId, Ticket.Status.CLOSED);
+    List<TicketDTO> closedTickets =
+        assignedTickets.stream()
+            .filter(ticket -> ticket.getStatus() == Ticket.Status.CLOSED)
+            .collect(Collectors.toList());
 
     // Calculate performance metrics
-    double averageRating =
-        reviewRepository.getAverageRatingByAgent(agentId) != null
-            ? reviewRepository.getAverageRatingByAgent(agentId)
-            : 0.0;
+    Double agentRating = reviewService.getAverageRatingByAgent(agentId);
+    double averageRating = agentRating != null ? agentRating : 0.0;
 
     // Calculate average response time (in minutes)
     double averageResponseTime =
@@ -292,26 +302,15 @@ public class AgentService {
             .average()
             .orElse(0.0);
 
-    // Convert entities to DTOs
-    List<TicketDTO> assignedTicketDTOs =
-        assignedTickets.stream().map(TicketDTO::fromEntity).collect(Collectors.toList());
-
-    List<TicketDTO> ongoingTicketDTOs =
-        ongoingTickets.stream().map(TicketDTO::fromEntity).collect(Collectors.toList());
+    // Percentiles come from the live latency histograms rather than the tickets loaded here
+    LatencyReportDTO.AgentLatency latency =
+        ticketLatencyHistograms.getAgentLatency(agent.getCompany().getId(), agentId);
 
     // Create list of tickets with reviews
     List<AgentPerformanceDTO.TicketWithReviewDTO> ticketsWithReviews =
         closedTickets.stream()
             .filter(ticket -> ticket.getReview() != null)
-            .map(
-                ticket -> {
-                  TicketDTO ticketDTO = TicketDTO.fromEntity(ticket);
-                  ReviewDTO reviewDTO = null;
-                  if (ticket.getReview() != null) {
-                    reviewDTO = ReviewDTO.fromEntity(ticket.getReview());
-                  }
-                  return new AgentPerformanceDTO.TicketWithReviewDTO(ticketDTO, reviewDTO);
-                })
+            .map(ticket -> new AgentPerformanceDTO.TicketWithReviewDTO(ticket, ticket.getReview()))
             .collect(Collectors.toList());
 
     // Build and return the DTO
@@ -323,9 +322,11 @@ public class AgentService {
         .closedTicketsCount(closedTickets.size())
         .averageResponseTime(averageResponseTime)
         .averageResolutionTime(averageResolutionTime)
+        .responseTimePercentiles(latency.getFirstResponse())
+        .resolutionTimePercentiles(latency.getResolution())
         .averageRating(averageRating)
-        .assignedTickets(assignedTicketDTOs)
-        .ongoingTickets(ongoingTicketDTOs)
+        .assignedTickets(assignedTickets)
+        .ongoingTickets(ongoingTickets)
         .reviewedTickets(ticketsWithReviews)
         .build();
   }
@@ -0,0 +1,366 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.AnalyticsDTO;
+import com.customersupport.dto.TicketDTO;
+import com.customersupport.entity.Analytics;
+import com.customersupport.entity.Ticket;
+import com.customersupport.event.ReviewEvent;
+import com.customersupport.event.TicketEvent;
+import com.customersupport.repository.AnalyticsRepository;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the daily and monthly ticket metrics in the analytics table current from ticket and
+ * review events, instead of having them computed from raw tickets and posted in. Committed events
+ * are folded into in-memory totals per company and day; a periodic flush adds those totals to the
+ * stored counters in one batch of upserts and then rewrites the averages derived from them.
+ *
+ * <p>Counters are stored rather than just averages, so flushes from several nodes and across
+ * restarts add up. Totals not yet flushed when a node stops abruptly are lost.
+ *
+ * <p>All metrics written here are named ROLLUP_*, so they never share a row with the absolute
+ * values that the generate endpoints and bulk import upsert; adding to such a row would mix the
+ * two.
+ */
+@Service
+public class AnalyticsRollup {
+
+  private static final Logger log = LoggerFactory.getLogger(AnalyticsRollup.class);
+
+  // Counters, added to on every flush
+  public static final String TOTAL_TICKETS = "ROLLUP_TOTAL_TICKETS";
+  public static final String RESOLVED_TICKETS = "ROLLUP_RESOLVED_TICKETS";
+  public static final String RESOLUTION_HOURS_TOTAL = "ROLLUP_RESOLUTION_HOURS_TOTAL";
+  public static final String RESPONSES = "ROLLUP_RESPONSES";
+  public static final String REVIEW_COUNT = "ROLLUP_REVIEW_COUNT";
+  public static final String RATING_TOTAL = "ROLLUP_RATING_TOTAL";
+
+  // Averages, rewritten from the counters on every flush
+  public static final String AVG_RESOLUTION_TIME = "ROLLUP_AVG_RESOLUTION_TIME";
+  public static final String CUSTOMER_SATISFACTION = "ROLLUP_CUSTOMER_SATISFACTION";
+
+  private static final List<String> AVERAGE_INPUTS =
+      List.of(RESOLVED_TICKETS, RESOLUTION_HOURS_TOTAL, REVIEW_COUNT, RATING_TOTAL);
+
+  private static final EnumSet<Ticket.Status> RESOLVED_STATUSES =
+      EnumSet.of(Ticket.Status.RESOLVED, Ticket.Status.CLOSED);
+
+  private record DayKey(Long companyId, LocalDate day) {}
+
+  private record PeriodKey(
+      Long companyId, Analytics.MetricType metricType, LocalDate start, LocalDate end) {}
+
+  private final AnalyticsRepository analyticsRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+
+  // Totals are only changed inside compute(), so a flush removing a key never loses an update
+  private final Map<DayKey, Totals> pending = new ConcurrentHashMap<>();
+  private final LongAdder eventsFolded = new LongAdder();
+  private final LongAdder flushes = new LongAdder();
+  private final LongAdder failedFlushes = new LongAdder();
+  private final LongAdder rowsWritten = new LongAdder();
+  private volatile long lastFlushAt;
+
+  public AnalyticsRollup(
+      AnalyticsRepository analyticsRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${analytics.rollup.enabled:true}") boolean enabled) {
+    this.analyticsRepository = analyticsRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTicketEvent(TicketEvent event) {
+    TicketDTO ticket = event.ticket();
+    if (!enabled || ticket == null) {
+      return;
+    }
+    switch (event.type()) {
+      case CREATED ->
+          add(event.companyId(), dayOf(ticket.getCreatedAt()), totals -> totals.created++);
+      case RESPONSE_ADDED -> add(event.companyId(), LocalDate.now(), totals -> totals.responses++);
+      case RESOLVED, STATUS_CHANGED -> {
+        if (!isResolution(event)) {
+          return;
+        }
+        LocalDateTime resolvedAt =
+            ticket.getActualResolutionTime() != null
+                ? ticket.getActualResolutionTime()
+                : LocalDateTime.now();
+        long seconds =
+            ticket.getCreatedAt() != null
+                ? Math.max(0, Duration.between(ticket.getCreatedAt(), resolvedAt).getSeconds())
+                : 0;
+        add(
+            event.companyId(),
+            resolvedAt.toLocalDate(),
+            totals -> {
+              totals.resolved++;
+              totals.resolutionSeconds += seconds;
+            });
+      }
+      default -> {
+        // Other changes do not move any metric
+      }
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onReviewEvent(ReviewEvent event) {
+    if (!enabled || event.rating() == null) {
+      return;
+    }
+    int rating = event.rating();
+    LocalDate day = dayOf(event.createdAt());
+    switch (event.type()) {
+      case CREATED -> add(
+          event.companyId(),
+          day,
+          totals -> {
+            totals.reviews++;
+            totals.ratingTotal += rating;
+          });
+      case UPDATED -> {
+        int previous = event.previousRating() != null ? event.previousRating() : rating;
+        add(event.companyId(), day, totals -> totals.ratingTotal += rating - previous);
+      }
+      case DELETED -> add(
+          event.companyId(),
+          day,
+          totals -> {
+            totals.reviews--;
+            totals.ratingTotal -= rating;
+          });
+    }
+  }
+
+  /** Write everything folded so far to the analytics table. */
+  @Scheduled(fixedDelayString = "${analytics.rollup.flush-ms:30000}")
+  public synchronized void flush() {
+    if (!enabled || pending.isEmpty()) {
+      return;
+    }
+    Map<DayKey, Totals> drained = new HashMap<>();
+    for (DayKey key : pending.keySet()) {
+      Totals totals = pending.remove(key);
+      if (totals != null) {
+        drained.put(key, totals);
+      }
+    }
+
+    // Each day also counts towards its month
+    Map<PeriodKey, Totals> periods = new HashMap<>();
+    drained.forEach(
+        (key, totals) -> {
+          LocalDate day = key.day();
+          LocalDate monthStart = day.withDayOfMonth(1);
+          LocalDate monthEnd = day.withDayOfMonth(day.lengthOfMonth());
+          periods
+              .computeIfAbsent(
+                  new PeriodKey(key.companyId(), Analytics.MetricType.DAILY, day, day),
+                  period -> new Totals())
+              .add(totals);
+          periods
+              .computeIfAbsent(
+                  new PeriodKey(
+                      key.companyId(), Analytics.MetricType.MONTHLY, monthStart, monthEnd),
+                  period -> new Totals())
+              .add(totals);
+        });
+
+    try {
+      transactionTemplate.executeWithoutResult(status -> write(periods));
+    } catch (RuntimeException e) {
+      log.warn("Analytics rollup flush of {} company days failed, keeping them", drained.size(), e);
+      failedFlushes.increment();
+      drained.forEach(
+          (key, totals) ->
+              pending.merge(
+                  key,
+                  totals,
+                  (mine, theirs) -> {
+                    mine.add(theirs);
+                    return mine;
+                  }));
+      return;
+    }
+    flushes.increment();
+    lastFlushAt = System.currentTimeMillis();
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("enabled", enabled);
+    stats.put("pendingCompanyDays", pending.size());
+    stats.put("eventsFolded", eventsFolded.sum());
+    stats.put("flushes", flushes.sum());
+    stats.put("failedFlushes", failedFlushes.sum());
+    stats.put("rowsWritten", rowsWritten.sum());
+    stats.put("lastFlushAt", lastFlushAt);
+    return stats;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    flush();
+  }
+
+  private void write(Map<PeriodKey, Totals> periods) {
+    List<AnalyticsDTO> additions = new ArrayList<>();
+    periods.forEach(
+        (period, totals) -> {
+          addRow(additions, period, TOTAL_TICKETS, BigDecimal.valueOf(totals.created));
+          addRow(additions, period, RESOLVED_TICKETS, BigDecimal.valueOf(totals.resolved));
+          addRow(additions, period, RESOLUTION_HOURS_TOTAL, hours(totals.resolutionSeconds));
+          addRow(additions, period, RESPONSES, BigDecimal.valueOf(totals.responses));
+          addRow(additions, period, REVIEW_COUNT, BigDecimal.valueOf(totals.reviews));
+          addRow(additions, period, RATING_TOTAL, BigDecimal.valueOf(totals.ratingTotal));
+        });
+    if (additions.isEmpty()) {
+      return;
+    }
+    analyticsRepository.incrementMetrics(additions);
+
+    // Averages come from the stored counters, which include what other nodes have flushed
+    Set<Long> companyIds = new HashSet<>();
+    Set<LocalDate> starts = new HashSet<>();
+    for (PeriodKey period : periods.keySet()) {
+      companyIds.add(period.companyId());
+      starts.add(period.start());
+    }
+    Map<PeriodKey, Map<String, BigDecimal>> counters = new HashMap<>();
+    for (Analytics row :
+        analyticsRepository.findByCompanyIdInAndPeriodStartInAndMetricNameIn(
+            companyIds, starts, AVERAGE_INPUTS)) {
+      PeriodKey period =
+          new PeriodKey(
+              row.getCompany().getId(),
+              row.getMetricType(),
+              row.getPeriodStart(),
+              row.getPeriodEnd());
+      counters
+          .computeIfAbsent(period, key -> new HashMap<>())
+          .put(row.getMetricName(), row.getMetricValue());
+    }
+
+    List<AnalyticsDTO> averages = new ArrayList<>();
+    periods.forEach(
+        (period, totals) -> {
+          Map<String, BigDecimal> stored = counters.getOrDefault(period, Map.of());
+          if (totals.resolved != 0 || totals.resolutionSeconds != 0) {
+            setRow(
+                averages,
+                period,
+                AVG_RESOLUTION_TIME,
+                average(stored.get(RESOLUTION_HOURS_TOTAL), stored.get(RESOLVED_TICKETS)));
+          }
+          if (totals.reviews != 0 || totals.ratingTotal != 0) {
+            setRow(
+                averages,
+                period,
+                CUSTOMER_SATISFACTION,
+                average(stored.get(RATING_TOTAL), stored.get(REVIEW_COUNT)));
+          }
+        });
+    if (!averages.isEmpty()) {
+      analyticsRepository.upsertMetrics(averages);
+    }
+    rowsWritten.add(additions.size() + averages.size());
+  }
+
+  private void add(Long companyId, LocalDate day, Consumer<Totals> change) {
+    pending.compute(
+        new DayKey(companyId, day),
+        (key, totals) -> {
+          Totals updated = totals != null ? totals : new Totals();
+          change.accept(updated);
+          return updated;
+        });
+    eventsFolded.increment();
+  }
+
+  // Counters that did not move are left alone rather than written as + 0
+  private static void addRow(
+      List<AnalyticsDTO> rows, PeriodKey period, String name, BigDecimal value) {
+    if (value.signum() != 0) {
+      setRow(rows, period, name, value);
+    }
+  }
+
+  private static void setRow(
+      List<AnalyticsDTO> rows, PeriodKey period, String name, BigDecimal value) {
+    AnalyticsDTO metric = new AnalyticsDTO();
+    metric.setCompanyId(period.companyId());
+    metric.setMetricType(period.metricType());
+    metric.setMetricName(name);
+    metric.setMetricValue(value);
+    metric.setPeriodStart(period.start());
+    metric.setPeriodEnd(period.end());
+    rows.add(metric);
+  }
+
+  private static BigDecimal average(BigDecimal total, BigDecimal count) {
+    if (total == null || count == null || count.signum() <= 0) {
+      return BigDecimal.ZERO;
+    }
+    return total.divide(count, 2, RoundingMode.HALF_UP);
+  }
+
+  private static BigDecimal hours(long seconds) {
+    return BigDecimal.valueOf(seconds).divide(BigDecimal.valueOf(3600), 2, RoundingMode.HALF_UP);
+  }
+
+  private static boolean isResolution(TicketEvent event) {
+    return event.previousStatus() != null
+        && !RESOLVED_STATUSES.contains(event.previousStatus())
+        && RESOLVED_STATUSES.contains(event.ticket().getStatus());
+  }
+
+  private static LocalDate dayOf(LocalDateTime time) {
+    return time != null ? time.toLocalDate() : LocalDate.now();
+  }
+
+  /** Changes to one company's metrics on one day, or summed over a period. */
+  private static final class Totals {
+    private long created;
+    private long resolved;
+    private long resolutionSeconds;
+    private long responses;
+    private long reviews;
+    private long ratingTotal;
+
+    void add(Totals other) {
+      created += other.created;
+      resolved += other.resolved;
+      resolutionSeconds += other.resolutionSeconds;
+      responses += other.responses;
+      reviews += other.reviews;
+      ratingTotal += other.ratingTotal;
+    }
+  }
+}
@@ -8,8 +8,10 @@ import com.customersupport.repository.CompanyRepository;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -107,6 +109,28 @@ public class AnalyticsService {
     analyticsRepository.deleteById(id);
   }
 
+  // Save a batch of analytics data, one upsert per metric and period
+  public int saveAnalyticsBatch(List<AnalyticsDTO> analyticsDTOs) {
+    Set<Long> companyIds = new HashSet<>();
+    for (AnalyticsDTO analyticsDTO : analyticsDTOs) {
+      if (analyticsDTO.getCompanyId() == null
+          || analyticsDTO.getMetricType() == null
+          || analyticsDTO.getMetricName() == null
+          || analyticsDTO.getMetricValue() == null
+          || analyticsDTO.getPeriodStart() == null) {
+        throw new RuntimeException(
+            "Company, metric type, metric name, metric value and period start are required");
+      }
+      companyIds.add(analyticsDTO.getCompanyId());
+    }
+    if (companyRepository.findAllById(companyIds).size() != companyIds.size()) {
+      throw new RuntimeException("Company Not Found");
+    }
+
+    analyticsRepository.upsertMetrics(analyticsDTOs);
+    return analyticsDTOs.size();
+  }
+
   // Generate daily ticket analytics for a company
   public void generateDailyTicketAnalytics(
       Long companyId,
@@ -115,33 +139,38 @@ public class AnalyticsService {
       int resolvedTickets,
       int averageResolutionTime,
       BigDecimal customerSatisfaction) {
-    // Save open tickets metric
-    saveMetric(
-        companyId,
-        Analytics.MetricType.DAILY,
-        "OPEN_TICKETS",
-        BigDecimal.valueOf(openTickets),
-        date);
-
-    // Save resolved tickets metric
-    saveMetric(
-        companyId,
-        Analytics.MetricType.DAILY,
-        "RESOLVED_TICKETS",
-        BigDecimal.valueOf(resolvedTickets),
-        date);
-
-    // Save average resolution time metric
-    saveMetric(
-        companyId,
-        Analytics.MetricType.DAILY,
-        "AVG_RESOLUTION_TIME",
-        BigDecimal.valueOf(averageResolutionTime),
-        date);
-
-    // Save customer satisfaction metric
-    saveMetric(
-        companyId, Analytics.MetricType.DAILY, "CUSTOMER_SATISFACTION", customerSatisfaction, date);
+    requireCompany(companyId);
+
+    analyticsRepository.upsertMetrics(
+        List.of(
+            metric(
+                companyId,
+                Analytics.MetricType.DAILY,
+                "OPEN_TICKETS",
+                BigDecimal.valueOf(openTickets),
+                date,
+                date),
+            metric(
+                companyId,
+                Analytics.MetricType.DAILY,
+                "RESOLVED_TICKETS",
+                BigDecimal.valueOf(resolvedTickets),
+                date,
+                date),
+            metric(
+                companyId,
+                Analytics.MetricType.DAILY,
+                "AVG_RESOLUTION_TIME",
+                BigDecimal.valueOf(averageResolutionTime),
+                date,
+                date),
+            metric(
+                companyId,
+                Analytics.MetricType.DAILY,
+                "CUSTOMER_SATISFACTION",
+                customerSatisfaction,
+                date,
+                date)));
   }
 
   // Generate monthly ticket analytics for a company
@@ -152,93 +181,65 @@ public class AnalyticsService {
       int resolvedTickets,
       int averageResolutionTime,
       BigDecimal customerSatisfaction) {
+    requireCompany(companyId);
+
     // Get first and last day of the month
     LocalDate firstDayOfMonth = date.withDayOfMonth(1);
     LocalDate lastDayOfMonth = date.withDayOfMonth(date.lengthOfMonth());
 
-    // Save total tickets metric
-    saveMetric(
-        companyId,
-        Analytics.MetricType.MONTHLY,
-        "TOTAL_TICKETS",
-        BigDecimal.valueOf(totalTickets),
-        firstDayOfMonth,
-        lastDayOfMonth);
-
-    // Save resolved tickets metric
-    saveMetric(
-        companyId,
-        Analytics.MetricType.MONTHLY,
-        "RESOLVED_TICKETS",
-        BigDecimal.valueOf(resolvedTickets),
-        firstDayOfMonth,
-        lastDayOfMonth);
-
-    // Save average resolution time metric
-    saveMetric(
-        companyId,
-        Analytics.MetricType.MONTHLY,
-        "AVG_RESOLUTION_TIME",
-        BigDecimal.valueOf(averageResolutionTime),
-        firstDayOfMonth,
-        lastDayOfMonth);
-
-    // Save customer satisfaction metric
-    saveMetric(
-        companyId,
-        Analytics.MetricType.MONTHLY,
-        "CUSTOMER_SATISFACTION",
-        customerSatisfaction,
-        firstDayOfMonth,
-        lastDayOfMonth);
+    analyticsRepository.upsertMetrics(
+        List.of(
+            metric(
+                companyId,
+                Analytics.MetricType.MONTHLY,
+                "TOTAL_TICKETS",
+                BigDecimal.valueOf(totalTickets),
+                firstDayOfMonth,
+                lastDayOfMonth),
+            metric(
+                companyId,
+                Analytics.MetricType.MONTHLY,
+                "RESOLVED_TICKETS",
+                BigDecimal.valueOf(resolvedTickets),
+                firstDayOfMonth,
+                lastDayOfMonth),
+            metric(
+                companyId,
+                Analytics.MetricType.MONTHLY,
+                "AVG_RESOLUTION_TIME",
+                BigDecimal.valueOf(averageResolutionTime),
+                firstDayOfMonth,
+                lastDayOfMonth),
+            metric(
+                companyId,
+                Analytics.MetricType.MONTHLY,
+                "CUSTOMER_SATISFACTION",
+                customerSatisfaction,
+                firstDayOfMonth,
+                lastDayOfMonth)));
   }
 
-  // Helper method to save a metric
-  private void saveMetric(
-      Long companyId,
-      Analytics.MetricType metricType,
-      String metricName,
-      BigDecimal metricValue,
-      LocalDate periodStart) {
-    saveMetric(companyId, metricType, metricName, metricValue, periodStart, periodStart);
+  private void requireCompany(Long companyId) {
+    if (!companyRepository.existsById(companyId)) {
+      throw new RuntimeException("Company not found");
+    }
   }
 
-  // Helper method to save a metric with start and end dates
-  private void saveMetric(
+  // Helper method to build a metric row for upsert
+  private static AnalyticsDTO metric(
       Long companyId,
       Analytics.MetricType metricType,
       String metricName,
       BigDecimal metricValue,
       LocalDate periodStart,
       LocalDate periodEnd) {
-    Company company =
-        companyRepository
-            .findById(companyId)
-            .orElseThrow(() -> new RuntimeException("Company not found"));
-
-    // Check if analytics for this metric and period already exists
-    Optional<Analytics> existingAnalytics =
-        analyticsRepository.findByCompanyIdAndMetricTypeAndMetricNameAndPeriodStart(
-            companyId, metricType, metricName, periodStart);
-
-    Analytics analytics;
-
-    if (existingAnalytics.isPresent()) {
-      // Update existing analytics
-      analytics = existingAnalytics.get();
-      analytics.setMetricValue(metricValue);
-      analytics.setPeriodEnd(periodEnd);
-    } else {
-      // Create new analytics
-      analytics = new Analytics();
-      analytics.setCompany(company);
-      analytics.setMetricType(metricType);
-      analytics.setMetricName(metricName);
-      analytics.setMetricValue(metricValue);
-      analytics.setPeriodStart(periodStart);
-      analytics.setPeriodEnd(periodEnd);
-    }
-
-    analyticsRepository.save(analytics);
+    AnalyticsDTO dto = new AnalyticsDTO();
+    dto.setCompanyId(companyId);
+    dto.setMetricType(metricType);
+    dto.setMetricName(metricName);
+    dto.setMetricValue(metricValue);
+    dto.setPeriodStart(periodStart);
+    dto.setPeriodEnd(periodEnd);
+    return dto;
   }
 }
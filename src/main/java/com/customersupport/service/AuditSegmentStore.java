@@ -0,0 +1,532 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.AuditEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Optional file backend for audit events, enabled with {@code audit.store.backend=segments}.
+ * Events are appended to memory-mapped segment files that roll over by size and by time span.
+ * Each segment keeps its time range, a bitmap of the companies it contains and a sparse index of
+ * record blocks with their own time ranges, so a company/date-range query reads only the blocks
+ * that can match. Segments whose newest event is older than the retention window are deleted.
+ *
+ * <p>Record layout: int payload length, long created-at epoch millis, long company id (-1 for
+ * none), then the event as JSON. The length is written last, so a record cut short by a crash
+ * reads as the end of the segment. Indexes live in memory and are rebuilt by scanning the
+ * segments at startup.
+ *
+ * <p>Only the active segment is mapped at the full segment size. When it rolls over or the store
+ * closes it is truncated to what was written and remapped read-only, so retained segments take up
+ * their contents rather than the full size on disk and in backups.
+ */
+@Service
+public class AuditSegmentStore {
+
+  private static final Logger log = LoggerFactory.getLogger(AuditSegmentStore.class);
+
+  private static final String BACKEND = "segments";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final int RECORD_HEADER_BYTES = Integer.BYTES + Long.BYTES + Long.BYTES;
+  private static final long NO_COMPANY = -1;
+
+  // Records per sparse index entry
+  private static final int INDEX_INTERVAL = 64;
+
+  private final boolean enabled;
+  private final Path directory;
+  private final int segmentBytes;
+  private final long segmentSpanMillis;
+  private final int retentionDays;
+  private final ObjectMapper objectMapper;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // Oldest first; the last one is the active segment once something has been written
+  private final List<Segment> segments = new ArrayList<>();
+  private Segment active;
+  private long nextSequence;
+
+  public AuditSegmentStore(
+      ObjectMapper objectMapper,
+      @Value("${audit.store.backend:database}") String backend,
+      @Value("${audit.store.dir:./audit-segments}") String directory,
+      @Value("${audit.store.segment-size-mb:64}") int segmentSizeMb,
+      @Value("${audit.store.segment-span-minutes:60}") long segmentSpanMinutes,
+      @Value("${audit.store.retention-days:90}") int retentionDays) {
+    this.objectMapper = objectMapper;
+    this.enabled = BACKEND.equalsIgnoreCase(backend);
+    this.directory = Paths.get(directory).toAbsolutePath();
+    this.segmentBytes = segmentSizeMb * 1024 * 1024;
+    this.segmentSpanMillis = TimeUnit.MINUTES.toMillis(segmentSpanMinutes);
+    this.retentionDays = retentionDays;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @PostConstruct
+  public void open() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    Files.createDirectories(directory);
+    List<Path> files;
+    try (Stream<Path> listing = Files.list(directory)) {
+      files =
+          listing
+              .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+              .sorted()
+              .toList();
+    }
+
+    lock.writeLock().lock();
+    try {
+      long records = 0;
+      for (Path file : files) {
+        Segment segment = Segment.load(file, sequenceOf(file));
+        segments.add(segment);
+        records += segment.recordCount;
+        nextSequence = Math.max(nextSequence, segment.sequence + 1);
+      }
+      // Existing segments stay read-only; new events always start a fresh segment
+      log.info("Audit segment store opened: {} segments, {} events", segments.size(), records);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    lock.writeLock().lock();
+    try {
+      if (active != null) {
+        active.seal();
+        active = null;
+      }
+    } catch (IOException e) {
+      log.warn("Could not seal audit segment {}: {}", active.path, e.getMessage());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Append a batch and force it to disk before returning. */
+  public void append(List<AuditEvent> events) {
+    lock.writeLock().lock();
+    try {
+      for (AuditEvent event : events) {
+        byte[] payload = objectMapper.writeValueAsBytes(event);
+        if (RECORD_HEADER_BYTES + payload.length > segmentBytes) {
+          log.error("Audit event {} is larger than a segment, skipping it", event.getAction());
+          continue;
+        }
+        long createdAt = toMillis(event.getCreatedAt());
+        if (active == null
+            || !active.fits(payload.length)
+            || !active.spans(createdAt, segmentSpanMillis)) {
+          roll();
+        }
+        long companyId = event.getCompanyId() != null ? event.getCompanyId() : NO_COMPANY;
+        active.append(createdAt, companyId, payload);
+      }
+      if (active != null) {
+        active.buffer.force();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not append audit events", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * The newest {@code limit} events created in [from, to] that match the filter, newest first. A
+   * null company means every company and a null bound is open. Segments are read newest first and,
+   * once {@code limit} events are held, blocks and records older than all of them are skipped, so
+   * a bounded query does not decode the whole store.
+   */
+  public List<AuditEvent> find(
+      Long companyId,
+      LocalDateTime from,
+      LocalDateTime to,
+      Predicate<AuditEvent> filter,
+      int limit) {
+    if (limit <= 0) {
+      return List.of();
+    }
+    long fromMillis = from != null ? toMillis(from) : Long.MIN_VALUE;
+    long toMillis = to != null ? toMillis(to) : Long.MAX_VALUE;
+    NewestMatches matches = new NewestMatches(filter, limit);
+
+    lock.readLock().lock();
+    try {
+      for (int i = segments.size() - 1; i >= 0; i--) {
+        Segment segment = segments.get(i);
+        if (segment.overlaps(Math.max(fromMillis, matches.floor()), toMillis)
+            && segment.mayContain(companyId)) {
+          segment.scan(companyId, fromMillis, toMillis, matches);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return matches.newestFirst();
+  }
+
+  @Scheduled(cron = "${audit.store.compaction-cron:0 30 3 * * *}")
+  public void compact() {
+    if (!enabled) {
+      return;
+    }
+    long cutoff = toMillis(LocalDateTime.now().minusDays(retentionDays));
+    List<Segment> expired = new ArrayList<>();
+
+    lock.writeLock().lock();
+    try {
+      Iterator<Segment> iterator = segments.iterator();
+      while (iterator.hasNext()) {
+        Segment segment = iterator.next();
+        if (segment != active && segment.maxTime < cutoff) {
+          iterator.remove();
+          expired.add(segment);
+          // No reader can reach it any more, so its mapping can go before the file does
+          unmap(segment.buffer);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    for (Segment segment : expired) {
+      try {
+        Files.deleteIfExists(segment.path);
+      } catch (IOException e) {
+        log.warn("Could not delete expired audit segment {}: {}", segment.path, e.getMessage());
+      }
+    }
+    if (!expired.isEmpty()) {
+      log.info("Removed {} audit segments older than {} days", expired.size(), retentionDays);
+    }
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("enabled", enabled);
+    lock.readLock().lock();
+    try {
+      long records = 0;
+      long bytes = 0;
+      for (Segment segment : segments) {
+        records += segment.recordCount;
+        bytes += segment.writePosition;
+      }
+      stats.put("segments", segments.size());
+      stats.put("events", records);
+      stats.put("bytes", bytes);
+    } finally {
+      lock.readLock().unlock();
+    }
+    return stats;
+  }
+
+  private void roll() throws IOException {
+    if (active != null) {
+      active.seal();
+    }
+    long sequence = nextSequence++;
+    Path file = directory.resolve(String.format("audit-%012d%s", sequence, SEGMENT_SUFFIX));
+    active = Segment.create(file, sequence, segmentBytes);
+    segments.add(active);
+  }
+
+  // Releases a mapping now rather than when the buffer is collected, so its file can be truncated
+  // or deleted on every platform. Callers hold the write lock, so no reader still uses the buffer.
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      unsafeClass
+          .getMethod("invokeCleaner", ByteBuffer.class)
+          .invoke(theUnsafe.get(null), buffer);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // Left to the garbage collector
+      log.debug("Could not unmap audit segment buffer: {}", e.getMessage());
+    }
+  }
+
+  private AuditEvent decode(byte[] payload) {
+    try {
+      return objectMapper.readValue(payload, AuditEvent.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Corrupt audit record", e);
+    }
+  }
+
+  private static long sequenceOf(Path file) {
+    String name = file.getFileName().toString();
+    return Long.parseLong(
+        name.substring("audit-".length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  private static long toMillis(LocalDateTime time) {
+    return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  private interface RecordVisitor {
+    // Records created before this are not wanted
+    long floor();
+
+    void accept(long createdAt, byte[] payload);
+  }
+
+  private record Match(long createdAt, AuditEvent event) {}
+
+  // Keeps the newest matching events up to the limit; the heap head is the oldest of them
+  private final class NewestMatches implements RecordVisitor {
+    private final Predicate<AuditEvent> filter;
+    private final int limit;
+    private final PriorityQueue<Match> heap =
+        new PriorityQueue<>(Comparator.comparingLong(Match::createdAt));
+
+    private NewestMatches(Predicate<AuditEvent> filter, int limit) {
+      this.filter = filter;
+      this.limit = limit;
+    }
+
+    @Override
+    public long floor() {
+      return heap.size() < limit ? Long.MIN_VALUE : heap.peek().createdAt();
+    }
+
+    @Override
+    public void accept(long createdAt, byte[] payload) {
+      if (heap.size() == limit && createdAt <= heap.peek().createdAt()) {
+        return;
+      }
+      AuditEvent event = decode(payload);
+      if (!filter.test(event)) {
+        return;
+      }
+      if (heap.size() == limit) {
+        heap.poll();
+      }
+      heap.add(new Match(createdAt, event));
+    }
+
+    List<AuditEvent> newestFirst() {
+      List<Match> sorted = new ArrayList<>(heap);
+      sorted.sort(Comparator.comparingLong(Match::createdAt).reversed());
+      List<AuditEvent> events = new ArrayList<>(sorted.size());
+      for (Match match : sorted) {
+        events.add(match.event());
+      }
+      return events;
+    }
+  }
+
+  // A run of INDEX_INTERVAL consecutive records and the range of their timestamps
+  private static final class Block {
+    private final int start;
+    private int end;
+    private int count;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+
+    private Block(int start) {
+      this.start = start;
+      this.end = start;
+    }
+  }
+
+  private static final class Segment {
+    private final Path path;
+    private final long sequence;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private final List<Block> blocks = new ArrayList<>();
+    // Company ids present; ids beyond int range disable the filter for this segment
+    private final BitSet companies = new BitSet();
+    private boolean hasWideCompanyId;
+    private int writePosition;
+    private int recordCount;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+
+    private Segment(Path path, long sequence, MappedByteBuffer buffer, int capacity) {
+      this.path = path;
+      this.sequence = sequence;
+      this.buffer = buffer;
+      this.capacity = capacity;
+    }
+
+    static Segment create(Path path, long sequence, int capacity) throws IOException {
+      try (FileChannel channel =
+          FileChannel.open(
+              path,
+              StandardOpenOption.CREATE_NEW,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE)) {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        return new Segment(path, sequence, buffer, capacity);
+      }
+    }
+
+    static Segment load(Path path, long sequence) throws IOException {
+      Segment segment;
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        int capacity = (int) channel.size();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, capacity);
+        segment = new Segment(path, sequence, buffer, capacity);
+        int position = 0;
+        while (position + RECORD_HEADER_BYTES <= capacity) {
+          int length = buffer.getInt(position);
+          if (length <= 0 || position + RECORD_HEADER_BYTES + length > capacity) {
+            break;
+          }
+          long createdAt = buffer.getLong(position + Integer.BYTES);
+          long companyId = buffer.getLong(position + Integer.BYTES + Long.BYTES);
+          segment.indexRecord(position, RECORD_HEADER_BYTES + length, createdAt, companyId);
+          position += RECORD_HEADER_BYTES + length;
+        }
+      }
+      // Segments left at full size by a crash, or written before segments were sealed
+      if (segment.writePosition < segment.capacity) {
+        try {
+          segment.seal();
+        } catch (IOException e) {
+          log.warn("Could not seal audit segment {}: {}", path, e.getMessage());
+        }
+      }
+      return segment;
+    }
+
+    // Forces what was written, maps just that read-only and cuts the file down to it. The old
+    // mapping is released first; where the platform still refuses, the file keeps its size.
+    void seal() throws IOException {
+      buffer.force();
+      try (FileChannel channel =
+          FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        MappedByteBuffer written = channel.map(FileChannel.MapMode.READ_ONLY, 0, writePosition);
+        unmap(buffer);
+        buffer = written;
+        capacity = writePosition;
+        try {
+          channel.truncate(writePosition);
+        } catch (IOException e) {
+          log.warn("Could not truncate audit segment {}: {}", path, e.getMessage());
+        }
+      }
+    }
+
+    boolean fits(int payloadLength) {
+      // Keep room for a zero length after the last record, which marks the end
+      return writePosition + RECORD_HEADER_BYTES + payloadLength + Integer.BYTES <= capacity;
+    }
+
+    boolean spans(long createdAt, long spanMillis) {
+      return recordCount == 0 || createdAt - minTime < spanMillis;
+    }
+
+    void append(long createdAt, long companyId, byte[] payload) {
+      int position = writePosition;
+      buffer.putLong(position + Integer.BYTES, createdAt);
+      buffer.putLong(position + Integer.BYTES + Long.BYTES, companyId);
+      buffer.put(position + RECORD_HEADER_BYTES, payload);
+      buffer.putInt(position, payload.length);
+      indexRecord(position, RECORD_HEADER_BYTES + payload.length, createdAt, companyId);
+    }
+
+    private void indexRecord(int position, int size, long createdAt, long companyId) {
+      Block block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+      if (block == null || block.count == INDEX_INTERVAL) {
+        block = new Block(position);
+        blocks.add(block);
+      }
+      block.count++;
+      block.end = position + size;
+      block.minTime = Math.min(block.minTime, createdAt);
+      block.maxTime = Math.max(block.maxTime, createdAt);
+
+      if (companyId >= 0 && companyId <= Integer.MAX_VALUE) {
+        companies.set((int) companyId);
+      } else if (companyId != NO_COMPANY) {
+        hasWideCompanyId = true;
+      }
+      minTime = Math.min(minTime, createdAt);
+      maxTime = Math.max(maxTime, createdAt);
+      writePosition = position + size;
+      recordCount++;
+    }
+
+    boolean overlaps(long from, long to) {
+      return recordCount > 0 && minTime <= to && maxTime >= from;
+    }
+
+    boolean mayContain(Long companyId) {
+      if (companyId == null || hasWideCompanyId) {
+        return true;
+      }
+      return companyId >= 0
+          && companyId <= Integer.MAX_VALUE
+          && companies.get(companyId.intValue());
+    }
+
+    // Newest blocks first, so a bounded query fills up early and can skip the rest
+    void scan(Long companyId, long from, long to, RecordVisitor visitor) {
+      for (int i = blocks.size() - 1; i >= 0; i--) {
+        Block block = blocks.get(i);
+        if (block.minTime > to || block.maxTime < Math.max(from, visitor.floor())) {
+          continue;
+        }
+        int position = block.start;
+        while (position < block.end) {
+          int length = buffer.getInt(position);
+          long createdAt = buffer.getLong(position + Integer.BYTES);
+          long recordCompany = buffer.getLong(position + Integer.BYTES + Long.BYTES);
+          if (createdAt >= from
+              && createdAt <= to
+              && createdAt >= visitor.floor()
+              && (companyId == null || recordCompany == companyId)) {
+            byte[] payload = new byte[length];
+            buffer.get(position + RECORD_HEADER_BYTES, payload);
+            visitor.accept(createdAt, payload);
+          }
+          position += RECORD_HEADER_BYTES + length;
+        }
+      }
+    }
+  }
+}
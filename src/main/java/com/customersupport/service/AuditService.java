@@ -1,17 +1,24 @@
 package com.customersupport.service;
 
+import com.customersupport.dto.AuditEvent;
 import com.customersupport.entity.AuditLog;
 import com.customersupport.entity.Company;
 import com.customersupport.entity.User;
 import com.customersupport.repository.AuditLogRepository;
-import com.customersupport.repository.CompanyRepository;
-import com.customersupport.repository.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @Transactional
@@ -19,13 +26,18 @@ public class AuditService {
 
   @Autowired private AuditLogRepository auditLogRepository;
 
-  @Autowired private UserRepository userRepository;
+  @Autowired private AuditWriter auditWriter;
 
-  @Autowired private CompanyRepository companyRepository;
+  @Autowired private AuditSegmentStore auditSegmentStore;
 
   @Autowired private ObjectMapper objectMapper;
 
-  // Log an audit event
+  // Upper bound on events returned by one read from the segment store
+  @Value("${audit.store.max-results:1000}")
+  private int segmentMaxResults;
+
+  // Log an audit event. The event is queued for AuditWriter once the caller's transaction
+  // commits (or straight away outside one) and written in the background by id only.
   public void logEvent(
       Long companyId,
       Long userId,
@@ -39,72 +51,91 @@ public class AuditService {
       AuditLog.Severity severity,
       String details) {
     try {
-      AuditLog auditLog = new AuditLog();
-
-      // Set company if provided
-      if (companyId != null) {
-        Company company = companyRepository.findById(companyId).orElse(null);
-        auditLog.setCompany(company);
+      // Serialise here so later changes to the value objects do not leak into the log
+      AuditEvent event =
+          AuditEvent.builder()
+              .companyId(companyId)
+              .userId(userId)
+              .action(action)
+              .resourceType(resourceType)
+              .resourceId(resourceId)
+              .oldValues(oldValues != null ? objectMapper.writeValueAsString(oldValues) : null)
+              .newValues(newValues != null ? objectMapper.writeValueAsString(newValues) : null)
+              .ipAddress(ipAddress)
+              .userAgent(userAgent)
+              .severity(severity != null ? severity : AuditLog.Severity.LOW)
+              .details(details)
+              .createdAt(LocalDateTime.now())
+              .build();
+
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+              @Override
+              public void afterCommit() {
+                auditWriter.enqueue(event);
+              }
+            });
+      } else {
+        auditWriter.enqueue(event);
       }
-
-      // Set user if provided
-      if (userId != null) {
-        User user = userRepository.findById(userId).orElse(null);
-        auditLog.setUser(user);
-      }
-
-      auditLog.setAction(action);
-      auditLog.setResourceType(details);
-      auditLog.setResourceId(resourceId);
-
-      // Convert old and new values to JSON strings
-      if (oldValues != null) {
-        auditLog.setOldValues(objectMapper.writeValueAsString(oldValues));
-      }
-
-      if (newValues != null) {
-        auditLog.setNewValues(objectMapper.writeValueAsString(newValues));
-      }
-
-      auditLog.setIpAddress(ipAddress);
-      auditLog.setUserAgent(userAgent);
-      auditLog.setSeverity(severity);
-      auditLog.setDetails(details);
-      auditLog.setCreatedAt(LocalDateTime.now());
-
-      auditLogRepository.save(auditLog);
     } catch (Exception e) {
       System.err.println("Error login audit event " + e.getMessage());
     }
   }
 
+  // Queue depth, drops and flush latency of the background audit writer
+  public Map<String, Object> getWriterStats() {
+    Map<String, Object> stats = new LinkedHashMap<>(auditWriter.getStats());
+    stats.put("segmentStore", auditSegmentStore.getStats());
+    return stats;
+  }
+
   // Get recent audit logs
   public List<AuditLog> getRecentAuditLogs(int limit) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(null, null, null, event -> true, limit);
+    }
     return auditLogRepository.findRecentAuditLogs(limit);
   }
 
   // Get recent audit log by company
   public List<AuditLog> findRecentAuditLogsByCompany(Long companyId, int limit) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(companyId, null, null, event -> true, limit);
+    }
     return auditLogRepository.findRecentAuditLogsByCompany(companyId, limit);
   }
 
   // Get recent audit log by user
   public List<AuditLog> findRecentAuditLogsByUser(Long userId, int limit) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(null, null, null, byUser(userId), limit);
+    }
     return auditLogRepository.findRecentAuditLogsByUser(userId, limit);
   }
 
   // Get audit logs by company
   public List<AuditLog> getAuditLogsByCompany(Long companyId) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(companyId, null, null, event -> true, segmentMaxResults);
+    }
     return auditLogRepository.findByCompanyIdOrderByCreatedAtDesc(companyId);
   }
 
   // get audit logs by user
   public List<AuditLog> getAuditLogsByUser(Long userId) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(null, null, null, byUser(userId), segmentMaxResults);
+    }
     return auditLogRepository.findByUserIdOrderByCreatedAtDesc(userId);
   }
 
   // Get audit logs by date range
   public List<AuditLog> getAuditLogsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(null, startDate, endDate, event -> true, segmentMaxResults);
+    }
     return auditLogRepository.findByDateRangeOrderByCreatedAtDesc(
         startDate.toLocalDate(), endDate.toLocalDate());
   }
@@ -112,31 +143,103 @@ public class AuditService {
   // Get audit logs by company and date range
   public List<AuditLog> getAuditLogsByCompanyAndDateRange(
       Long companyId, LocalDateTime startDate, LocalDateTime endDate) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(companyId, startDate, endDate, event -> true, segmentMaxResults);
+    }
     return auditLogRepository.findByCompanyIdAndDateRangeOrderByCreatedAtDesc(
         companyId, startDate.toLocalDate(), endDate.toLocalDate());
   }
 
   // Get audit logs by action
   public List<AuditLog> getAuditLogsByAction(String action) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(
+          null, null, null, event -> action.equals(event.getAction()), segmentMaxResults);
+    }
     return auditLogRepository.findByActionOrderByCreatedAtDesc(action);
   }
 
   // Get audit logs by severity
   public List<AuditLog> getAuditLogsBySeverity(AuditLog.Severity severity) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(
+          null, null, null, event -> event.getSeverity() == severity, segmentMaxResults);
+    }
     return auditLogRepository.findBySeverityOrderByCreatedAtDesc(severity);
   }
 
   // Get audit logs by resource type and id
   public List<AuditLog> getAuditLogsByResource(String resourceType, Long resourceId) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(
+          null,
+          null,
+          null,
+          event ->
+              Objects.equals(resourceType, event.getResourceType())
+                  && Objects.equals(resourceId, event.getResourceId()),
+          segmentMaxResults);
+    }
     return auditLogRepository.findByResourceTypeAndResourceId(resourceType, resourceId);
   }
 
   // Additional methods to find by userId and companyId
   public List<AuditLog> findByUserId(Long userId) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(null, null, null, byUser(userId), segmentMaxResults);
+    }
     return auditLogRepository.findByUserId(userId);
   }
 
   public List<AuditLog> findByCompanyId(Long companyId) {
+    if (auditSegmentStore.isEnabled()) {
+      return findInSegments(companyId, null, null, event -> true, segmentMaxResults);
+    }
     return auditLogRepository.findByCompanyId(companyId);
   }
+
+  // Newest matching events from the segment store, never more than audit.store.max-results
+  private List<AuditLog> findInSegments(
+      Long companyId,
+      LocalDateTime from,
+      LocalDateTime to,
+      Predicate<AuditEvent> filter,
+      int limit) {
+    return toAuditLogs(
+        auditSegmentStore.find(companyId, from, to, filter, Math.min(limit, segmentMaxResults)));
+  }
+
+  private static Predicate<AuditEvent> byUser(Long userId) {
+    return event -> Objects.equals(userId, event.getUserId());
+  }
+
+  // Segment store events as detached AuditLogs; company and user carry only their ids
+  private List<AuditLog> toAuditLogs(List<AuditEvent> events) {
+    List<AuditLog> logs = new ArrayList<>(events.size());
+    for (AuditEvent event : events) {
+      AuditLog auditLog = new AuditLog();
+      if (event.getCompanyId() != null) {
+        Company company = new Company();
+        company.setId(event.getCompanyId());
+        auditLog.setCompany(company);
+      }
+      if (event.getUserId() != null) {
+        User user = new User();
+        user.setId(event.getUserId());
+        auditLog.setUser(user);
+      }
+      auditLog.setAction(event.getAction());
+      auditLog.setResourceType(event.getResourceType());
+      auditLog.setResourceId(event.getResourceId());
+      auditLog.setOldValues(event.getOldValues());
+      auditLog.setNewValues(event.getNewValues());
+      auditLog.setIpAddress(event.getIpAddress());
+      auditLog.setUserAgent(event.getUserAgent());
+      auditLog.setSeverity(event.getSeverity());
+      auditLog.setDetails(event.getDetails());
+      auditLog.setCreatedAt(event.getCreatedAt());
+      logs.add(auditLog);
+    }
+    return logs;
+  }
 }
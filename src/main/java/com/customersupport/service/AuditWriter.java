@@ -0,0 +1,403 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.AuditEvent;
+import com.customersupport.util.BoundedRingBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes audit events in the background. Producers put events on a bounded lock-free ring and
+ * return at once; a single writer thread drains the ring and inserts each batch with one JDBC
+ * batch statement. What happens when the ring is full is set by {@code
+ * audit.queue.overflow-policy}: BLOCK waits for space while the writer runs, DROP_OLDEST discards
+ * the oldest queued event, and SPILL appends the event to a local file that the writer replays
+ * into the database once the ring is empty. Once the writer has stopped, BLOCK spills as well.
+ * Batches go to audit_logs, or to AuditSegmentStore when that backend is enabled.
+ */
+@Service
+public class AuditWriter {
+
+  private static final Logger log = LoggerFactory.getLogger(AuditWriter.class);
+
+  private static final String INSERT_SQL =
+      "INSERT INTO audit_logs (company_id, user_id, action, resource_type, resource_id,"
+          + " old_values, new_values, ip_address, user_agent, severity, details, created_at)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  // How long a producer under the BLOCK policy sleeps between attempts
+  private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+  public enum OverflowPolicy {
+    BLOCK,
+    DROP_OLDEST,
+    SPILL
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final AuditSegmentStore segmentStore;
+  private final BoundedRingBuffer<AuditEvent> ring;
+  private final OverflowPolicy overflowPolicy;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final Path spillFile;
+  private final Path replayFile;
+  private final Object spillLock = new Object();
+
+  private volatile Thread writerThread;
+  private volatile boolean running;
+
+  private final LongAdder enqueued = new LongAdder();
+  private final LongAdder written = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder spilled = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder blockedWaits = new LongAdder();
+  private final LongAdder flushes = new LongAdder();
+  private final LongAdder flushNanos = new LongAdder();
+  private final AtomicLong lastFlushNanos = new AtomicLong();
+  private final AtomicLong maxFlushNanos = new AtomicLong();
+
+  public AuditWriter(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper,
+      AuditSegmentStore segmentStore,
+      @Value("${audit.queue.capacity:8192}") int capacity,
+      @Value("${audit.queue.batch-size:200}") int batchSize,
+      @Value("${audit.queue.flush-interval-ms:1000}") long flushIntervalMs,
+      @Value("${audit.queue.overflow-policy:SPILL}") OverflowPolicy overflowPolicy,
+      @Value("${audit.queue.spill-file:./audit-spill.jsonl}") String spillFile) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.objectMapper = objectMapper;
+    this.segmentStore = segmentStore;
+    this.ring = new BoundedRingBuffer<>(capacity);
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+    this.overflowPolicy = overflowPolicy;
+    this.spillFile = Paths.get(spillFile).toAbsolutePath();
+    this.replayFile = Paths.get(this.spillFile + ".replay");
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    Thread thread = new Thread(this::runWriter, "audit-writer");
+    thread.setDaemon(true);
+    writerThread = thread;
+    thread.start();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    running = false;
+    Thread thread = writerThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+      try {
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    // Whatever the writer thread did not get to is written here, or spilled if that fails
+    drainRing();
+    log.info("Audit writer stopped: {} written, {} spilled, {} dropped", written, spilled, dropped);
+  }
+
+  /** Queue an event without waiting for the database; see the class comment for a full ring. */
+  public void enqueue(AuditEvent event) {
+    enqueued.increment();
+    if (ring.offer(event)) {
+      wakeWriterIfBatchReady();
+      return;
+    }
+
+    switch (overflowPolicy) {
+      case BLOCK -> {
+        blockedWaits.increment();
+        while (!ring.offer(event)) {
+          if (!writerAlive()) {
+            // Nothing will drain the ring; spill rather than wait forever. The file is replayed
+            // once a writer runs again.
+            spill(List.of(event));
+            return;
+          }
+          wakeWriter();
+          LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+      }
+      case DROP_OLDEST -> {
+        while (!ring.offer(event)) {
+          if (ring.poll() != null) {
+            dropped.increment();
+          }
+        }
+      }
+      case SPILL -> spill(List.of(event));
+    }
+    wakeWriterIfBatchReady();
+  }
+
+  /** Write everything queued so far on the calling thread. */
+  public void flush() {
+    drainRing();
+    replaySpill();
+  }
+
+  public Map<String, Object> getStats() {
+    long flushCount = flushes.sum();
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("queueDepth", ring.size());
+    stats.put("capacity", ring.capacity());
+    stats.put("overflowPolicy", overflowPolicy.name());
+    stats.put("enqueued", enqueued.sum());
+    stats.put("written", written.sum());
+    stats.put("dropped", dropped.sum());
+    stats.put("spilled", spilled.sum());
+    stats.put("failed", failed.sum());
+    stats.put("blockedWaits", blockedWaits.sum());
+    stats.put("flushes", flushCount);
+    stats.put("lastFlushMillis", lastFlushNanos.get() / 1_000_000.0);
+    stats.put("maxFlushMillis", maxFlushNanos.get() / 1_000_000.0);
+    stats.put(
+        "avgFlushMillis", flushCount == 0 ? 0.0 : flushNanos.sum() / 1_000_000.0 / flushCount);
+    return stats;
+  }
+
+  private void runWriter() {
+    while (running) {
+      try {
+        if (ring.size() < batchSize) {
+          LockSupport.parkNanos(this, flushIntervalNanos);
+        }
+        drainRing();
+        if (ring.isEmpty()) {
+          replaySpill();
+        }
+      } catch (RuntimeException e) {
+        log.error("Audit writer error: {}", e.getMessage(), e);
+      }
+    }
+  }
+
+  private boolean writerAlive() {
+    Thread thread = writerThread;
+    return running && thread != null && thread.isAlive();
+  }
+
+  private synchronized void drainRing() {
+    List<AuditEvent> batch = new ArrayList<>(batchSize);
+    AuditEvent event;
+    while ((event = ring.poll()) != null) {
+      batch.add(event);
+      if (batch.size() == batchSize) {
+        writeOrSpill(batch);
+        batch = new ArrayList<>(batchSize);
+      }
+    }
+    if (!batch.isEmpty()) {
+      writeOrSpill(batch);
+    }
+  }
+
+  private void writeOrSpill(List<AuditEvent> batch) {
+    try {
+      insertBatch(batch);
+    } catch (DataAccessException | TransactionException | UncheckedIOException e) {
+      log.warn("Audit batch of {} failed, spilling it: {}", batch.size(), e.getMessage());
+      spill(batch);
+    }
+  }
+
+  private void insertBatch(List<AuditEvent> batch) {
+    long start = System.nanoTime();
+    try {
+      if (segmentStore.isEnabled()) {
+        segmentStore.append(batch);
+        written.add(batch.size());
+        return;
+      }
+      transactionTemplate.executeWithoutResult(
+          status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bind));
+      written.add(batch.size());
+    } catch (DataIntegrityViolationException e) {
+      // One bad row fails the whole batch; insert the rows one by one so only it is affected
+      for (AuditEvent event : batch) {
+        insertSingle(event);
+      }
+    } finally {
+      recordFlush(System.nanoTime() - start);
+    }
+  }
+
+  private void insertSingle(AuditEvent event) {
+    try {
+      jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, event));
+      written.increment();
+    } catch (DataIntegrityViolationException e) {
+      // The company or user no longer exists; keep the event without the dangling reference
+      AuditEvent detached =
+          new AuditEvent(
+              null,
+              null,
+              event.getAction(),
+              event.getResourceType(),
+              event.getResourceId(),
+              event.getOldValues(),
+              event.getNewValues(),
+              event.getIpAddress(),
+              event.getUserAgent(),
+              event.getSeverity(),
+              event.getDetails(),
+              event.getCreatedAt());
+      try {
+        jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, detached));
+        written.increment();
+      } catch (DataIntegrityViolationException again) {
+        failed.increment();
+        log.error("Dropping audit event {}: {}", event.getAction(), again.getMessage());
+      }
+    }
+  }
+
+  private void bind(PreparedStatement ps, AuditEvent event) throws SQLException {
+    setLong(ps, 1, event.getCompanyId());
+    setLong(ps, 2, event.getUserId());
+    ps.setString(3, event.getAction());
+    ps.setString(4, event.getResourceType());
+    setLong(ps, 5, event.getResourceId());
+    ps.setString(6, event.getOldValues());
+    ps.setString(7, event.getNewValues());
+    ps.setString(8, event.getIpAddress());
+    ps.setString(9, event.getUserAgent());
+    ps.setString(10, event.getSeverity() != null ? event.getSeverity().name() : null);
+    ps.setString(11, event.getDetails());
+    ps.setTimestamp(12, Timestamp.valueOf(event.getCreatedAt()));
+  }
+
+  private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+    if (value == null) {
+      ps.setNull(index, Types.BIGINT);
+    } else {
+      ps.setLong(index, value);
+    }
+  }
+
+  private void recordFlush(long nanos) {
+    flushes.increment();
+    flushNanos.add(nanos);
+    lastFlushNanos.set(nanos);
+    maxFlushNanos.accumulateAndGet(nanos, Math::max);
+  }
+
+  private void spill(List<AuditEvent> events) {
+    synchronized (spillLock) {
+      try (BufferedWriter writer =
+          Files.newBufferedWriter(
+              spillFile,
+              StandardCharsets.UTF_8,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.APPEND)) {
+        for (AuditEvent event : events) {
+          writer.write(objectMapper.writeValueAsString(event));
+          writer.newLine();
+        }
+        spilled.add(events.size());
+      } catch (IOException e) {
+        failed.add(events.size());
+        log.error("Could not spill {} audit events to {}", events.size(), spillFile, e);
+      }
+    }
+  }
+
+  // Moves the spill file aside and writes its events; a replay that fails is retried later
+  private synchronized void replaySpill() {
+    try {
+      synchronized (spillLock) {
+        if (!Files.exists(replayFile)) {
+          if (!Files.exists(spillFile) || Files.size(spillFile) == 0) {
+            return;
+          }
+          Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+        }
+      }
+
+      List<AuditEvent> events = new ArrayList<>();
+      for (String line : Files.readAllLines(replayFile, StandardCharsets.UTF_8)) {
+        if (!line.isBlank()) {
+          events.add(objectMapper.readValue(line, AuditEvent.class));
+        }
+      }
+
+      int done = 0;
+      try {
+        while (done < events.size()) {
+          List<AuditEvent> chunk = events.subList(done, Math.min(done + batchSize, events.size()));
+          insertBatch(chunk);
+          done += chunk.size();
+        }
+      } catch (DataAccessException | TransactionException | UncheckedIOException e) {
+        // Keep only what is still unwritten so a later replay does not insert rows twice
+        List<String> remaining = new ArrayList<>();
+        for (AuditEvent event : events.subList(done, events.size())) {
+          remaining.add(objectMapper.writeValueAsString(event));
+        }
+        Files.write(replayFile, remaining, StandardCharsets.UTF_8);
+        log.warn("Audit spill replay stopped after {} events: {}", done, e.getMessage());
+        return;
+      }
+      Files.delete(replayFile);
+      log.info("Replayed {} spilled audit events", events.size());
+    } catch (IOException e) {
+      log.error("Could not replay audit spill file {}", replayFile, e);
+    }
+  }
+
+  private void wakeWriterIfBatchReady() {
+    if (ring.size() >= batchSize) {
+      wakeWriter();
+    }
+  }
+
+  private void wakeWriter() {
+    Thread thread = writerThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+}
@@ -8,21 +8,28 @@ import com.customersupport.entity.User;
 import com.customersupport.repository.CompanyRepository;
 import com.customersupport.repository.UserRepository;
 import com.customersupport.util.EmailUtil;
+import com.customersupport.util.JwtClaims;
 import com.customersupport.util.JwtUtil;
 import com.customersupport.util.PasswordEncoder;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class AuthService {
 
+  private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
   @Autowired private UserRepository userRepository;
 
   @Autowired private CompanyRepository companyRepository;
@@ -35,19 +42,18 @@ public class AuthService {
 
   @Autowired private AuditService auditService;
 
+  @Value("${auth.password-setup.validity-hours:72}")
+  private long passwordSetupValidityHours;
+
   // Login user
   @Transactional
   public Map<String, Object> login(LoginDTO loginDTO, String ipAddress, String userAgent) {
     try {
-      System.out.println("Login attempt for email: " + loginDTO.getEmail());
-
       User user =
           userRepository
               .findByEmail(loginDTO.getEmail())
               .orElseThrow(() -> new RuntimeException("Invalid email or password"));
 
-      System.out.println("User found: " + user.getEmail() + ", Role: " + user.getRole().getName());
-
       // Check if company is active
       if (user.getCompany() != null
           && user.getCompany().getStatus() != Company.CompanyStatus.ACTIVE) {
@@ -65,8 +71,6 @@ public class AuthService {
         throw new RuntimeException("Invalid email or password");
       }
 
-      System.out.println("Password validation successful");
-
       // Reset failed login attempts
       user.setFailedLoginAttempts(0);
       user.setLastLogin(LocalDateTime.now());
@@ -74,7 +78,6 @@ public class AuthService {
 
       // Generate token
       String token = jwtUtil.generateToken(user);
-      System.out.println("Token generated successfully");
 
       // Prepare response
       Map<String, Object> response = new HashMap<>();
@@ -87,16 +90,11 @@ public class AuthService {
       response.put("companyId", user.getCompany() != null ? user.getCompany().getId() : null);
       response.put("companyName", user.getCompany() != null ? user.getCompany().getName() : null);
 
-      System.out.println(
-          "Login successful for user: "
-              + user.getEmail()
-              + " with role: "
-              + user.getRole().getName());
+      log.info("Login successful for user {} with role {}", user.getId(), user.getRole().getName());
 
       return response;
     } catch (Exception e) {
-      System.err.println("Login error: " + e.getMessage());
-      e.printStackTrace();
+      log.info("Login failed for {}: {}", loginDTO.getEmail(), e.getMessage());
       throw e;
     }
   }
@@ -104,12 +102,9 @@ public class AuthService {
   // Logout user
   public void logout(String token) {
     try {
-      Map<String, Object> userData = jwtUtil.validateTokenAndGetData(token);
-      Long userId = Long.valueOf(userData.get("userId").toString());
-      Long companyId =
-          userData.get("companyId") != null
-              ? Long.valueOf(userData.get("companyId").toString())
-              : null;
+      JwtClaims claims = jwtUtil.validateToken(token);
+      Long userId = claims.userId();
+      Long companyId = claims.companyId();
 
       auditService.logEvent(
           companyId,
@@ -124,7 +119,7 @@ public class AuthService {
           AuditLog.Severity.LOW,
           "User logged out successfully");
     } catch (Exception e) {
-      System.err.println("Error during logout: " + e.getMessage());
+      log.warn("Error during logout: {}", e.getMessage());
     }
   }
 
@@ -136,10 +131,7 @@ public class AuthService {
             .orElseThrow(() -> new RuntimeException("User not found with this email"));
 
     // Generate reset token
-    String resetToken = RandomStringUtils.randomAlphanumeric(30);
-    user.setPasswordResetToken(resetToken);
-    user.setPasswordResetExpires(LocalDateTime.now().plusHours(1)); // Token valid for 1 hour
-    userRepository.save(user);
+    String resetToken = issuePasswordResetToken(user, Duration.ofHours(1));
 
     // Send reset email
     String resetLink = "https://your-app-domain.com/reset-password?token=" + resetToken;
@@ -164,6 +156,20 @@ public class AuthService {
         "Password reset requested");
   }
 
+  // Issue a one-time link token for a new account; the email carries it instead of the password
+  public String issuePasswordSetupToken(User user) {
+    return issuePasswordResetToken(user, Duration.ofHours(passwordSetupValidityHours));
+  }
+
+  // Issue a one-time token for the password reset page, replacing any earlier one
+  public String issuePasswordResetToken(User user, Duration validity) {
+    String token = RandomStringUtils.randomAlphanumeric(30);
+    user.setPasswordResetToken(token);
+    user.setPasswordResetExpires(LocalDateTime.now().plus(validity));
+    userRepository.save(user);
+    return token;
+  }
+
   // Reset password with token
   public void resetPassword(String token, String newPassword) {
     User user =
@@ -229,8 +235,8 @@ public class AuthService {
   }
 
   // Verify token and get user data
-  public Map<String, Object> verifyToken(String token) {
-    return jwtUtil.validateTokenAndGetData(token);
+  public JwtClaims verifyToken(String token) {
+    return jwtUtil.validateToken(token);
   }
 
   // Get active companies for login selection
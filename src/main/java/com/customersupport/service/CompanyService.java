@@ -30,6 +30,10 @@ public class CompanyService {
 
   @Autowired private EmailService emailService;
 
+  @Autowired private AuthService authService;
+
+  @Autowired private PrincipalCacheService principalCacheService;
+
   // Get all companies
   public List<CompanyDTO> getAllCompanies() {
     return companyRepository.findAllOrderByCreatedAtDesc().stream()
@@ -99,7 +103,7 @@ public class CompanyService {
     adminUser.setStatus(User.UserStatus.ACTIVE);
     adminUser.setEmailVerified(true);
 
-    userRepository.save(adminUser);
+    User savedAdmin = userRepository.save(adminUser);
 
     // Create a DTO to pass to the email service
     CompanyAdminRegistrationDTO adminInfoDTO = new CompanyAdminRegistrationDTO();
@@ -111,7 +115,7 @@ public class CompanyService {
 
     // Send email notification to the company admin
     emailService.sendCompanyAdminRegistrationEmail(
-        adminInfoDTO, savedCompany, registrationDTO.getAdminPassword());
+        adminInfoDTO, savedCompany, authService.issuePasswordSetupToken(savedAdmin));
 
     return convertToDTO(savedCompany);
   }
@@ -163,6 +167,7 @@ public class CompanyService {
           user.setStatus(User.UserStatus.INACTIVE);
           userRepository.save(user);
         });
+    principalCacheService.invalidateCompany(id);
   }
 
   public void activateCompany(Long id) {
@@ -179,6 +184,7 @@ public class CompanyService {
           user.setStatus(User.UserStatus.ACTIVE);
           userRepository.save(user);
         });
+    principalCacheService.invalidateCompany(id);
   }
 
   // Delete company
@@ -186,6 +192,7 @@ public class CompanyService {
     Company company =
         companyRepository.findById(id).orElseThrow(() -> new RuntimeException("Company not found"));
     companyRepository.delete(company);
+    principalCacheService.invalidateCompany(id);
   }
 
   // Create company admin
@@ -219,10 +226,11 @@ public class CompanyService {
     adminUser.setStatus(User.UserStatus.ACTIVE);
     adminUser.setEmailVerified(true);
 
-    userRepository.save(adminUser);
+    User savedAdmin = userRepository.save(adminUser);
 
     // Send email notification to the company admin
-    emailService.sendCompanyAdminRegistrationEmail(adminDTO, company, adminDTO.getPassword());
+    emailService.sendCompanyAdminRegistrationEmail(
+        adminDTO, company, authService.issuePasswordSetupToken(savedAdmin));
   }
 
   private CompanyDTO convertToDTO(Company company) {
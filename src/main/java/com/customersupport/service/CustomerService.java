@@ -32,6 +32,8 @@ public class CustomerService {
 
   @Autowired private PasswordEncoder passwordEncoder;
 
+  @Autowired private PrincipalCacheService principalCacheService;
+
   // Get all customers
   public List<CustomerDTO> getAllCustomers() {
     return customerRepository.findAll().stream()
@@ -179,6 +181,7 @@ public class CustomerService {
             .orElseThrow(() -> new RuntimeException("Customer not found"));
 
     userRepository.delete(customer.getUser());
+    principalCacheService.invalidate(customer.getUser().getId());
   }
 
   // Verify email
@@ -1,6 +1,7 @@
 package com.customersupport.service;
 
 import com.customersupport.dto.DashboardDTO;
+import com.customersupport.dto.TicketStatusCounts;
 import com.customersupport.entity.AuditLog;
 import com.customersupport.entity.Ticket;
 import com.customersupport.repository.*;
@@ -22,9 +23,9 @@ public class DashboardService {
 
   @Autowired private TicketRepository ticketRepository;
 
-  @Autowired private ReviewRepository reviewRepository;
+  @Autowired private ReviewService reviewService;
 
-  @Autowired private AuditLogRepository auditLogRepository;
+  @Autowired private AuditService auditService;
 
   // Get super admin dashboard
   public DashboardDTO getSuperAdminDashboard() {
@@ -44,12 +45,13 @@ public class DashboardService {
     dashboard.setTotalUsers((int) userRepository.count());
 
     // Ticket stats across all companies
-    dashboard.setTotalTickets((int) ticketRepository.count());
-    dashboard.setOpenTickets(ticketRepository.countByStatus(Ticket.Status.OPEN));
-    dashboard.setResolvedTickets(ticketRepository.countByStatus(Ticket.Status.RESOLVED));
+    TicketStatusCounts counts = TicketStatusCounts.fromRows(ticketRepository.countByStatus());
+    dashboard.setTotalTickets(Math.toIntExact(counts.getTotal()));
+    dashboard.setOpenTickets(Math.toIntExact(counts.get(Ticket.Status.OPEN)));
+    dashboard.setResolvedTickets(Math.toIntExact(counts.get(Ticket.Status.RESOLVED)));
 
     // Recent activity
-    dashboard.setRecentActivities(auditLogRepository.findRecentAuditLogs(10));
+    dashboard.setRecentActivities(auditService.getRecentAuditLogs(10));
 
     return dashboard;
   }
@@ -64,22 +66,16 @@ public class DashboardService {
     dashboard.setTotalCustomers(customerRepository.countByCompanyId(companyId));
 
     // Ticket stats
-    dashboard.setTotalTickets(Math.toIntExact(ticketRepository.countByCompanyId(companyId)));
-    dashboard.setOpenTickets(
-        Math.toIntExact(ticketRepository.countByCompanyIdAndStatus(companyId, Ticket.Status.OPEN)));
-    dashboard.setInProgressTickets(
-        Math.toIntExact(
-            ticketRepository.countByCompanyIdAndStatus(companyId, Ticket.Status.IN_PROGRESS)));
-    dashboard.setResolvedTickets(
-        Math.toIntExact(
-            ticketRepository.countByCompanyIdAndStatus(companyId, Ticket.Status.RESOLVED)));
+    TicketStatusCounts counts =
+        TicketStatusCounts.fromRows(ticketRepository.countByStatusForCompany(companyId));
+    applyStatusCounts(dashboard, counts);
+    dashboard.setTotalTickets(Math.toIntExact(counts.getTotal()));
 
     // Customer satisfaction
-    Double avgRating = reviewRepository.getAverageRatingByCompany(companyId);
-    dashboard.setAverageRating(avgRating != null ? avgRating : 0.0);
+    dashboard.setAverageRating(reviewService.getAverageRatingByCompany(companyId));
 
     // Recent activity
-    dashboard.setRecentActivities(auditLogRepository.findRecentAuditLogsByCompany(companyId, 10));
+    dashboard.setRecentActivities(auditService.findRecentAuditLogsByCompany(companyId, 10));
 
     return dashboard;
   }
@@ -89,14 +85,10 @@ public class DashboardService {
     DashboardDTO dashboard = new DashboardDTO();
 
     // Ticket stats
-    dashboard.setAssignedTickets(Math.toIntExact(ticketRepository.countByAgentId(agentId)));
-    dashboard.setOpenTickets(
-        Math.toIntExact(ticketRepository.countByAgentIdAndStatus(agentId, Ticket.Status.OPEN)));
-    dashboard.setInProgressTickets(
-        Math.toIntExact(
-            ticketRepository.countByAgentIdAndStatus(agentId, Ticket.Status.IN_PROGRESS)));
-    dashboard.setResolvedTickets(
-        Math.toIntExact(ticketRepository.countByAgentIdAndStatus(agentId, Ticket.Status.RESOLVED)));
+    TicketStatusCounts counts =
+        TicketStatusCounts.fromRows(ticketRepository.countByStatusForAgent(agentId));
+    applyStatusCounts(dashboard, counts);
+    dashboard.setAssignedTickets(Math.toIntExact(counts.getTotal()));
 
     // Calculate tickets resolved today
     LocalDateTime startOfDay = LocalDateTime.now().toLocalDate().atStartOfDay();
@@ -108,11 +100,11 @@ public class DashboardService {
     dashboard.setResolvedTodayTickets(resolvedToday.size());
 
     // Get customer satisfaction rating
-    Double avgRating = reviewRepository.getAverageRatingByAgent(agentId);
+    Double avgRating = reviewService.getAverageRatingByAgent(agentId);
     dashboard.setAverageRating(avgRating != null ? avgRating : 0.0);
 
     // Recent activity
-    dashboard.setRecentActivities(auditLogRepository.findRecentAuditLogsByUser(agentId, 10));
+    dashboard.setRecentActivities(auditService.findRecentAuditLogsByUser(agentId, 10));
 
     return dashboard;
   }
@@ -122,16 +114,10 @@ public class DashboardService {
     DashboardDTO dashboard = new DashboardDTO();
 
     // Ticket stats
-    dashboard.setTotalTickets(Math.toIntExact(ticketRepository.countByCustomerId(customerId)));
-    dashboard.setOpenTickets(
-        Math.toIntExact(
-            ticketRepository.countByCustomerIdAndStatus(customerId, Ticket.Status.OPEN)));
-    dashboard.setInProgressTickets(
-        Math.toIntExact(
-            ticketRepository.countByCustomerIdAndStatus(customerId, Ticket.Status.IN_PROGRESS)));
-    dashboard.setResolvedTickets(
-        Math.toIntExact(
-            ticketRepository.countByCustomerIdAndStatus(customerId, Ticket.Status.RESOLVED)));
+    TicketStatusCounts counts =
+        TicketStatusCounts.fromRows(ticketRepository.countByStatusForCustomer(customerId));
+    applyStatusCounts(dashboard, counts);
+    dashboard.setTotalTickets(Math.toIntExact(counts.getTotal()));
 
     // Recent tickets
     dashboard.setRecentTickets(
@@ -147,7 +133,17 @@ public class DashboardService {
 
   // Get recent activities
   public List<AuditLog> getRecentActivities(Long userId) {
-    return auditLogRepository.findRecentAuditLogsByUser(userId, 10);
+    return auditService.findRecentAuditLogsByUser(userId, 10);
+  }
+
+  private void applyStatusCounts(DashboardDTO dashboard, TicketStatusCounts counts) {
+    dashboard.setOpenTickets(Math.toIntExact(counts.get(Ticket.Status.OPEN)));
+    dashboard.setInProgressTickets(Math.toIntExact(counts.get(Ticket.Status.IN_PROGRESS)));
+    dashboard.setPendingCustomerTickets(
+        Math.toIntExact(counts.get(Ticket.Status.PENDING_CUSTOMER)));
+    dashboard.setResolvedTickets(Math.toIntExact(counts.get(Ticket.Status.RESOLVED)));
+    dashboard.setClosedTickets(Math.toIntExact(counts.get(Ticket.Status.CLOSED)));
+    dashboard.setCancelledTickets(Math.toIntExact(counts.get(Ticket.Status.CANCELLED)));
   }
 
   // Helper method to calculate date for a period ago
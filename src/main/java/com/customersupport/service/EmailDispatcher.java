@@ -0,0 +1,197 @@
+package com.customersupport.service;
+
+import com.customersupport.entity.EmailOutboxMessage;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+// Drains the email outbox in the background. Each batch is rendered and then handed to
+// JavaMailSender.send(MimeMessage...), which delivers it over a single SMTP connection.
+@Service
+public class EmailDispatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(EmailDispatcher.class);
+
+  private static final TypeReference<Map<String, Object>> MODEL_TYPE = new TypeReference<>() {};
+
+  private final EmailOutboxService emailOutboxService;
+  private final JavaMailSender emailSender;
+  private final SpringTemplateEngine templateEngine;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+  private final Counter messagesSent;
+  private final Counter renderFailures;
+  private final Counter sendFailures;
+
+  @Value("${spring.mail.username}")
+  private String fromEmail;
+
+  @Value("${email.outbox.batch-size:50}")
+  private int batchSize;
+
+  @Value("${email.outbox.retention-days:7}")
+  private int retentionDays;
+
+  public EmailDispatcher(
+      EmailOutboxService emailOutboxService,
+      JavaMailSender emailSender,
+      SpringTemplateEngine templateEngine,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry) {
+    this.emailOutboxService = emailOutboxService;
+    this.emailSender = emailSender;
+    this.templateEngine = templateEngine;
+    this.objectMapper = objectMapper;
+    this.meterRegistry = meterRegistry;
+    this.messagesSent =
+        Counter.builder("cs.email.sent")
+            .description("Outbox messages accepted by the mail server")
+            .register(meterRegistry);
+    this.renderFailures = failureCounter("render");
+    this.sendFailures = failureCounter("send");
+  }
+
+  @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:2000}")
+  public void dispatchPending() {
+    // Keep draining while full batches come back so a burst is not spread over many polls
+    int sent;
+    do {
+      sent = dispatchBatch();
+    } while (sent >= batchSize);
+  }
+
+  // Sends one batch and returns the number of messages claimed
+  public int dispatchBatch() {
+    List<EmailOutboxMessage> batch = emailOutboxService.claimDueBatch(batchSize);
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    Map<Long, String> failures = new HashMap<>();
+    Map<MimeMessage, Long> rendered = new LinkedHashMap<>();
+    for (EmailOutboxMessage message : batch) {
+      try {
+        rendered.put(render(message), message.getId());
+      } catch (Exception e) {
+        failures.put(message.getId(), describe(e));
+      }
+    }
+
+    int notRendered = failures.size();
+    renderFailures.increment(notRendered);
+
+    if (!rendered.isEmpty()) {
+      Timer.Sample sample = Timer.start(meterRegistry);
+      String outcome = "success";
+      try {
+        emailSender.send(rendered.keySet().toArray(new MimeMessage[0]));
+      } catch (MailSendException e) {
+        outcome = "failure";
+        // Partial failure: only the messages listed as failed are retried
+        Map<Object, Exception> failedMessages = e.getFailedMessages();
+        if (failedMessages.isEmpty()) {
+          rendered.values().forEach(id -> failures.put(id, describe(e)));
+        } else {
+          failedMessages.forEach(
+              (failed, cause) -> {
+                Long id = rendered.get(failed);
+                if (id != null) {
+                  failures.put(id, describe(cause));
+                }
+              });
+        }
+      } catch (MailException e) {
+        outcome = "failure";
+        rendered.values().forEach(id -> failures.put(id, describe(e)));
+      } finally {
+        sample.stop(
+            Timer.builder("cs.email.send")
+                .description("Time to deliver one outbox batch over SMTP")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+      }
+      sendFailures.increment(failures.size() - notRendered);
+    }
+
+    List<Long> delivered = new ArrayList<>();
+    for (EmailOutboxMessage message : batch) {
+      if (!failures.containsKey(message.getId())) {
+        delivered.add(message.getId());
+      }
+    }
+
+    if (!delivered.isEmpty()) {
+      messagesSent.increment(delivered.size());
+      emailOutboxService.markSent(delivered);
+    }
+    if (!failures.isEmpty()) {
+      log.warn("Email outbox: {} of {} messages failed and will be retried", failures.size(),
+          batch.size());
+      emailOutboxService.markFailed(failures);
+    }
+    return batch.size();
+  }
+
+  @Scheduled(cron = "${email.outbox.purge-cron:0 15 * * * *}")
+  public void purgeSentMessages() {
+    int purged = emailOutboxService.purgeSentBefore(LocalDateTime.now().minusDays(retentionDays));
+    if (purged > 0) {
+      log.info("Email outbox: purged {} sent messages", purged);
+    }
+  }
+
+  private Counter failureCounter(String stage) {
+    return Counter.builder("cs.email.failures")
+        .description("Outbox messages that failed and were queued for retry")
+        .tag("stage", stage)
+        .register(meterRegistry);
+  }
+
+  private MimeMessage render(EmailOutboxMessage message) throws Exception {
+    Map<String, Object> model =
+        message.getTemplateModel() != null
+            ? objectMapper.readValue(message.getTemplateModel(), MODEL_TYPE)
+            : Map.of();
+
+    Context context = new Context();
+    context.setVariables(model);
+    String htmlContent = templateEngine.process(message.getTemplateName(), context);
+
+    MimeMessage mimeMessage = emailSender.createMimeMessage();
+    MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+    helper.setFrom(fromEmail);
+    helper.setTo(message.getRecipient());
+    helper.setSubject(message.getSubject());
+    helper.setText(htmlContent, true);
+    return mimeMessage;
+  }
+
+  private String describe(Exception e) {
+    String text = e.getClass().getSimpleName() + ": " + e.getMessage();
+    if (e instanceof MessagingException && e.getCause() != null) {
+      text += " (" + e.getCause().getMessage() + ")";
+    }
+    return text.length() > 2000 ? text.substring(0, 2000) : text;
+  }
+}
@@ -0,0 +1,97 @@
+package com.customersupport.service;
+
+import com.customersupport.entity.EmailOutboxMessage;
+import com.customersupport.repository.EmailOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+// Persistent email queue. enqueue() joins the caller's transaction, so a message is only sent if
+// the business change that produced it commits.
+@Service
+@Transactional
+public class EmailOutboxService {
+
+  @Autowired private EmailOutboxRepository emailOutboxRepository;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Value("${email.outbox.max-attempts:5}")
+  private int maxAttempts;
+
+  @Value("${email.outbox.initial-backoff-seconds:30}")
+  private long initialBackoffSeconds;
+
+  @Value("${email.outbox.lease-seconds:300}")
+  private long leaseSeconds;
+
+  public EmailOutboxMessage enqueue(
+      String recipient, String subject, String templateName, Map<String, Object> templateModel) {
+    EmailOutboxMessage message = new EmailOutboxMessage();
+    message.setRecipient(recipient);
+    message.setSubject(subject);
+    message.setTemplateName(templateName);
+    try {
+      message.setTemplateModel(objectMapper.writeValueAsString(templateModel));
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Unable to queue email: " + e.getMessage(), e);
+    }
+    return emailOutboxRepository.save(message);
+  }
+
+  // Claim up to batchSize due messages. Claimed messages are leased: if this node dies before
+  // recording a result they become due again once the lease expires.
+  public List<EmailOutboxMessage> claimDueBatch(int batchSize) {
+    LocalDateTime now = LocalDateTime.now();
+    List<EmailOutboxMessage> due =
+        emailOutboxRepository.findDueForUpdate(now, PageRequest.of(0, batchSize));
+    for (EmailOutboxMessage message : due) {
+      message.setStatus(EmailOutboxMessage.Status.SENDING);
+      message.setAttempts(message.getAttempts() + 1);
+      message.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+    }
+    return emailOutboxRepository.saveAll(due);
+  }
+
+  public void markSent(Collection<Long> messageIds) {
+    LocalDateTime now = LocalDateTime.now();
+    for (EmailOutboxMessage message : emailOutboxRepository.findAllById(messageIds)) {
+      message.setStatus(EmailOutboxMessage.Status.SENT);
+      message.setSentAt(now);
+      message.setLastError(null);
+    }
+  }
+
+  // Schedule a retry with exponential backoff, or give up after max attempts
+  public void markFailed(Map<Long, String> errorsByMessageId) {
+    LocalDateTime now = LocalDateTime.now();
+    for (EmailOutboxMessage message :
+        emailOutboxRepository.findAllById(errorsByMessageId.keySet())) {
+      message.setLastError(errorsByMessageId.get(message.getId()));
+      if (message.getAttempts() >= maxAttempts) {
+        message.setStatus(EmailOutboxMessage.Status.FAILED);
+      } else {
+        message.setStatus(EmailOutboxMessage.Status.PENDING);
+        message.setNextAttemptAt(now.plus(backoff(message.getAttempts())));
+      }
+    }
+  }
+
+  public int purgeSentBefore(LocalDateTime before) {
+    return emailOutboxRepository.deleteSentBefore(before);
+  }
+
+  private Duration backoff(int attempts) {
+    int exponent = Math.min(Math.max(attempts - 1, 0), 10);
+    return Duration.ofSeconds(initialBackoffSeconds * (1L << exponent));
+  }
+}
@@ -6,84 +6,67 @@ import com.customersupport.dto.TicketDTO;
 import com.customersupport.entity.Company;
 import com.customersupport.entity.Review;
 import com.customersupport.entity.User;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
 @Service
 public class EmailService {
 
-  @Autowired private JavaMailSender emailSender;
+  // Messages are stored in the outbox until purged, so they never carry a password; accounts get
+  // a one-time link to the password page instead
+  private static final String PASSWORD_LINK = "http://localhost:8082/auth/password-reset?token=";
 
-  @Autowired private SpringTemplateEngine templateEngine;
-
-  @Value("${spring.mail.username}")
-  private String fromEmail;
+  @Autowired private EmailOutboxService emailOutboxService;
 
   /**
-   * Send company admin registration email with login credentials
+   * Send company admin registration email with a link to set the account password
    *
    * @param adminDTO The company admin registration data
    * @param company The company details
-   * @param password The generated or provided password
+   * @param passwordSetupToken One-time token for the password page
    */
   public void sendCompanyAdminRegistrationEmail(
-      CompanyAdminRegistrationDTO adminDTO, Company company, String password) {
+      CompanyAdminRegistrationDTO adminDTO, Company company, String passwordSetupToken) {
     String subject = "Welcome to Customer Support System - Your Admin Account Details";
 
     Map<String, Object> templateModel = new HashMap<>();
     templateModel.put("adminName", adminDTO.getFirstName() + " " + adminDTO.getLastName());
     templateModel.put("companyName", company.getName());
     templateModel.put("email", adminDTO.getEmail());
-    templateModel.put("password", password);
+    templateModel.put("passwordUrl", PASSWORD_LINK + passwordSetupToken);
     templateModel.put("loginUrl", "http://localhost:8082/auth/login");
     templateModel.put("companyDetails", formatCompanyDetails(company));
 
-    try {
-      sendHtmlMessage(adminDTO.getEmail(), subject, "company-admin-registration", templateModel);
-    } catch (MessagingException e) {
-      // Log the error but don't interrupt the user creation flow
-      e.printStackTrace();
-    }
+    queueHtmlMessage(adminDTO.getEmail(), subject, "company-admin-registration", templateModel);
   }
 
   /**
-   * Send password reset email
+   * Send password reset email with a link to choose a new password
    *
    * @param user The user entity
-   * @param newPassword The new password
+   * @param resetToken One-time token for the password page
    */
-  public void sendPasswordResetEmail(User user, String newPassword) {
+  public void sendPasswordResetEmail(User user, String resetToken) {
     String subject = "Customer Support System - Password Reset";
 
     Map<String, Object> templateModel = new HashMap<>();
     templateModel.put("userName", user.getFirstname() + " " + user.getLastname());
-    templateModel.put("newPassword", newPassword);
+    templateModel.put("passwordUrl", PASSWORD_LINK + resetToken);
     templateModel.put("loginUrl", "http://localhost:8082/auth/login");
 
-    try {
-      sendHtmlMessage(user.getEmail(), subject, "password-reset", templateModel);
-    } catch (MessagingException e) {
-      e.printStackTrace();
-    }
+    queueHtmlMessage(user.getEmail(), subject, "password-reset", templateModel);
   }
 
   /**
-   * Send agent registration email with login credentials
+   * Send agent registration email with a link to set the account password
    *
    * @param firstName The agent's first name
    * @param lastName The agent's last name
    * @param email The agent's email address
-   * @param password The generated or provided password
+   * @param passwordSetupToken One-time token for the password page
    * @param company The company the agent belongs to
    * @param department The agent's department
    * @param specialization The agent's specialization
@@ -92,7 +75,7 @@ public class EmailService {
       String firstName,
       String lastName,
       String email,
-      String password,
+      String passwordSetupToken,
       Company company,
       String department,
       String specialization) {
@@ -102,46 +85,28 @@ public class EmailService {
     templateModel.put("agentName", firstName + " " + lastName);
     templateModel.put("companyName", company.getName());
     templateModel.put("email", email);
-    templateModel.put("password", password);
+    templateModel.put("passwordUrl", PASSWORD_LINK + passwordSetupToken);
     templateModel.put("department", department != null ? department : "General Support");
     templateModel.put(
         "specialization", specialization != null ? specialization : "General Support");
     templateModel.put("loginUrl", "http://localhost:8082/auth/login");
     templateModel.put("companyDetails", formatCompanyDetails(company));
 
-    try {
-      sendHtmlMessage(email, subject, "agent-registration", templateModel);
-    } catch (MessagingException e) {
-      // Log the error but don't interrupt the agent creation flow
-      e.printStackTrace();
-    }
+    queueHtmlMessage(email, subject, "agent-registration", templateModel);
   }
 
   /**
-   * Utility method to send HTML email using a template
+   * Queue an HTML email in the outbox. Rendering and SMTP delivery happen in the background in
+   * {@link EmailDispatcher}, so callers never wait on the mail server.
    *
    * @param to Recipient email address
    * @param subject Email subject
    * @param templateName Name of the HTML template (without .html extension)
    * @param templateModel Model containing template variables
-   * @throws MessagingException If there's an error sending the email
    */
-  private void sendHtmlMessage(
-      String to, String subject, String templateName, Map<String, Object> templateModel)
-      throws MessagingException {
-    MimeMessage message = emailSender.createMimeMessage();
-    MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-    Context context = new Context();
-    context.setVariables(templateModel);
-    String htmlContent = templateEngine.process(templateName, context);
-
-    helper.setFrom(fromEmail);
-    helper.setTo(to);
-    helper.setSubject(subject);
-    helper.setText(htmlContent, true);
-
-    emailSender.send(message);
+  private void queueHtmlMessage(
+      String to, String subject, String templateName, Map<String, Object> templateModel) {
+    emailOutboxService.enqueue(to, subject, templateName, templateModel);
   }
 
   /**
@@ -213,12 +178,7 @@ public class EmailService {
     templateModel.put(
         "ticketUrl", "http://localhost:8082/agent/ticket-response?ticketId=" + ticket.getId());
 
-    try {
-      sendHtmlMessage(agentEmail, subject, "ticket-notification", templateModel);
-    } catch (MessagingException e) {
-      // Log the error but don't interrupt the ticket creation flow
-      e.printStackTrace();
-    }
+    queueHtmlMessage(agentEmail, subject, "ticket-notification", templateModel);
   }
 
   /**
@@ -247,12 +207,7 @@ public class EmailService {
         ticket.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
     templateModel.put("ticketUrl", "http://localhost:8082/customer/tickets/" + ticket.getId());
 
-    try {
-      sendHtmlMessage(customerEmail, subject, "ticket-claimed", templateModel);
-    } catch (MessagingException e) {
-      // Log the error but don't interrupt the ticket claiming flow
-      e.printStackTrace();
-    }
+    queueHtmlMessage(customerEmail, subject, "ticket-claimed", templateModel);
   }
 
   /**
@@ -293,12 +248,7 @@ public class EmailService {
         "reviewUrl", "http://localhost:8082/company-admin/reviews?reviewId=" + review.getId());
     templateModel.put("companyName", companyName);
 
-    try {
-      sendHtmlMessage(adminEmail, subject, "review-notification", templateModel);
-    } catch (MessagingException e) {
-      // Log the error but don't interrupt the review creation flow
-      e.printStackTrace();
-    }
+    queueHtmlMessage(adminEmail, subject, "review-notification", templateModel);
   }
 
   /**
@@ -338,11 +288,45 @@ public class EmailService {
         "reviewUrl", "http://localhost:8082/company-admin/reviews?reviewId=" + review.getId());
     templateModel.put("companyName", review.getCompany().getName());
 
-    try {
-      sendHtmlMessage(admin.getEmail(), subject, "review-notification", templateModel);
-    } catch (MessagingException e) {
-      // Log the error but don't interrupt the review creation flow
-      e.printStackTrace();
-    }
+    queueHtmlMessage(admin.getEmail(), subject, "review-notification", templateModel);
+  }
+
+  /**
+   * Send an SLA warning or breach alert to the agent handling a ticket, or to a company admin
+   * when the ticket is unassigned
+   *
+   * @param recipientEmail The email address of the agent or admin
+   * @param recipientName The name of the agent or admin
+   * @param ticket The ticket the alert is about
+   * @param breached Whether the target was missed, rather than about to be
+   * @param detail What target is at risk and what was done about it
+   */
+  public void sendSlaAlert(
+      String recipientEmail,
+      String recipientName,
+      TicketDTO ticket,
+      boolean breached,
+      String detail) {
+    String subject =
+        (breached ? "SLA Breached: " : "SLA Warning: ")
+            + ticket.getTicketNumber()
+            + " - "
+            + ticket.getTitle();
+
+    Map<String, Object> templateModel = new HashMap<>();
+    templateModel.put("recipientName", recipientName);
+    templateModel.put("breached", breached);
+    templateModel.put("detail", detail);
+    templateModel.put("ticketNumber", ticket.getTicketNumber());
+    templateModel.put("ticketTitle", ticket.getTitle());
+    templateModel.put("ticketPriority", ticket.getPriority().toString());
+    templateModel.put("ticketStatus", ticket.getStatus().toString());
+    templateModel.put(
+        "ticketCreatedAt",
+        ticket.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+    templateModel.put(
+        "ticketUrl", "http://localhost:8082/agent/ticket-response?ticketId=" + ticket.getId());
+
+    queueHtmlMessage(recipientEmail, subject, "sla-alert", templateModel);
   }
 }
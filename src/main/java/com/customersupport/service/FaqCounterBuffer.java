@@ -0,0 +1,170 @@
+package com.customersupport.service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind buffer for FAQ view and helpfulness clicks. Clicks are counted in memory and flushed
+ * periodically as one batch of relative {@code count = count + ?} updates, so concurrent clicks
+ * never overwrite each other and a click costs no database round trip. Deltas not yet flushed are
+ * exposed through {@link #pending(Long)} so readers can add them to the stored counts.
+ */
+@Service
+public class FaqCounterBuffer {
+
+  private static final Logger log = LoggerFactory.getLogger(FaqCounterBuffer.class);
+
+  private static final String FLUSH_SQL =
+      "UPDATE faqs SET view_count = view_count + ?, helpful_count = helpful_count + ?,"
+          + " not_helpful_count = not_helpful_count + ? WHERE id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  // One entry per FAQ clicked since startup; entries are only dropped when the FAQ is deleted
+  private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+
+  public FaqCounterBuffer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  public void recordView(Long companyId, Long faqId) {
+    countersFor(companyId, faqId).views.increment();
+  }
+
+  public void recordHelpful(Long companyId, Long faqId) {
+    countersFor(companyId, faqId).helpful.increment();
+  }
+
+  public void recordNotHelpful(Long companyId, Long faqId) {
+    countersFor(companyId, faqId).notHelpful.increment();
+  }
+
+  /** Deltas for the FAQ that are not yet visible in the database. */
+  public Pending pending(Long faqId) {
+    Counters entry = counters.get(faqId);
+    return entry == null ? Pending.NONE : entry.pending();
+  }
+
+  /** Ids of the company's FAQs that currently have unflushed deltas. */
+  public List<Long> pendingFaqIds(Long companyId) {
+    List<Long> ids = new ArrayList<>();
+    counters.forEach(
+        (faqId, entry) -> {
+          if (entry.companyId.equals(companyId) && !entry.pending().isEmpty()) {
+            ids.add(faqId);
+          }
+        });
+    return ids;
+  }
+
+  /** Drop buffered clicks for a deleted FAQ. */
+  public void discard(Long faqId) {
+    counters.remove(faqId);
+  }
+
+  @Scheduled(fixedDelayString = "${faq.counters.flush-interval-ms:5000}")
+  public void scheduledFlush() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.warn("Failed to flush FAQ counters, will retry: {}", e.getMessage());
+    }
+  }
+
+  /** Write every buffered delta in one batch; returns the number of FAQs updated. */
+  public synchronized int flush() {
+    List<Object[]> batch = new ArrayList<>();
+    List<Counters> drained = new ArrayList<>();
+    counters.forEach(
+        (faqId, entry) -> {
+          long views = entry.views.sumThenReset();
+          long helpful = entry.helpful.sumThenReset();
+          long notHelpful = entry.notHelpful.sumThenReset();
+          if (views == 0 && helpful == 0 && notHelpful == 0) {
+            return;
+          }
+          // Keep the drained amounts visible to readers until the update has committed
+          entry.inFlight = new Pending(views, helpful, notHelpful);
+          batch.add(new Object[] {views, helpful, notHelpful, faqId});
+          drained.add(entry);
+        });
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> jdbcTemplate.batchUpdate(FLUSH_SQL, batch));
+    } catch (RuntimeException e) {
+      // Put the deltas back so the next flush retries them
+      for (Counters entry : drained) {
+        Pending inFlight = entry.inFlight;
+        entry.views.add(inFlight.views());
+        entry.helpful.add(inFlight.helpful());
+        entry.notHelpful.add(inFlight.notHelpful());
+        entry.inFlight = Pending.NONE;
+      }
+      throw e;
+    }
+    for (Counters entry : drained) {
+      entry.inFlight = Pending.NONE;
+    }
+    log.debug("Flushed counters for {} FAQs", batch.size());
+    return batch.size();
+  }
+
+  @PreDestroy
+  public void drain() {
+    try {
+      int flushed = flush();
+      log.info("Flushed counters for {} FAQs on shutdown", flushed);
+    } catch (RuntimeException e) {
+      log.error("Failed to flush FAQ counters on shutdown: {}", e.getMessage());
+    }
+  }
+
+  private Counters countersFor(Long companyId, Long faqId) {
+    return counters.computeIfAbsent(faqId, id -> new Counters(companyId));
+  }
+
+  public record Pending(long views, long helpful, long notHelpful) {
+    static final Pending NONE = new Pending(0, 0, 0);
+
+    public boolean isEmpty() {
+      return views == 0 && helpful == 0 && notHelpful == 0;
+    }
+  }
+
+  private static final class Counters {
+    private final Long companyId;
+    private final LongAdder views = new LongAdder();
+    private final LongAdder helpful = new LongAdder();
+    private final LongAdder notHelpful = new LongAdder();
+    private volatile Pending inFlight = Pending.NONE;
+
+    private Counters(Long companyId) {
+      this.companyId = companyId;
+    }
+
+    Pending pending() {
+      Pending flushing = inFlight;
+      return new Pending(
+          views.sum() + flushing.views(),
+          helpful.sum() + flushing.helpful(),
+          notHelpful.sum() + flushing.notHelpful());
+    }
+  }
+}
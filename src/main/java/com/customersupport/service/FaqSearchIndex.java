@@ -0,0 +1,292 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.FaqDTO;
+import com.customersupport.repository.FaqRepository;
+import com.customersupport.util.SearchTokenizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Per-company inverted index over FAQ question, keywords and answer text, ranked with BM25. Built
+ * from the database at startup and kept current by FaqService after each committed change, so
+ * searches never hit the database. The index is local to each node: changes made through another
+ * node show up here only after a restart.
+ */
+@Service
+public class FaqSearchIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(FaqSearchIndex.class);
+
+  // Standard BM25 parameters
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+
+  // Question and keyword matches count for more than matches in the answer body
+  private static final int QUESTION_WEIGHT = 3;
+  private static final int KEYWORDS_WEIGHT = 2;
+  private static final int ANSWER_WEIGHT = 1;
+
+  // The last query word is also matched as a prefix, so results follow the user as they type
+  private static final int MAX_PREFIX_EXPANSIONS = 20;
+
+  private final FaqRepository faqRepository;
+  private final Map<Long, CompanyIndex> companies = new ConcurrentHashMap<>();
+  // faq id -> company id, so callers holding only an FAQ id can find its index
+  private final Map<Long, Long> faqCompanies = new ConcurrentHashMap<>();
+
+  public FaqSearchIndex(FaqRepository faqRepository) {
+    this.faqRepository = faqRepository;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void rebuild() {
+    Map<Long, CompanyIndex> rebuilt = new HashMap<>();
+    Map<Long, Long> rebuiltFaqCompanies = new HashMap<>();
+    int count = 0;
+    for (var faq : faqRepository.findAllForSearchIndex()) {
+      FaqDTO dto = FaqDTO.fromEntity(faq);
+      rebuilt.computeIfAbsent(dto.getCompanyId(), id -> new CompanyIndex()).put(dto);
+      rebuiltFaqCompanies.put(dto.getId(), dto.getCompanyId());
+      count++;
+    }
+    companies.clear();
+    companies.putAll(rebuilt);
+    faqCompanies.clear();
+    faqCompanies.putAll(rebuiltFaqCompanies);
+    log.info("FAQ search index built: {} FAQs across {} companies", count, rebuilt.size());
+  }
+
+  /** Ranked matches for the query; an empty or stop-word-only query matches nothing. */
+  public List<FaqDTO> search(Long companyId, String query, boolean publishedOnly) {
+    CompanyIndex index = companies.get(companyId);
+    if (index == null) {
+      return List.of();
+    }
+    return index.search(SearchTokenizer.tokenize(query), publishedOnly);
+  }
+
+  /** Company of an indexed FAQ, or empty if the FAQ is not in the index. */
+  public Optional<Long> findCompanyId(Long faqId) {
+    return Optional.ofNullable(faqCompanies.get(faqId));
+  }
+
+  // Index writes are deferred to commit, so a rolled-back change never becomes searchable
+
+  public void indexAfterCommit(FaqDTO faq) {
+    afterCommit(
+        () -> {
+          companies.computeIfAbsent(faq.getCompanyId(), id -> new CompanyIndex()).put(faq);
+          faqCompanies.put(faq.getId(), faq.getCompanyId());
+        });
+  }
+
+  public void removeAfterCommit(Long companyId, Long faqId) {
+    afterCommit(
+        () -> {
+          CompanyIndex index = companies.get(companyId);
+          if (index != null) {
+            index.remove(faqId);
+          }
+          faqCompanies.remove(faqId);
+        });
+  }
+
+  /** Apply a change to the stored copy of an FAQ without re-tokenising it, e.g. new counters. */
+  public void updateStoredFaq(Long companyId, Long faqId, Consumer<FaqDTO> change) {
+    afterCommit(
+        () -> {
+          CompanyIndex index = companies.get(companyId);
+          if (index != null) {
+            index.update(faqId, change);
+          }
+        });
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+
+  private static final class Document {
+    private final FaqDTO faq;
+    private final Map<String, Integer> termFrequencies;
+    private final int length;
+
+    private Document(FaqDTO faq, Map<String, Integer> termFrequencies, int length) {
+      this.faq = faq;
+      this.termFrequencies = termFrequencies;
+      this.length = length;
+    }
+  }
+
+  private static final class CompanyIndex {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    // term -> (faq id -> weighted term frequency); sorted so prefixes are a range scan
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private long totalLength;
+
+    void put(FaqDTO faq) {
+      Map<String, Integer> frequencies = new HashMap<>();
+      int length = 0;
+      length += addTerms(frequencies, faq.getQuestion(), QUESTION_WEIGHT);
+      length += addTerms(frequencies, faq.getKeywords(), KEYWORDS_WEIGHT);
+      length += addTerms(frequencies, faq.getAnswer(), ANSWER_WEIGHT);
+
+      lock.writeLock().lock();
+      try {
+        removeLocked(faq.getId());
+        documents.put(faq.getId(), new Document(faq, frequencies, length));
+        totalLength += length;
+        frequencies.forEach(
+            (term, frequency) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(faq.getId(), frequency));
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    void remove(Long faqId) {
+      lock.writeLock().lock();
+      try {
+        removeLocked(faqId);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    void update(Long faqId, Consumer<FaqDTO> change) {
+      lock.writeLock().lock();
+      try {
+        Document document = documents.get(faqId);
+        if (document != null) {
+          change.accept(document.faq);
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    List<FaqDTO> search(List<String> queryTerms, boolean publishedOnly) {
+      if (queryTerms.isEmpty()) {
+        return List.of();
+      }
+
+      lock.readLock().lock();
+      try {
+        int documentCount = documents.size();
+        if (documentCount == 0) {
+          return List.of();
+        }
+        double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+
+        Map<Long, double[]> scores = new HashMap<>();
+        for (String term : expand(queryTerms)) {
+          Map<Long, Integer> posting = postings.get(term);
+          if (posting == null) {
+            continue;
+          }
+          double idf =
+              Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+          posting.forEach(
+              (faqId, frequency) -> {
+                Document document = documents.get(faqId);
+                double norm = K1 * (1 - B + B * document.length / averageLength);
+                double score = idf * frequency * (K1 + 1) / (frequency + norm);
+                scores.computeIfAbsent(faqId, id -> new double[1])[0] += score;
+              });
+        }
+
+        List<Map.Entry<Long, double[]>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(
+            Comparator.comparingDouble((Map.Entry<Long, double[]> entry) -> entry.getValue()[0])
+                .reversed()
+                .thenComparing(entry -> sortOrder(documents.get(entry.getKey()).faq))
+                .thenComparing(Map.Entry::getKey));
+
+        List<FaqDTO> results = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, double[]> entry : ranked) {
+          FaqDTO faq = documents.get(entry.getKey()).faq;
+          if (!publishedOnly || Boolean.TRUE.equals(faq.getIsPublished())) {
+            results.add(faq);
+          }
+        }
+        return results;
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    private Set<String> expand(List<String> queryTerms) {
+      Set<String> terms = new LinkedHashSet<>(queryTerms);
+      String last = queryTerms.get(queryTerms.size() - 1);
+      int added = 0;
+      for (String term : postings.subMap(last, true, last + Character.MAX_VALUE, false).keySet()) {
+        if (added++ >= MAX_PREFIX_EXPANSIONS) {
+          break;
+        }
+        terms.add(term);
+      }
+      return terms;
+    }
+
+    private void removeLocked(Long faqId) {
+      Document existing = documents.remove(faqId);
+      if (existing == null) {
+        return;
+      }
+      totalLength -= existing.length;
+      for (String term : existing.termFrequencies.keySet()) {
+        Map<Long, Integer> posting = postings.get(term);
+        if (posting != null) {
+          posting.remove(faqId);
+          if (posting.isEmpty()) {
+            postings.remove(term);
+          }
+        }
+      }
+    }
+
+    private static int addTerms(Map<String, Integer> frequencies, String text, int weight) {
+      List<String> terms = SearchTokenizer.tokenize(text);
+      for (String term : terms) {
+        frequencies.merge(term, weight, Integer::sum);
+      }
+      return terms.size() * weight;
+    }
+
+    private static int sortOrder(FaqDTO faq) {
+      return Optional.ofNullable(faq.getSortOrder()).orElse(0);
+    }
+  }
+}
@@ -10,8 +10,12 @@ import com.customersupport.repository.CompanyRepository;
 import com.customersupport.repository.FaqRepository;
 import com.customersupport.repository.UserRepository;
 import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -28,6 +32,10 @@ public class FaqService {
 
   @Autowired private UserRepository userRepository;
 
+  @Autowired private FaqSearchIndex faqSearchIndex;
+
+  @Autowired private FaqCounterBuffer faqCounterBuffer;
+
   // Create FAQ
   public FaqDTO createFaq(FaqDTO faqDTO, Long createdById) {
     Company company =
@@ -66,12 +74,14 @@ public class FaqService {
     faq.setUpdatedBy(createdBy);
 
     Faq savedFaq = faqRepository.save(faq);
-    return FaqDTO.fromEntity(savedFaq);
+    FaqDTO savedDTO = FaqDTO.fromEntity(savedFaq);
+    faqSearchIndex.indexAfterCommit(savedDTO);
+    return savedDTO;
   }
 
   // Get FAQ by ID
   public Optional<FaqDTO> getFaqById(Long id) {
-    return faqRepository.findById(id).map(FaqDTO::fromEntity);
+    return faqRepository.findById(id).map(this::toDtoWithPendingCounters);
   }
 
   // Get FAQs by company
@@ -102,24 +112,37 @@ public class FaqService {
         .collect(Collectors.toList());
   }
 
-  // Search FAQs by company
+  // Search FAQs by company, ranked, from the in-memory index
   public List<FaqDTO> searchFaqsByCompany(Long companyId, String keyword) {
-    return faqRepository.searchFaqsByCompany(companyId, keyword).stream()
-        .map(FaqDTO::fromEntity)
-        .collect(Collectors.toList());
+    return faqSearchIndex.search(companyId, keyword, false);
   }
 
-  // Search published FAQs by company
+  // Search published FAQs by company, ranked, from the in-memory index
   public List<FaqDTO> searchPublishedFaqsByCompany(Long companyId, String keyword) {
-    return faqRepository.searchPublishedFaqsByCompany(companyId, keyword).stream()
-        .map(FaqDTO::fromEntity)
-        .collect(Collectors.toList());
+    return faqSearchIndex.search(companyId, keyword, true);
   }
 
   // Get most viewed FAQs
   public List<FaqDTO> getMostViewedFaqsByCompany(Long companyId, int limit) {
-    return faqRepository.findMostViewedFaqsByCompany(companyId, limit).stream()
-        .map(FaqDTO::fromEntity)
+    // Only an FAQ with unflushed views can overtake the stored top N, so rank those together
+    List<Faq> candidates =
+        new ArrayList<>(faqRepository.findMostViewedFaqsByCompany(companyId, limit));
+    Set<Long> seen = new HashSet<>();
+    candidates.forEach(faq -> seen.add(faq.getId()));
+    List<Long> missing = new ArrayList<>();
+    for (Long faqId : faqCounterBuffer.pendingFaqIds(companyId)) {
+      if (!seen.contains(faqId)) {
+        missing.add(faqId);
+      }
+    }
+    if (!missing.isEmpty()) {
+      candidates.addAll(faqRepository.findAllById(missing));
+    }
+
+    return candidates.stream()
+        .map(this::toDtoWithPendingCounters)
+        .sorted(Comparator.comparingInt((FaqDTO dto) -> orZero(dto.getViewCount())).reversed())
+        .limit(limit)
         .collect(Collectors.toList());
   }
 
@@ -173,7 +196,9 @@ public class FaqService {
     faq.setUpdatedBy(updatedBy);
 
     Faq updatedFaq = faqRepository.save(faq);
-    return FaqDTO.fromEntity(updatedFaq);
+    FaqDTO updatedDTO = toDtoWithPendingCounters(updatedFaq);
+    faqSearchIndex.indexAfterCommit(updatedDTO);
+    return updatedDTO;
   }
 
   // Delete FAQ
@@ -181,29 +206,71 @@ public class FaqService {
     Faq faq = faqRepository.findById(id).orElseThrow(() -> new RuntimeException("FAQ not found"));
 
     faqRepository.delete(faq);
+    faqSearchIndex.removeAfterCommit(faq.getCompany().getId(), id);
+    faqCounterBuffer.discard(id);
   }
 
+  // Clicks are buffered and written in batches by FaqCounterBuffer instead of a load-and-save
+
   // Increment view count
   public void incrementViewCount(Long id) {
-    Faq faq = faqRepository.findById(id).orElseThrow(() -> new RuntimeException("FAQ not found"));
-
-    faq.incrementViewCount();
-    faqRepository.save(faq);
+    Long companyId = findCompanyId(id);
+    faqCounterBuffer.recordView(companyId, id);
+    faqSearchIndex.updateStoredFaq(
+        companyId, id, dto -> dto.setViewCount(orZero(dto.getViewCount()) + 1));
   }
 
   // Rate FAQ as helpful
   public void rateFaqAsHelpful(Long id) {
-    Faq faq = faqRepository.findById(id).orElseThrow(() -> new RuntimeException("FAQ not found"));
-
-    faq.setHelpfulCount(faq.getHelpfulCount() + 1);
-    faqRepository.save(faq);
+    Long companyId = findCompanyId(id);
+    faqCounterBuffer.recordHelpful(companyId, id);
+    faqSearchIndex.updateStoredFaq(
+        companyId,
+        id,
+        dto -> setVotes(dto, orZero(dto.getHelpfulCount()) + 1, orZero(dto.getNotHelpfulCount())));
   }
 
   // Rate FAQ as not helpful
   public void rateFaqAsNotHelpful(Long id) {
-    Faq faq = faqRepository.findById(id).orElseThrow(() -> new RuntimeException("FAQ not found"));
+    Long companyId = findCompanyId(id);
+    faqCounterBuffer.recordNotHelpful(companyId, id);
+    faqSearchIndex.updateStoredFaq(
+        companyId,
+        id,
+        dto -> setVotes(dto, orZero(dto.getHelpfulCount()), orZero(dto.getNotHelpfulCount()) + 1));
+  }
+
+  // The search index knows every FAQ's company; fall back to the database for one it has not seen
+  private Long findCompanyId(Long faqId) {
+    return faqSearchIndex
+        .findCompanyId(faqId)
+        .or(() -> faqRepository.findCompanyIdById(faqId))
+        .orElseThrow(() -> new RuntimeException("FAQ not found"));
+  }
+
+  // Stored counters plus the clicks still waiting in the buffer
+  private FaqDTO toDtoWithPendingCounters(Faq faq) {
+    FaqDTO dto = FaqDTO.fromEntity(faq);
+    FaqCounterBuffer.Pending pending = faqCounterBuffer.pending(faq.getId());
+    if (!pending.isEmpty()) {
+      dto.setViewCount(orZero(dto.getViewCount()) + (int) pending.views());
+      setVotes(
+          dto,
+          orZero(dto.getHelpfulCount()) + (int) pending.helpful(),
+          orZero(dto.getNotHelpfulCount()) + (int) pending.notHelpful());
+    }
+    return dto;
+  }
+
+  private static void setVotes(FaqDTO dto, int helpfulCount, int notHelpfulCount) {
+    int totalVotes = helpfulCount + notHelpfulCount;
+    dto.setHelpfulCount(helpfulCount);
+    dto.setNotHelpfulCount(notHelpfulCount);
+    dto.setTotalVotes(totalVotes);
+    dto.setHelpfulnessScore(totalVotes == 0 ? 0.0 : ((double) helpfulCount / totalVotes) * 100);
+  }
 
-    faq.setNotHelpfulCount(faq.getNotHelpfulCount() + 1);
-    faqRepository.save(faq);
+  private static int orZero(Integer value) {
+    return value == null ? 0 : value;
   }
 }
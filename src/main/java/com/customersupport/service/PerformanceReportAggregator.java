@@ -0,0 +1,450 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.AgentDTO;
+import com.customersupport.dto.CompanyPerformanceReportDTO;
+import com.customersupport.dto.CustomerDTO;
+import com.customersupport.dto.LatencyReportDTO;
+import com.customersupport.dto.ReviewDTO;
+import com.customersupport.dto.TicketReportRow;
+import com.customersupport.entity.Ticket;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Builds every section of the company performance report in a single pass. Tickets are fed one
+ * row at a time from a database cursor and folded into primitive counters keyed by agent, month,
+ * category, status and priority, so memory grows with the number of groups rather than the number
+ * of tickets. Not thread-safe; create one per report.
+ */
+public class PerformanceReportAggregator {
+
+  private static final Ticket.Status[] STATUSES = Ticket.Status.values();
+  private static final Ticket.Priority[] PRIORITIES = Ticket.Priority.values();
+  private static final int RECENT_REVIEW_LIMIT = 6;
+  private static final int TOP_CATEGORY_LIMIT = 5;
+
+  private final LocalDateTime thirtyDaysAgo;
+  private final LocalDate firstOfMonth;
+  private final List<AgentDTO> agents;
+
+  // Ticket counters
+  private long totalTickets;
+  private long ticketsLast30Days;
+  private final long[] statusCounts = new long[STATUSES.length];
+  private final long[] priorityCounts = new long[PRIORITIES.length];
+  private final ResolutionCounter resolution = new ResolutionCounter();
+  private final Map<Long, AgentCounter> agentCounters = new HashMap<>();
+  private final TreeMap<YearMonth, MonthCounter> monthCounters = new TreeMap<>();
+  private final Map<String, long[]> categoryCounts = new HashMap<>();
+  private final Set<Long> customersServed = new HashSet<>();
+
+  // Customer counters
+  private long totalCustomers;
+  private long activeCustomers;
+  private long newCustomersThisMonth;
+  private double customerSatisfactionSum;
+  private long customerSatisfactionCount;
+  private final Map<String, long[]> contactPreferences = new HashMap<>();
+  private final Map<String, long[]> customerTypes = new HashMap<>();
+
+  // Review counters
+  private long totalReviews;
+  private long ratingSum;
+  private long ratingCount;
+  private long recommendCount;
+  private final long[] ratingDistribution = new long[6];
+  private final List<ReviewDTO> recentReviews = new ArrayList<>(RECENT_REVIEW_LIMIT + 1);
+
+  // Latency percentiles, from the live histograms rather than the ticket scan
+  private LatencyReportDTO latency = LatencyReportDTO.builder().agents(List.of()).build();
+
+  public PerformanceReportAggregator(List<AgentDTO> agents, LocalDateTime now) {
+    this.agents = agents;
+    this.thirtyDaysAgo = now.minusDays(30);
+    this.firstOfMonth = now.toLocalDate().withDayOfMonth(1);
+    for (AgentDTO agent : agents) {
+      agentCounters.put(agent.getId(), new AgentCounter());
+    }
+  }
+
+  public void acceptTicket(TicketReportRow ticket) {
+    totalTickets++;
+    Ticket.Status status = ticket.getStatus();
+    boolean active = status != null && isActiveStatus(status);
+    boolean closed = status != null && isClosedStatus(status);
+    boolean escalated = status == Ticket.Status.PENDING_CUSTOMER;
+
+    if (status != null) {
+      statusCounts[status.ordinal()]++;
+    }
+    if (ticket.getPriority() != null) {
+      priorityCounts[ticket.getPriority().ordinal()]++;
+    }
+    if (ticket.getCategoryName() != null) {
+      categoryCounts.computeIfAbsent(ticket.getCategoryName(), name -> new long[1])[0]++;
+    }
+    if (ticket.getCustomerId() != null) {
+      customersServed.add(ticket.getCustomerId());
+    }
+
+    boolean hasResolution = ticket.getCreatedAt() != null && ticket.getClosedAt() != null;
+    double resolutionHours = 0.0;
+    if (hasResolution) {
+      resolutionHours = durationInHours(ticket.getCreatedAt(), ticket.getClosedAt());
+      resolution.add(resolutionHours);
+    }
+
+    if (ticket.getCreatedAt() != null) {
+      if (ticket.getCreatedAt().isAfter(thirtyDaysAgo)) {
+        ticketsLast30Days++;
+      }
+      MonthCounter month =
+          monthCounters.computeIfAbsent(
+              YearMonth.from(ticket.getCreatedAt()), key -> new MonthCounter());
+      month.total++;
+      if (closed) {
+        month.resolved++;
+      }
+      if (escalated) {
+        month.escalated++;
+      }
+    }
+
+    // Tickets assigned to agents outside the company's agent list are not reported per agent
+    AgentCounter agent =
+        ticket.getAgentId() != null ? agentCounters.get(ticket.getAgentId()) : null;
+    if (agent != null) {
+      agent.assigned++;
+      if (active) {
+        agent.active++;
+      }
+      if (closed) {
+        agent.resolved++;
+      }
+      if (hasResolution) {
+        agent.resolution.add(resolutionHours);
+      }
+    }
+  }
+
+  public void acceptCustomer(CustomerDTO customer) {
+    totalCustomers++;
+    if (Optional.ofNullable(customer.getTotalTickets()).orElse(0) > 0) {
+      activeCustomers++;
+    }
+    if (customer.getCreatedAt() != null
+        && !customer.getCreatedAt().toLocalDate().isBefore(firstOfMonth)) {
+      newCustomersThisMonth++;
+    }
+    if (customer.getSatisfactionScore() != null) {
+      customerSatisfactionSum += customer.getSatisfactionScore().doubleValue();
+      customerSatisfactionCount++;
+    }
+    if (customer.getPreferredContactMethod() != null) {
+      contactPreferences.computeIfAbsent(
+          customer.getPreferredContactMethod().name(), name -> new long[1])[0]++;
+    }
+    if (customer.getCustomerType() != null) {
+      customerTypes.computeIfAbsent(customer.getCustomerType().name(), name -> new long[1])[0]++;
+    }
+  }
+
+  public void acceptReview(ReviewDTO review) {
+    totalReviews++;
+    Integer rating = review.getRating();
+    if (rating != null) {
+      ratingSum += rating;
+      ratingCount++;
+      if (rating >= 1 && rating <= 5) {
+        ratingDistribution[rating]++;
+      }
+    }
+    if (Boolean.TRUE.equals(review.getWouldRecommend())) {
+      recommendCount++;
+    }
+    offerRecentReview(review);
+  }
+
+  public void acceptLatency(LatencyReportDTO latency) {
+    this.latency = latency;
+  }
+
+  public CompanyPerformanceReportDTO.Summary summary() {
+    long openTickets = 0;
+    long resolvedTickets = 0;
+    for (Ticket.Status status : STATUSES) {
+      if (isActiveStatus(status)) {
+        openTickets += statusCounts[status.ordinal()];
+      }
+      if (isClosedStatus(status)) {
+        resolvedTickets += statusCounts[status.ordinal()];
+      }
+    }
+
+    long availableAgents =
+        agents.stream().filter(agent -> Boolean.TRUE.equals(agent.getIsAvailable())).count();
+
+    return CompanyPerformanceReportDTO.Summary.builder()
+        .totalTickets(totalTickets)
+        .openTickets(openTickets)
+        .resolvedTickets(resolvedTickets)
+        .escalatedTickets(statusCounts[Ticket.Status.PENDING_CUSTOMER.ordinal()])
+        .averageResolutionHours(round(resolution.average()))
+        .firstResponseLatency(latency.getFirstResponse())
+        .resolutionLatency(latency.getResolution())
+        .ticketsLast30Days(ticketsLast30Days)
+        .customerSatisfactionScore(round(averageRating()))
+        .activeAgents(agents.size())
+        .availableAgents(availableAgents)
+        .customersServed(customersServed.size())
+        .build();
+  }
+
+  public List<CompanyPerformanceReportDTO.AgentPerformance> agentPerformance() {
+    Map<Long, LatencyReportDTO.AgentLatency> agentLatency = new HashMap<>();
+    for (LatencyReportDTO.AgentLatency entry : latency.getAgents()) {
+      agentLatency.put(entry.getAgentId(), entry);
+    }
+    return agents.stream()
+        .map(
+            agent -> {
+              AgentCounter counter = agentCounters.get(agent.getId());
+              Optional<LatencyReportDTO.AgentLatency> latencies =
+                  Optional.ofNullable(agentLatency.get(agent.getId()));
+              double satisfaction =
+                  Optional.ofNullable(agent.getCustomerSatisfactionRating())
+                      .map(BigDecimal::doubleValue)
+                      .orElse(0.0);
+
+              return CompanyPerformanceReportDTO.AgentPerformance.builder()
+                  .agentId(agent.getId())
+                  .agentName(buildAgentName(agent))
+                  .department(agent.getDepartment())
+                  .specialization(agent.getSpecialization())
+                  .available(Boolean.TRUE.equals(agent.getIsAvailable()))
+                  .maxCapacity(Optional.ofNullable(agent.getMaxConcurrentTickets()).orElse(0))
+                  .currentLoad(Optional.ofNullable(agent.getCurrentTicketCount()).orElse(0))
+                  .assignedTickets(counter.assigned)
+                  .activeTickets(counter.active)
+                  .resolvedTickets(counter.resolved)
+                  .averageResolutionHours(round(counter.resolution.average()))
+                  .firstResponseLatency(
+                      latencies.map(LatencyReportDTO.AgentLatency::getFirstResponse).orElse(null))
+                  .resolutionLatency(
+                      latencies.map(LatencyReportDTO.AgentLatency::getResolution).orElse(null))
+                  .satisfactionScore(round(satisfaction))
+                  .totalTicketsHandled(
+                      Optional.ofNullable(agent.getTotalTicketsHandled()).orElse(0))
+                  .build();
+            })
+        .sorted(
+            Comparator.comparingLong(
+                    CompanyPerformanceReportDTO.AgentPerformance::getResolvedTickets)
+                .reversed())
+        .collect(Collectors.toList());
+  }
+
+  public CompanyPerformanceReportDTO.TicketInsights ticketInsights() {
+    Map<String, Long> statusBreakdown = new LinkedHashMap<>();
+    for (Ticket.Status status : STATUSES) {
+      if (statusCounts[status.ordinal()] > 0) {
+        statusBreakdown.put(status.name(), statusCounts[status.ordinal()]);
+      }
+    }
+
+    Map<String, Long> priorityBreakdown = new LinkedHashMap<>();
+    for (Ticket.Priority priority : PRIORITIES) {
+      if (priorityCounts[priority.ordinal()] > 0) {
+        priorityBreakdown.put(priority.name(), priorityCounts[priority.ordinal()]);
+      }
+    }
+
+    List<CompanyPerformanceReportDTO.CategoryInsight> topCategories =
+        categoryCounts.entrySet().stream()
+            .sorted(
+                Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[0])
+                    .reversed())
+            .limit(TOP_CATEGORY_LIMIT)
+            .map(
+                entry ->
+                    CompanyPerformanceReportDTO.CategoryInsight.builder()
+                        .name(entry.getKey())
+                        .count(entry.getValue()[0])
+                        .build())
+            .collect(Collectors.toList());
+
+    List<CompanyPerformanceReportDTO.TicketTrendPoint> monthlyTrends = new ArrayList<>();
+    monthCounters.forEach(
+        (month, counter) ->
+            monthlyTrends.add(
+                CompanyPerformanceReportDTO.TicketTrendPoint.builder()
+                    .label(month.toString())
+                    .total(counter.total)
+                    .resolved(counter.resolved)
+                    .escalated(counter.escalated)
+                    .build()));
+
+    return CompanyPerformanceReportDTO.TicketInsights.builder()
+        .statusBreakdown(orderByValueDesc(statusBreakdown))
+        .priorityBreakdown(orderByValueDesc(priorityBreakdown))
+        .topCategories(topCategories)
+        .monthlyTrends(monthlyTrends)
+        .build();
+  }
+
+  public CompanyPerformanceReportDTO.CustomerInsights customerInsights() {
+    double averageSatisfaction =
+        customerSatisfactionCount > 0 ? customerSatisfactionSum / customerSatisfactionCount : 0.0;
+
+    return CompanyPerformanceReportDTO.CustomerInsights.builder()
+        .totalCustomers(totalCustomers)
+        .activeCustomers(activeCustomers)
+        .newCustomersThisMonth(newCustomersThisMonth)
+        .averageSatisfaction(round(averageSatisfaction))
+        .contactPreferences(orderByValueDesc(toCountMap(contactPreferences)))
+        .customerTypes(orderByValueDesc(toCountMap(customerTypes)))
+        .build();
+  }
+
+  public CompanyPerformanceReportDTO.ReviewInsights reviewInsights() {
+    double recommendationRate = totalReviews > 0 ? (recommendCount * 100.0) / totalReviews : 0.0;
+
+    Map<Integer, Long> distribution = new LinkedHashMap<>();
+    for (int rating = 5; rating >= 1; rating--) {
+      distribution.put(rating, ratingDistribution[rating]);
+    }
+
+    List<CompanyPerformanceReportDTO.ReviewSummary> recent =
+        recentReviews.stream()
+            .map(
+                review ->
+                    CompanyPerformanceReportDTO.ReviewSummary.builder()
+                        .reviewId(review.getId())
+                        .ticketId(review.getTicketId())
+                        .agentName(review.getAgentName())
+                        .customerName(review.getCustomerName())
+                        .rating(review.getRating())
+                        .feedback(review.getFeedback())
+                        .createdAt(review.getCreatedAt())
+                        .build())
+            .collect(Collectors.toList());
+
+    return CompanyPerformanceReportDTO.ReviewInsights.builder()
+        .totalReviews(totalReviews)
+        .averageRating(round(averageRating()))
+        .recommendationRate(round(recommendationRate))
+        .ratingDistribution(distribution)
+        .recentReviews(recent)
+        .build();
+  }
+
+  // Keeps the newest reviews (nulls last) in a small sorted list instead of sorting all reviews
+  private void offerRecentReview(ReviewDTO review) {
+    Comparator<ReviewDTO> newestFirst =
+        Comparator.comparing(
+            ReviewDTO::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+    int index = recentReviews.size();
+    while (index > 0 && newestFirst.compare(review, recentReviews.get(index - 1)) < 0) {
+      index--;
+    }
+    if (index < RECENT_REVIEW_LIMIT) {
+      recentReviews.add(index, review);
+      if (recentReviews.size() > RECENT_REVIEW_LIMIT) {
+        recentReviews.remove(recentReviews.size() - 1);
+      }
+    }
+  }
+
+  private double averageRating() {
+    return ratingCount > 0 ? (double) ratingSum / ratingCount : 0.0;
+  }
+
+  static boolean isActiveStatus(Ticket.Status status) {
+    return status == Ticket.Status.OPEN
+        || status == Ticket.Status.IN_PROGRESS
+        || status == Ticket.Status.PENDING_CUSTOMER;
+  }
+
+  static boolean isClosedStatus(Ticket.Status status) {
+    return status == Ticket.Status.RESOLVED
+        || status == Ticket.Status.CLOSED
+        || status == Ticket.Status.CANCELLED;
+  }
+
+  private static double durationInHours(LocalDateTime start, LocalDateTime end) {
+    return Duration.between(start, end).toMinutes() / 60.0;
+  }
+
+  private static double round(double value) {
+    return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+  }
+
+  private static String buildAgentName(AgentDTO agent) {
+    if (agent.getFullName() != null) {
+      return agent.getFullName();
+    }
+    String first = Optional.ofNullable(agent.getFirstName()).orElse("");
+    String last = Optional.ofNullable(agent.getLastName()).orElse("");
+    String name = (first + " " + last).trim();
+    if (!name.isEmpty()) {
+      return name;
+    }
+    return Optional.ofNullable(agent.getEmail()).orElse("Agent " + agent.getId());
+  }
+
+  private static Map<String, Long> toCountMap(Map<String, long[]> counts) {
+    Map<String, Long> result = new HashMap<>();
+    counts.forEach((key, count) -> result.put(key, count[0]));
+    return result;
+  }
+
+  private static <K> Map<K, Long> orderByValueDesc(Map<K, Long> source) {
+    return source.entrySet().stream()
+        .sorted(Map.Entry.<K, Long>comparingByValue().reversed())
+        .collect(
+            Collectors.toMap(
+                Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+  }
+
+  private static final class ResolutionCounter {
+    private double hoursSum;
+    private long count;
+
+    void add(double hours) {
+      hoursSum += hours;
+      count++;
+    }
+
+    double average() {
+      return count > 0 ? hoursSum / count : 0.0;
+    }
+  }
+
+  private static final class AgentCounter {
+    private long assigned;
+    private long active;
+    private long resolved;
+    private final ResolutionCounter resolution = new ResolutionCounter();
+  }
+
+  private static final class MonthCounter {
+    private long total;
+    private long resolved;
+    private long escalated;
+  }
+}
@@ -0,0 +1,161 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.PrincipalSnapshot;
+import com.customersupport.repository.UserRepository;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded, TTL-based cache of the user data the JWT filter checks on every request (status, role,
+ * company), keyed by user id. Services that change a user's status call {@link #invalidate} or
+ * {@link #invalidateCompany}; eviction is repeated after commit, and every eviction bumps the
+ * user's invalidation generation. A miss only stores what it loaded if the generation is unchanged
+ * since before the load, so a request that read the old row while the change was committing cannot
+ * leave a stale entry behind.
+ */
+@Service
+public class PrincipalCacheService {
+
+  private final UserRepository userRepository;
+  private final int maxEntries;
+  private final long ttlNanos;
+
+  // Access-ordered, so the eldest entry is the least recently used one
+  private final LinkedHashMap<Long, Entry> entries;
+
+  // Invalidation generations, guarded by the entries lock: one per invalidated user, plus one for
+  // company-wide and full invalidations. Dropping a user's counter also counts as a change.
+  private final Map<Long, Long> userGenerations = new HashMap<>();
+  private long globalGeneration;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public PrincipalCacheService(
+      UserRepository userRepository,
+      @Value("${security.principal-cache.max-entries:10000}") int maxEntries,
+      @Value("${security.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+    this.userRepository = userRepository;
+    this.maxEntries = Math.max(1, maxEntries);
+    this.ttlNanos = Math.max(0, ttlSeconds) * 1_000_000_000L;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() > PrincipalCacheService.this.maxEntries) {
+              evictions.increment();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  public Optional<PrincipalSnapshot> getPrincipal(Long userId) {
+    long now = System.nanoTime();
+    long loadGlobalGeneration;
+    Long loadUserGeneration;
+    synchronized (entries) {
+      Entry entry = entries.get(userId);
+      if (entry != null && now - entry.loadedAt < ttlNanos) {
+        hits.increment();
+        return Optional.of(entry.principal);
+      }
+      loadGlobalGeneration = globalGeneration;
+      loadUserGeneration = userGenerations.get(userId);
+    }
+
+    misses.increment();
+    Optional<PrincipalSnapshot> loaded = userRepository.findPrincipalSnapshot(userId);
+    synchronized (entries) {
+      boolean unchanged =
+          globalGeneration == loadGlobalGeneration
+              && Objects.equals(userGenerations.get(userId), loadUserGeneration);
+      if (loaded.isPresent() && ttlNanos > 0 && unchanged) {
+        entries.put(userId, new Entry(loaded.get(), now));
+      } else {
+        entries.remove(userId);
+      }
+    }
+    return loaded;
+  }
+
+  public void invalidate(Long userId) {
+    remove(userId);
+    afterCommit(() -> remove(userId));
+  }
+
+  public void invalidateCompany(Long companyId) {
+    removeCompany(companyId);
+    afterCommit(() -> removeCompany(companyId));
+  }
+
+  public void invalidateAll() {
+    synchronized (entries) {
+      globalGeneration++;
+      entries.clear();
+    }
+  }
+
+  public Map<String, Object> getStats() {
+    long hitCount = hits.sum();
+    long missCount = misses.sum();
+    long lookups = hitCount + missCount;
+    int size;
+    synchronized (entries) {
+      size = entries.size();
+    }
+
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("size", size);
+    stats.put("maxEntries", maxEntries);
+    stats.put("ttlSeconds", ttlNanos / 1_000_000_000L);
+    stats.put("hits", hitCount);
+    stats.put("misses", missCount);
+    stats.put("evictions", evictions.sum());
+    stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+    return stats;
+  }
+
+  private void remove(Long userId) {
+    synchronized (entries) {
+      userGenerations.merge(userId, 1L, Long::sum);
+      if (userGenerations.size() > maxEntries) {
+        // Keep the counters bounded; in-flight loads then see a global change and skip caching
+        userGenerations.clear();
+        globalGeneration++;
+      }
+      entries.remove(userId);
+    }
+  }
+
+  private void removeCompany(Long companyId) {
+    synchronized (entries) {
+      globalGeneration++;
+      entries.values().removeIf(entry -> companyId.equals(entry.principal.getCompanyId()));
+    }
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    }
+  }
+
+  private record Entry(PrincipalSnapshot principal, long loadedAt) {}
+}
@@ -0,0 +1,256 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.ReportJobDTO;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs report exports off the request threads. Jobs go to a bounded worker pool, write their
+ * output to a local file store and are downloaded from disk; finished files are removed after a
+ * TTL. A request identical to one submitted within the dedup window gets the existing job back.
+ * Job state lives in memory, so jobs do not survive a restart and each node serves its own.
+ */
+@Service
+public class ReportJobService {
+
+  private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+  public static final String PERFORMANCE_PDF = "PERFORMANCE_PDF";
+
+  public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+  }
+
+  private final CompanyPerformanceService companyPerformanceService;
+  private final ThreadPoolExecutor executor;
+  private final Path storeDir;
+  private final Duration ttl;
+  private final Duration dedupWindow;
+
+  private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+  private final Map<String, ReportJob> latestJobByKey = new ConcurrentHashMap<>();
+
+  public ReportJobService(
+      CompanyPerformanceService companyPerformanceService,
+      @Value("${report.jobs.workers:2}") int workers,
+      @Value("${report.jobs.queue-capacity:20}") int queueCapacity,
+      @Value("${report.jobs.dir:./reports}") String storeDir,
+      @Value("${report.jobs.ttl-minutes:60}") long ttlMinutes,
+      @Value("${report.jobs.dedup-window-seconds:120}") long dedupWindowSeconds) {
+    this.companyPerformanceService = companyPerformanceService;
+    this.storeDir = Paths.get(storeDir).toAbsolutePath().normalize();
+    this.ttl = Duration.ofMinutes(ttlMinutes);
+    this.dedupWindow = Duration.ofSeconds(dedupWindowSeconds);
+
+    int poolSize = Math.max(1, workers);
+    this.executor =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            namedThreads("report-worker-"),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    try {
+      Files.createDirectories(this.storeDir);
+      // Files from a previous run have no job record left, so nothing can download them
+      try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(this.storeDir, "*.pdf*")) {
+        for (Path leftover : leftovers) {
+          Files.deleteIfExists(leftover);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to prepare report store " + this.storeDir, e);
+    }
+  }
+
+  public ReportJobDTO submitPerformancePdf(Long companyId) {
+    return toDTO(submit(PERFORMANCE_PDF, companyId));
+  }
+
+  public Optional<ReportJobDTO> getJob(String jobId, Long companyId) {
+    return findJob(jobId, companyId).map(this::toDTO);
+  }
+
+  /** The finished report file, or empty if the job is unknown, not finished or expired. */
+  public Optional<ReportFile> getReportFile(String jobId, Long companyId) {
+    return findJob(jobId, companyId)
+        .filter(job -> job.status == JobStatus.COMPLETED && Files.exists(job.file))
+        .map(job -> new ReportFile(job.file, job.filename, job.sizeBytes));
+  }
+
+  @Scheduled(fixedDelayString = "${report.jobs.purge-interval-ms:300000}")
+  public void purgeExpiredJobs() {
+    LocalDateTime now = LocalDateTime.now();
+    jobs.values().removeIf(
+        job -> {
+          if (job.expiresAt == null || job.expiresAt.isAfter(now)) {
+            return false;
+          }
+          latestJobByKey.remove(job.key, job);
+          deleteQuietly(job.file);
+          return true;
+        });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private synchronized ReportJob submit(String reportType, Long companyId) {
+    String key = reportType + ":" + companyId;
+    LocalDateTime now = LocalDateTime.now();
+
+    ReportJob existing = latestJobByKey.get(key);
+    if (existing != null && isReusable(existing, now)) {
+      return existing;
+    }
+
+    String jobId = UUID.randomUUID().toString();
+    ReportJob job =
+        new ReportJob(jobId, key, reportType, companyId, storeDir.resolve(jobId + ".pdf"));
+    job.submittedAt = now;
+    jobs.put(jobId, job);
+
+    try {
+      executor.execute(() -> run(job));
+    } catch (RejectedExecutionException e) {
+      jobs.remove(jobId);
+      throw new RuntimeException("Report queue is full, please try again later");
+    }
+    latestJobByKey.put(key, job);
+    return job;
+  }
+
+  private boolean isReusable(ReportJob job, LocalDateTime now) {
+    switch (job.status) {
+      case QUEUED:
+      case RUNNING:
+        return true;
+      case COMPLETED:
+        return job.completedAt.plus(dedupWindow).isAfter(now) && Files.exists(job.file);
+      default:
+        return false;
+    }
+  }
+
+  private void run(ReportJob job) {
+    job.startedAt = LocalDateTime.now();
+    job.status = JobStatus.RUNNING;
+    Path partial = job.file.resolveSibling(job.file.getFileName() + ".part");
+    JobStatus outcome;
+    try {
+      String filename;
+      try (OutputStream out = Files.newOutputStream(partial)) {
+        filename = companyPerformanceService.writePerformancePdf(job.companyId, out);
+      }
+      Files.move(partial, job.file, StandardCopyOption.REPLACE_EXISTING);
+      job.filename = filename;
+      job.sizeBytes = Files.size(job.file);
+      outcome = JobStatus.COMPLETED;
+    } catch (Exception e) {
+      log.warn("Report job {} for company {} failed: {}", job.id, job.companyId, e.getMessage());
+      deleteQuietly(partial);
+      job.error = e.getMessage();
+      outcome = JobStatus.FAILED;
+    }
+    job.completedAt = LocalDateTime.now();
+    job.expiresAt = job.completedAt.plus(ttl);
+    // Published last, so readers that see a final status also see the fields above
+    job.status = outcome;
+  }
+
+  private Optional<ReportJob> findJob(String jobId, Long companyId) {
+    return Optional.ofNullable(jobs.get(jobId)).filter(job -> job.companyId.equals(companyId));
+  }
+
+  private ReportJobDTO toDTO(ReportJob job) {
+    return ReportJobDTO.builder()
+        .jobId(job.id)
+        .reportType(job.reportType)
+        .companyId(job.companyId)
+        .status(job.status.name())
+        .submittedAt(job.submittedAt)
+        .startedAt(job.startedAt)
+        .completedAt(job.completedAt)
+        .expiresAt(job.expiresAt)
+        .filename(job.filename)
+        .sizeBytes(job.sizeBytes)
+        .error(job.error)
+        .build();
+  }
+
+  private void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.warn("Unable to delete report file {}: {}", path, e.getMessage());
+    }
+  }
+
+  private static ThreadFactory namedThreads(String prefix) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  public record ReportFile(Path path, String filename, long sizeBytes) {}
+
+  // Mutable job state; fields are written by one worker and read by request threads
+  private static final class ReportJob {
+    private final String id;
+    private final String key;
+    private final String reportType;
+    private final Long companyId;
+    private final Path file;
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile LocalDateTime submittedAt;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+    private volatile LocalDateTime expiresAt;
+    private volatile String filename;
+    private volatile Long sizeBytes;
+    private volatile String error;
+
+    private ReportJob(String id, String key, String reportType, Long companyId, Path file) {
+      this.id = id;
+      this.key = key;
+      this.reportType = reportType;
+      this.companyId = companyId;
+      this.file = file;
+    }
+  }
+}
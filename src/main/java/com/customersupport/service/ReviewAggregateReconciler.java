@@ -0,0 +1,143 @@
+package com.customersupport.service;
+
+import com.customersupport.entity.Agent;
+import com.customersupport.entity.Company;
+import com.customersupport.repository.AgentRepository;
+import com.customersupport.repository.CompanyRepository;
+import com.customersupport.repository.ReviewRepository;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks the running review totals on companies and agents against the reviews themselves and
+ * repairs any that have drifted, e.g. after reviews were removed by a cascade rather than through
+ * ReviewService. Also fills in the totals for reviews written before they existed.
+ *
+ * <p>Each company is checked in its own transaction holding the company row lock, which review
+ * writers need before they touch the totals, so a review committed mid-check is never lost.
+ */
+@Service
+public class ReviewAggregateReconciler {
+
+  private static final Logger log = LoggerFactory.getLogger(ReviewAggregateReconciler.class);
+
+  private final CompanyRepository companyRepository;
+  private final AgentRepository agentRepository;
+  private final ReviewRepository reviewRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+
+  private final LongAdder runs = new LongAdder();
+  private final LongAdder companiesChecked = new LongAdder();
+  private final LongAdder companiesRepaired = new LongAdder();
+  private final LongAdder agentsRepaired = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private volatile long lastRunAt;
+
+  public ReviewAggregateReconciler(
+      CompanyRepository companyRepository,
+      AgentRepository agentRepository,
+      ReviewRepository reviewRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${reviews.reconcile.enabled:true}") boolean enabled) {
+    this.companyRepository = companyRepository;
+    this.agentRepository = agentRepository;
+    this.reviewRepository = reviewRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+  }
+
+  @Scheduled(
+      initialDelayString = "${reviews.reconcile.initial-delay-ms:60000}",
+      fixedDelayString = "${reviews.reconcile.interval-ms:21600000}")
+  public synchronized void reconcile() {
+    if (!enabled) {
+      return;
+    }
+    for (Long companyId : companyRepository.findAllIds()) {
+      try {
+        transactionTemplate.executeWithoutResult(status -> reconcileCompany(companyId));
+        companiesChecked.increment();
+      } catch (DataAccessException | TransactionException e) {
+        log.warn("Review totals for company {} could not be reconciled", companyId, e);
+        failures.increment();
+      }
+    }
+    runs.increment();
+    lastRunAt = System.currentTimeMillis();
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("enabled", enabled);
+    stats.put("runs", runs.sum());
+    stats.put("companiesChecked", companiesChecked.sum());
+    stats.put("companiesRepaired", companiesRepaired.sum());
+    stats.put("agentsRepaired", agentsRepaired.sum());
+    stats.put("failures", failures.sum());
+    stats.put("lastRunAt", lastRunAt);
+    return stats;
+  }
+
+  private void reconcileCompany(Long companyId) {
+    // Lock first, so the counts below include every review whose writer got the lock before us
+    Company company = companyRepository.findForUpdate(companyId).orElse(null);
+    if (company == null) {
+      return;
+    }
+
+    Object[] companyTotals = reviewRepository.sumRatingsByCompany(companyId).get(0);
+    long reviews = ((Number) companyTotals[0]).longValue();
+    long rating = ((Number) companyTotals[1]).longValue();
+    if (!matches(company.getReviewCount(), reviews) || !matches(company.getRatingTotal(), rating)) {
+      log.info(
+          "Review totals for company {} were {}/{}, reset to {}/{}",
+          companyId,
+          company.getReviewCount(),
+          company.getRatingTotal(),
+          reviews,
+          rating);
+      companyRepository.setReviewTotals(companyId, reviews, rating);
+      companiesRepaired.increment();
+    }
+
+    Map<Long, long[]> agentTotals = new HashMap<>();
+    for (Object[] row : reviewRepository.sumRatingsByAgentForCompany(companyId)) {
+      agentTotals.put(
+          (Long) row[0],
+          new long[] {((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+    }
+    List<Agent> agents = agentRepository.findByCompanyId(companyId);
+    for (Agent agent : agents) {
+      long[] totals = agentTotals.getOrDefault(agent.getId(), new long[2]);
+      if (!matches(agent.getReviewCount(), totals[0])
+          || !matches(agent.getRatingTotal(), totals[1])) {
+        log.info(
+            "Review totals for agent {} were {}/{}, reset to {}/{}",
+            agent.getId(),
+            agent.getReviewCount(),
+            agent.getRatingTotal(),
+            totals[0],
+            totals[1]);
+        agentRepository.setReviewTotals(agent.getId(), totals[0], totals[1]);
+        agentsRepaired.increment();
+      }
+    }
+  }
+
+  private static boolean matches(Long stored, long actual) {
+    return Objects.equals(stored != null ? stored : 0L, actual);
+  }
+}
@@ -3,9 +3,9 @@ package com.customersupport.service;
 import com.customersupport.dto.ReviewAnalyticsDTO;
 import com.customersupport.dto.ReviewDTO;
 import com.customersupport.entity.*;
+import com.customersupport.event.ReviewEvent;
 import com.customersupport.repository.*;
 import jakarta.transaction.Transactional;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -16,6 +16,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -38,6 +39,8 @@ public class ReviewService {
 
   @Autowired private EmailService emailService;
 
+  @Autowired private ApplicationEventPublisher eventPublisher;
+
   // Create review
   public ReviewDTO createReview(ReviewDTO reviewDTO) {
     // Check if a review already exists fo this ticket
@@ -96,6 +99,7 @@ public class ReviewService {
     review.setIsPublished(false);
     review.setIsFeatured(false);
 
+    applyRatingChange(review, null, review.getRating());
     Review savedReview = reviewRepository.save(review);
 
     // Find company admins for this company
@@ -109,7 +113,7 @@ public class ReviewService {
       }
     }
 
-    recalculateAgentSatisfaction(agent);
+    publish(ReviewEvent.Type.CREATED, savedReview, null);
     return ReviewDTO.fromEntity(savedReview);
   }
 
@@ -253,6 +257,7 @@ public class ReviewService {
     }
 
     // Update review fields
+    Integer previousRating = review.getRating();
     review.setRating(reviewDTO.getRating());
     review.setFeedback(reviewDTO.getFeedback());
     review.setServiceQualityRating(reviewDTO.getServiceQualityRating());
@@ -261,9 +266,10 @@ public class ReviewService {
     review.setWouldRecommend(reviewDTO.getWouldRecommend());
     review.setAdditionalComments(reviewDTO.getAdditionalComments());
 
+    applyRatingChange(review, previousRating, review.getRating());
     Review updatedReview = reviewRepository.save(review);
 
-    recalculateAgentSatisfaction(review.getAgent());
+    publish(ReviewEvent.Type.UPDATED, updatedReview, previousRating);
     return ReviewDTO.fromEntity(updatedReview);
   }
 
@@ -294,9 +300,10 @@ public class ReviewService {
     Review review =
         reviewRepository.findById(id).orElseThrow(() -> new RuntimeException("Review not found"));
 
+    applyRatingChange(review, review.getRating(), null);
     reviewRepository.delete(review);
 
-    recalculateAgentSatisfaction(review.getAgent());
+    publish(ReviewEvent.Type.DELETED, review, null);
   }
 
   public void deleteReviewByCustomer(Long id, Long customerId) {
@@ -307,20 +314,26 @@ public class ReviewService {
       throw new RuntimeException("You do not have permission to delete this review");
     }
 
+    applyRatingChange(review, review.getRating(), null);
     reviewRepository.delete(review);
 
-    recalculateAgentSatisfaction(review.getAgent());
+    publish(ReviewEvent.Type.DELETED, review, null);
   }
 
-  // Get average rating by company
+  // Get average rating by company, from its running review totals
   public Double getAverageRatingByCompany(Long companyId) {
-    Double average = reviewRepository.getAverageRatingByCompany(companyId);
-    return average != null ? average : 0.0;
+    return companyRepository
+        .findById(companyId)
+        .map(company -> average(company.getRatingTotal(), company.getReviewCount()))
+        .orElse(0.0);
   }
 
-  // Get average rating by agent
+  // Get average rating by agent, from their running review totals; null if they have none
   public Double getAverageRatingByAgent(Long agentId) {
-    return reviewRepository.getAverageRatingByAgent(agentId);
+    return agentRepository
+        .findById(agentId)
+        .map(agent -> average(agent.getRatingTotal(), agent.getReviewCount()))
+        .orElse(null);
   }
 
   // Get average rating by company and rating
@@ -334,14 +347,40 @@ public class ReviewService {
     return reviewRepository.countByCompanyIdAndDateRange(companyId, startDate, endDate);
   }
 
-  private void recalculateAgentSatisfaction(Agent agent) {
-    if (agent == null) {
+  // Keeps the running review totals in step with the review, in the same transaction. The company
+  // row is updated before the agent's, the order ReviewAggregateReconciler locks them in. Callers
+  // run this before writing the review: inserting one takes shared locks on its company and agent
+  // rows through the foreign keys, and two writers both upgrading those to update them deadlock.
+  private void applyRatingChange(Review review, Integer previousRating, Integer newRating) {
+    long reviews = (newRating != null ? 1 : 0) - (previousRating != null ? 1 : 0);
+    long rating =
+        (newRating != null ? newRating : 0) - (previousRating != null ? previousRating : 0);
+    if (reviews == 0 && rating == 0) {
       return;
     }
+    companyRepository.addReviewTotals(review.getCompany().getId(), reviews, rating);
+    if (review.getAgent() != null) {
+      agentRepository.addReviewTotals(review.getAgent().getId(), reviews, rating);
+    }
+  }
+
+  private static Double average(Long ratingTotal, Long reviewCount) {
+    if (reviewCount == null || reviewCount <= 0 || ratingTotal == null) {
+      return null;
+    }
+    return (double) ratingTotal / reviewCount;
+  }
 
-    Double avgRating = reviewRepository.getAverageRatingByAgent(agent.getId());
-    agent.setCustomerSatisfactionRating(
-        avgRating != null ? BigDecimal.valueOf(avgRating) : BigDecimal.ZERO);
-    agentRepository.save(agent);
+  // Listeners such as the analytics rollup see the change once the transaction commits
+  private void publish(ReviewEvent.Type type, Review review, Integer previousRating) {
+    eventPublisher.publishEvent(
+        new ReviewEvent(
+            type,
+            review.getCompany().getId(),
+            review.getAgent() != null ? review.getAgent().getId() : null,
+            review.getId(),
+            review.getRating(),
+            previousRating,
+            review.getCreatedAt()));
   }
 }
@@ -0,0 +1,655 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.SlaTicketRow;
+import com.customersupport.dto.TicketDTO;
+import com.customersupport.dto.TicketRow;
+import com.customersupport.entity.Ticket;
+import com.customersupport.entity.TicketResponse;
+import com.customersupport.entity.User;
+import com.customersupport.event.TicketEvent;
+import com.customersupport.repository.TicketRepository;
+import com.customersupport.repository.TicketResponseRepository;
+import com.customersupport.repository.UserRepository;
+import com.customersupport.util.BatchUpdates;
+import com.customersupport.util.HierarchicalTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Watches the response and resolution targets of open tickets and escalates tickets that miss
+ * them. Targets are set per priority and run from ticket creation: the response target until the
+ * first agent reply, the resolution target until the ticket is resolved, unless the ticket has an
+ * estimated resolution time of its own. A warning goes out once a set fraction of a target has
+ * passed.
+ *
+ * <p>Each tracked ticket has a single timer, for its next warning or breach, in a hierarchical
+ * timing wheel, so a tick only costs the timers that are due instead of a query across every
+ * company's tickets. The wheel is loaded from open tickets at startup, kept current by committed
+ * {@link TicketEvent}s and resynced periodically. A breach raises the ticket's priority one step,
+ * adds an internal SYSTEM_UPDATE note and alerts the agent, or a company admin while nobody has
+ * the ticket. Breaches are recorded on the ticket by a conditional update, so a restart or a
+ * second node never escalates the same target twice; warnings are only remembered in memory.
+ */
+@Service
+public class SlaScheduler {
+
+  private static final Logger log = LoggerFactory.getLogger(SlaScheduler.class);
+
+  // Slots per level and number of levels; with one second ticks the wheel spans about 194 days
+  private static final int WHEEL_BITS = 6;
+  private static final int WHEEL_LEVELS = 4;
+
+  // Breaches whose escalation failed are retried after this long
+  private static final long RETRY_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+
+  private static final String COMPANY_ADMIN_ROLE = "COMPANY_ADMIN";
+
+  private static final DateTimeFormatter TARGET_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+  // A missing priority counts as MEDIUM, as everywhere else
+  private static final String NEXT_PRIORITY =
+      "CASE priority WHEN 'LOW' THEN 'MEDIUM' WHEN 'HIGH' THEN 'URGENT' WHEN 'URGENT' THEN"
+          + " 'URGENT' ELSE 'HIGH' END";
+
+  private static final String ESCALATE_RESPONSE_SQL =
+      "UPDATE tickets SET priority = "
+          + NEXT_PRIORITY
+          + ", response_breached_at = ?, version = version + 1 WHERE id = ? AND"
+          + " response_breached_at IS NULL AND first_response_time IS NULL AND status IN ('OPEN',"
+          + " 'IN_PROGRESS')";
+
+  private static final String ESCALATE_RESOLUTION_SQL =
+      "UPDATE tickets SET priority = "
+          + NEXT_PRIORITY
+          + ", resolution_breached_at = ?, version = version + 1 WHERE id = ? AND"
+          + " resolution_breached_at IS NULL AND status IN ('OPEN', 'IN_PROGRESS')";
+
+  // Tickets waiting on the customer are not held to either target
+  private static final EnumSet<Ticket.Status> TRACKED_STATUSES =
+      EnumSet.of(Ticket.Status.OPEN, Ticket.Status.IN_PROGRESS);
+
+  private enum Stage {
+    RESPONSE_WARNING,
+    RESPONSE_BREACH,
+    RESOLUTION_WARNING,
+    RESOLUTION_BREACH;
+
+    boolean isBreach() {
+      return this == RESPONSE_BREACH || this == RESOLUTION_BREACH;
+    }
+
+    boolean isResponse() {
+      return this == RESPONSE_WARNING || this == RESPONSE_BREACH;
+    }
+
+    Stage breach() {
+      return isResponse() ? RESPONSE_BREACH : RESOLUTION_BREACH;
+    }
+  }
+
+  /** A fired timer, with what it needs to describe itself after the lock is released. */
+  private record Due(
+      Long ticketId,
+      Stage stage,
+      Ticket.Priority priority,
+      LocalDateTime target,
+      long targetMinutes) {}
+
+  private record Recipient(Long userId, String email, String name) {}
+
+  private final TicketRepository ticketRepository;
+  private final TicketResponseRepository ticketResponseRepository;
+  private final UserRepository userRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final EmailService emailService;
+  private final boolean enabled;
+  private final Map<Ticket.Priority, Duration> responseTargets;
+  private final Map<Ticket.Priority, Duration> resolutionTargets;
+  private final double warningFraction;
+  private final long tickNanos;
+  private final long resyncIntervalMs;
+
+  // Both guarded by the wheel's monitor
+  private final HierarchicalTimingWheel<Long, Stage> wheel;
+  private final Map<Long, Clock> clocks = new HashMap<>();
+
+  private final LongAdder warnings = new LongAdder();
+  private final LongAdder breaches = new LongAdder();
+  private final LongAdder escalated = new LongAdder();
+  private final LongAdder alreadyEscalated = new LongAdder();
+  private final LongAdder failedBatches = new LongAdder();
+  private volatile long lastTickMicros;
+  private volatile long lastResyncAt;
+  private volatile Thread schedulerThread;
+  private volatile boolean running;
+
+  public SlaScheduler(
+      TicketRepository ticketRepository,
+      TicketResponseRepository ticketResponseRepository,
+      UserRepository userRepository,
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      ApplicationEventPublisher eventPublisher,
+      EmailService emailService,
+      @Value("${sla.enabled:true}") boolean enabled,
+      @Value("${sla.response-minutes:URGENT:30,HIGH:120,MEDIUM:480,LOW:1440}")
+          String responseMinutes,
+      @Value("${sla.resolution-minutes:URGENT:240,HIGH:1440,MEDIUM:4320,LOW:10080}")
+          String resolutionMinutes,
+      @Value("${sla.warning-fraction:0.8}") double warningFraction,
+      @Value("${sla.tick-ms:1000}") long tickMs,
+      @Value("${sla.resync-interval-ms:900000}") long resyncIntervalMs) {
+    this.ticketRepository = ticketRepository;
+    this.ticketResponseRepository = ticketResponseRepository;
+    this.userRepository = userRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+    this.emailService = emailService;
+    this.enabled = enabled;
+    this.responseTargets = parseTargets(responseMinutes);
+    this.resolutionTargets = parseTargets(resolutionMinutes);
+    this.warningFraction = warningFraction;
+    this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+    this.resyncIntervalMs = resyncIntervalMs;
+    this.wheel =
+        new HierarchicalTimingWheel<>(
+            tickMs, WHEEL_BITS, WHEEL_LEVELS, System.currentTimeMillis());
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    Thread thread = new Thread(this::runScheduler, "sla-scheduler");
+    thread.setDaemon(true);
+    schedulerThread = thread;
+    thread.start();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    running = false;
+    Thread thread = schedulerThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+      try {
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTicketEvent(TicketEvent event) {
+    if (!enabled) {
+      return;
+    }
+    TicketDTO ticket = event.ticket();
+    synchronized (wheel) {
+      if (ticket == null || !TRACKED_STATUSES.contains(ticket.getStatus())) {
+        untrack(event.ticketId());
+        return;
+      }
+      Clock clock = clocks.get(ticket.getId());
+      boolean isNew = clock == null;
+      if (isNew) {
+        clock = new Clock(ticket.getId());
+        clocks.put(ticket.getId(), clock);
+      }
+      clock.update(
+          ticket.getPriority(),
+          ticket.getCreatedAt(),
+          ticket.getFirstResponseTime(),
+          ticket.getEstimatedResolutionTime());
+      reschedule(clock, LocalDateTime.now(), isNew);
+    }
+  }
+
+  /** Reload the clocks of every open ticket from the database. */
+  public void resync() {
+    List<SlaTicketRow> rows = ticketRepository.findSlaTicketRows();
+    LocalDateTime now = LocalDateTime.now();
+    synchronized (wheel) {
+      // Only adds and refreshes: a ticket closed meanwhile is dropped when its timer fires
+      for (SlaTicketRow row : rows) {
+        Clock clock = clocks.get(row.getId());
+        boolean isNew = clock == null;
+        if (isNew) {
+          clock = new Clock(row.getId());
+          clocks.put(row.getId(), clock);
+        }
+        clock.update(
+            row.getPriority(),
+            row.getCreatedAt(),
+            row.getFirstResponseTime(),
+            row.getEstimatedResolutionTime());
+        if (row.getResponseBreachedAt() != null) {
+          clock.done.add(Stage.RESPONSE_WARNING);
+          clock.done.add(Stage.RESPONSE_BREACH);
+        }
+        if (row.getResolutionBreachedAt() != null) {
+          clock.done.add(Stage.RESOLUTION_WARNING);
+          clock.done.add(Stage.RESOLUTION_BREACH);
+        }
+        // Warnings that went by while this node was down are not worth sending any more
+        reschedule(clock, now, isNew);
+      }
+    }
+    lastResyncAt = System.currentTimeMillis();
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    synchronized (wheel) {
+      stats.put("trackedTickets", clocks.size());
+      stats.put("scheduledTimers", wheel.size());
+    }
+    stats.put("enabled", enabled);
+    stats.put("warnings", warnings.sum());
+    stats.put("breaches", breaches.sum());
+    stats.put("escalated", escalated.sum());
+    stats.put("alreadyEscalated", alreadyEscalated.sum());
+    stats.put("failedBatches", failedBatches.sum());
+    stats.put("lastTickMicros", lastTickMicros);
+    stats.put("lastResyncAt", lastResyncAt);
+    return stats;
+  }
+
+  private void runScheduler() {
+    long nextResyncAt = 0;
+    while (running) {
+      try {
+        if (System.currentTimeMillis() >= nextResyncAt) {
+          resync();
+          nextResyncAt = System.currentTimeMillis() + resyncIntervalMs;
+        }
+        tick();
+      } catch (RuntimeException e) {
+        log.warn("SLA scheduler pass failed", e);
+      }
+      LockSupport.parkNanos(this, tickNanos);
+    }
+  }
+
+  private void tick() {
+    long started = System.nanoTime();
+    List<Due> due = new ArrayList<>();
+    synchronized (wheel) {
+      wheel.advance(
+          System.currentTimeMillis(),
+          (ticketId, stage) -> {
+            Clock clock = clocks.get(ticketId);
+            LocalDateTime target = clock != null ? clock.dueAt(stage.breach()) : null;
+            if (target != null) {
+              clock.done.add(stage);
+              due.add(
+                  new Due(ticketId, stage, clock.priority, target, clock.targetMinutes(stage)));
+            }
+          });
+    }
+    if (due.isEmpty()) {
+      return;
+    }
+
+    Set<Long> ticketIds = new LinkedHashSet<>();
+    due.forEach(entry -> ticketIds.add(entry.ticketId()));
+    Map<Long, TicketDTO> tickets = new HashMap<>();
+    for (TicketRow row : ticketRepository.findTicketRowsByIdIn(ticketIds)) {
+      if (TRACKED_STATUSES.contains(row.getStatus())) {
+        tickets.put(row.getId(), TicketDTO.fromRow(row));
+      }
+    }
+
+    List<Due> warned = new ArrayList<>();
+    List<Due> breached = new ArrayList<>();
+    for (Due entry : due) {
+      TicketDTO ticket = tickets.get(entry.ticketId());
+      if (ticket == null || (entry.stage().isResponse() && ticket.getFirstResponseTime() != null)) {
+        // Closed, answered or deleted without this node hearing about it
+        continue;
+      }
+      (entry.stage().isBreach() ? breached : warned).add(entry);
+    }
+    warn(warned, tickets);
+    escalate(breached);
+
+    LocalDateTime now = LocalDateTime.now();
+    synchronized (wheel) {
+      for (Long ticketId : ticketIds) {
+        Clock clock = clocks.get(ticketId);
+        if (clock == null) {
+          continue;
+        }
+        if (!tickets.containsKey(ticketId)) {
+          untrack(ticketId);
+        } else if (!wheel.contains(ticketId)) {
+          reschedule(clock, now, false);
+        }
+      }
+    }
+    lastTickMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+  }
+
+  private void warn(List<Due> warned, Map<Long, TicketDTO> tickets) {
+    if (warned.isEmpty()) {
+      return;
+    }
+    List<TicketDTO> warnedTickets = new ArrayList<>(warned.size());
+    warned.forEach(entry -> warnedTickets.add(tickets.get(entry.ticketId())));
+    Map<Long, Recipient> recipients = recipients(warnedTickets);
+    for (Due entry : warned) {
+      TicketDTO ticket = tickets.get(entry.ticketId());
+      eventPublisher.publishEvent(TicketEvent.of(TicketEvent.Type.SLA_WARNING, ticket));
+      Recipient recipient = recipients.get(ticket.getId());
+      if (recipient != null) {
+        emailService.sendSlaAlert(
+            recipient.email(), recipient.name(), ticket, false, describe(entry, null));
+      }
+    }
+    warnings.add(warned.size());
+  }
+
+  private void escalate(List<Due> breached) {
+    if (breached.isEmpty()) {
+      return;
+    }
+    breaches.add(breached.size());
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Due> won = new ArrayList<>();
+            won.addAll(escalateAll(ESCALATE_RESPONSE_SQL, breached, true, now));
+            won.addAll(escalateAll(ESCALATE_RESOLUTION_SQL, breached, false, now));
+            if (!won.isEmpty()) {
+              announce(won, now.toLocalDateTime());
+            }
+          });
+    } catch (DataAccessException | TransactionException e) {
+      log.warn("SLA escalation of {} tickets failed, retrying later", breached.size(), e);
+      failedBatches.increment();
+      long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+      synchronized (wheel) {
+        for (Due entry : breached) {
+          Clock clock = clocks.get(entry.ticketId());
+          if (clock != null) {
+            clock.done.remove(entry.stage());
+            wheel.schedule(entry.ticketId(), retryAt, entry.stage());
+          }
+        }
+      }
+    }
+  }
+
+  private List<Due> escalateAll(String sql, List<Due> breached, boolean response, Timestamp now) {
+    List<Due> batch = new ArrayList<>();
+    List<Object[]> args = new ArrayList<>();
+    for (Due entry : breached) {
+      if (entry.stage().isResponse() == response) {
+        batch.add(entry);
+        args.add(new Object[] {now, entry.ticketId()});
+      }
+    }
+    List<Due> won = new ArrayList<>();
+    if (batch.isEmpty()) {
+      return won;
+    }
+    int[] updated = jdbcTemplate.batchUpdate(sql, args);
+    for (int i = 0; i < updated.length; i++) {
+      if (BatchUpdates.changedRow(updated[i])) {
+        won.add(batch.get(i));
+      } else {
+        // Answered or closed meanwhile, or escalated by another node
+        alreadyEscalated.increment();
+      }
+    }
+    return won;
+  }
+
+  // Runs inside the escalation transaction, so notes, events and emails only go out if it commits
+  private void announce(List<Due> won, LocalDateTime now) {
+    Set<Long> ticketIds = new LinkedHashSet<>();
+    won.forEach(entry -> ticketIds.add(entry.ticketId()));
+    Map<Long, TicketDTO> tickets = new HashMap<>();
+    for (TicketRow row : ticketRepository.findTicketRowsByIdIn(ticketIds)) {
+      tickets.put(row.getId(), TicketDTO.fromRow(row));
+    }
+    Map<Long, Recipient> recipients = recipients(tickets.values());
+
+    List<TicketResponse> notes = new ArrayList<>();
+    for (Due entry : won) {
+      TicketDTO ticket = tickets.get(entry.ticketId());
+      String detail = describe(entry, ticket.getPriority());
+      Recipient recipient = recipients.get(ticket.getId());
+      if (recipient == null) {
+        // The note needs an author; a company without an active admin has nobody to alert either
+        log.warn("No agent or company admin to alert about SLA breach of {}", ticket.getId());
+        continue;
+      }
+      TicketResponse note = new TicketResponse();
+      note.setTicket(ticketRepository.getReferenceById(ticket.getId()));
+      note.setUser(userRepository.getReferenceById(recipient.userId()));
+      note.setResponseType(TicketResponse.ResponseType.SYSTEM_UPDATE);
+      note.setMessage(detail);
+      note.setIsPublic(false);
+      note.setCreatedAt(now);
+      notes.add(note);
+      emailService.sendSlaAlert(recipient.email(), recipient.name(), ticket, true, detail);
+    }
+    ticketResponseRepository.saveAll(notes);
+    for (TicketDTO ticket : tickets.values()) {
+      eventPublisher.publishEvent(TicketEvent.of(TicketEvent.Type.SLA_BREACHED, ticket));
+    }
+    escalated.add(won.size());
+  }
+
+  // The assigned agent, or the company's first active admin for unassigned tickets
+  private Map<Long, Recipient> recipients(Iterable<TicketDTO> tickets) {
+    List<Long> ticketIds = new ArrayList<>();
+    tickets.forEach(ticket -> ticketIds.add(ticket.getId()));
+    Map<Long, Recipient> recipients = new HashMap<>();
+    for (Object[] row : ticketRepository.findAgentUsersByTicketIds(ticketIds)) {
+      recipients.put(
+          (Long) row[0], new Recipient((Long) row[1], (String) row[2], row[3] + " " + row[4]));
+    }
+    Map<Long, Optional<Recipient>> admins = new HashMap<>();
+    for (TicketDTO ticket : tickets) {
+      if (recipients.containsKey(ticket.getId())) {
+        continue;
+      }
+      admins
+          .computeIfAbsent(ticket.getCompanyId(), this::companyAdmin)
+          .ifPresent(admin -> recipients.put(ticket.getId(), admin));
+    }
+    return recipients;
+  }
+
+  private Optional<Recipient> companyAdmin(Long companyId) {
+    List<User> admins =
+        userRepository.findByCompanyIdAndRoleNameAndStatus(
+            companyId, COMPANY_ADMIN_ROLE, User.UserStatus.ACTIVE);
+    if (admins.isEmpty()) {
+      return Optional.empty();
+    }
+    User admin = admins.get(0);
+    return Optional.of(
+        new Recipient(
+            admin.getId(), admin.getEmail(), admin.getFirstname() + " " + admin.getLastname()));
+  }
+
+  private static String describe(Due entry, Ticket.Priority raisedTo) {
+    String target = entry.target().format(TARGET_FORMAT);
+    String escalation =
+        raisedTo == null || raisedTo == entry.priority()
+            ? ""
+            : String.format(" Priority raised from %s to %s.", entry.priority(), raisedTo);
+    return switch (entry.stage()) {
+      case RESPONSE_WARNING -> String.format(
+          "No agent response yet. The %d minute response target for %s tickets is reached at %s.",
+          entry.targetMinutes(), entry.priority(), target);
+      case RESPONSE_BREACH -> String.format(
+          "Response SLA breached: no agent response within the %d minute target for %s tickets"
+              + " (due %s).%s",
+          entry.targetMinutes(), entry.priority(), target, escalation);
+      case RESOLUTION_WARNING -> String.format(
+          "Not resolved yet. The resolution target is reached at %s.", target);
+      case RESOLUTION_BREACH -> String.format(
+          "Resolution SLA breached: not resolved by %s.%s", target, escalation);
+    };
+  }
+
+  // Called with the wheel's monitor held
+  private void untrack(Long ticketId) {
+    clocks.remove(ticketId);
+    wheel.cancel(ticketId);
+  }
+
+  // Called with the wheel's monitor held. Sets the timer for the earliest stage still to come.
+  private void reschedule(Clock clock, LocalDateTime now, boolean skipPastWarnings) {
+    Stage next = null;
+    LocalDateTime nextAt = null;
+    for (Stage stage : Stage.values()) {
+      if (clock.done.contains(stage)) {
+        continue;
+      }
+      LocalDateTime dueAt = clock.dueAt(stage);
+      if (dueAt == null) {
+        continue;
+      }
+      if (!stage.isBreach()) {
+        // A warning is pointless once the breach itself is due
+        LocalDateTime breachAt = clock.dueAt(stage.breach());
+        if (!breachAt.isAfter(now) || (skipPastWarnings && !dueAt.isAfter(now))) {
+          clock.done.add(stage);
+          continue;
+        }
+      }
+      if (nextAt == null || dueAt.isBefore(nextAt)) {
+        next = stage;
+        nextAt = dueAt;
+      }
+    }
+    if (next == null) {
+      wheel.cancel(clock.ticketId);
+    } else {
+      wheel.schedule(
+          clock.ticketId, nextAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), next);
+    }
+  }
+
+  // "URGENT:30,HIGH:120,..."; a priority left out has no target
+  private static Map<Ticket.Priority, Duration> parseTargets(String spec) {
+    Map<Ticket.Priority, Duration> targets = new EnumMap<>(Ticket.Priority.class);
+    for (String entry : spec.split(",")) {
+      if (entry.isBlank()) {
+        continue;
+      }
+      String[] parts = entry.trim().split(":");
+      if (parts.length != 2) {
+        throw new RuntimeException("Invalid SLA target: " + entry);
+      }
+      try {
+        targets.put(
+            Ticket.Priority.valueOf(parts[0].trim()),
+            Duration.ofMinutes(Long.parseLong(parts[1].trim())));
+      } catch (IllegalArgumentException e) {
+        throw new RuntimeException("Invalid SLA target: " + entry, e);
+      }
+    }
+    return targets;
+  }
+
+  /** One ticket's SLA state. Guarded by the wheel's monitor. */
+  private final class Clock {
+    private final Long ticketId;
+    private final EnumSet<Stage> done = EnumSet.noneOf(Stage.class);
+    private Ticket.Priority priority;
+    private LocalDateTime createdAt;
+    private LocalDateTime firstResponseTime;
+    private LocalDateTime estimatedResolutionTime;
+
+    private Clock(Long ticketId) {
+      this.ticketId = ticketId;
+    }
+
+    void update(
+        Ticket.Priority priority,
+        LocalDateTime createdAt,
+        LocalDateTime firstResponseTime,
+        LocalDateTime estimatedResolutionTime) {
+      this.priority = priority != null ? priority : Ticket.Priority.MEDIUM;
+      this.createdAt = createdAt;
+      this.firstResponseTime = firstResponseTime;
+      this.estimatedResolutionTime = estimatedResolutionTime;
+    }
+
+    // Null when the stage does not apply to the ticket
+    LocalDateTime dueAt(Stage stage) {
+      if (createdAt == null) {
+        return null;
+      }
+      LocalDateTime target;
+      if (stage.isResponse()) {
+        Duration response = responseTargets.get(priority);
+        if (firstResponseTime != null || response == null) {
+          return null;
+        }
+        target = createdAt.plus(response);
+      } else if (estimatedResolutionTime != null) {
+        target = estimatedResolutionTime;
+      } else {
+        Duration resolution = resolutionTargets.get(priority);
+        if (resolution == null) {
+          return null;
+        }
+        target = createdAt.plus(resolution);
+      }
+      if (stage.isBreach() || !target.isAfter(createdAt)) {
+        return target;
+      }
+      long warnAfterMillis =
+          (long) (Duration.between(createdAt, target).toMillis() * warningFraction);
+      return createdAt.plus(Duration.ofMillis(warnAfterMillis));
+    }
+
+    long targetMinutes(Stage stage) {
+      LocalDateTime target = dueAt(stage.breach());
+      return target == null ? 0 : Duration.between(createdAt, target).toMinutes();
+    }
+  }
+}
@@ -0,0 +1,294 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.AgentTicketBoardDTO;
+import com.customersupport.dto.TicketBoardDeltaDTO;
+import com.customersupport.dto.TicketDTO;
+import com.customersupport.dto.TicketRow;
+import com.customersupport.entity.Ticket;
+import com.customersupport.event.TicketEvent;
+import com.customersupport.repository.TicketRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory agent ticket board per company. A company's tickets are loaded once, on the first
+ * board request, and from then on kept current by committed {@link TicketEvent}s. Every change
+ * bumps the company's board version and is kept in a bounded change log, so agents can fetch just
+ * the tickets that changed since the version they last saw. Events carry the ticket's optimistic
+ * lock version, and one older than the copy already held is ignored. Like the FAQ index this is
+ * local to the node; changes made on another node are not seen here.
+ */
+@Service
+public class TicketBoardReadModel {
+
+  private static final EnumSet<Ticket.Status> ACTIVE_STATUSES =
+      EnumSet.of(Ticket.Status.OPEN, Ticket.Status.IN_PROGRESS, Ticket.Status.PENDING_CUSTOMER);
+
+  private static final EnumSet<Ticket.Status> CLOSED_STATUSES =
+      EnumSet.of(Ticket.Status.RESOLVED, Ticket.Status.CLOSED, Ticket.Status.CANCELLED);
+
+  // Same order as TicketRepository.findCompanyTicketRows: newest first
+  private static final Comparator<TicketDTO> BOARD_ORDER =
+      Comparator.comparing(
+              TicketDTO::getCreatedAt,
+              Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+          .thenComparing(TicketDTO::getId, Comparator.reverseOrder());
+
+  /** One agent's view of the board. */
+  public record AgentView(
+      long version,
+      List<TicketDTO> assignedTickets,
+      List<TicketDTO> availableTickets,
+      List<TicketDTO> activeCompanyTickets,
+      List<TicketDTO> closedCompanyTickets,
+      long resolvedToday) {}
+
+  private final TicketRepository ticketRepository;
+  private final int changeLogSize;
+  private final Map<Long, CompanyBoard> boards = new ConcurrentHashMap<>();
+
+  public TicketBoardReadModel(
+      TicketRepository ticketRepository,
+      @Value("${ticket.board.change-log-size:1000}") int changeLogSize) {
+    this.ticketRepository = ticketRepository;
+    this.changeLogSize = changeLogSize;
+  }
+
+  public AgentView view(Long companyId, Long agentId) {
+    return board(companyId).view(agentId);
+  }
+
+  public TicketBoardDeltaDTO changesSince(Long companyId, Long agentId, long sinceVersion) {
+    return board(companyId).changesSince(agentId, sinceVersion);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTicketEvent(TicketEvent event) {
+    // Companies nobody has opened a board for yet are loaded from the database on first use
+    CompanyBoard board = boards.get(event.companyId());
+    if (board != null) {
+      board.apply(event);
+    }
+  }
+
+  private CompanyBoard board(Long companyId) {
+    CompanyBoard board = boards.computeIfAbsent(companyId, CompanyBoard::new);
+    board.ensureLoaded();
+    return board;
+  }
+
+  private record Change(long version, Long ticketId) {}
+
+  private final class CompanyBoard {
+    private final Long companyId;
+    private final Map<Long, TicketDTO> tickets = new HashMap<>();
+    private final NavigableMap<TicketDTO, Long> ordered = new TreeMap<>(BOARD_ORDER);
+    private final Map<Long, Set<Long>> assignedByAgent = new HashMap<>();
+    private final Deque<Change> changes = new ArrayDeque<>();
+    // Recently deleted tickets, so a late update cannot bring one back; oldest first
+    private final Set<Long> deleted = new LinkedHashSet<>();
+    private boolean loaded;
+    private long version;
+    private long availableCount;
+    private long activeCount;
+    private long closedCount;
+
+    private CompanyBoard(Long companyId) {
+      this.companyId = companyId;
+    }
+
+    // Loading holds the lock, so an event committed meanwhile is either already in the rows
+    // read here or waits and is applied on top of them
+    synchronized void ensureLoaded() {
+      if (loaded) {
+        return;
+      }
+      List<TicketRow> rows =
+          ticketRepository.findCompanyTicketRows(companyId, null, null, Pageable.unpaged());
+      for (TicketRow row : rows) {
+        put(TicketDTO.fromRow(row));
+      }
+      // Start from the clock so versions keep increasing across restarts and reloads
+      version = System.currentTimeMillis();
+      loaded = true;
+    }
+
+    synchronized void apply(TicketEvent event) {
+      if (!loaded || deleted.contains(event.ticketId())) {
+        return;
+      }
+      if (event.type() == TicketEvent.Type.DELETED) {
+        remove(event.ticketId());
+        deleted.add(event.ticketId());
+        if (deleted.size() > changeLogSize) {
+          deleted.remove(deleted.iterator().next());
+        }
+      } else if (isStale(event.ticket())) {
+        // After-commit listeners run on the committing threads, so events can arrive out of order
+        return;
+      } else {
+        put(event.ticket());
+      }
+      version++;
+      changes.addLast(new Change(version, event.ticketId()));
+      while (changes.size() > changeLogSize) {
+        changes.removeFirst();
+      }
+    }
+
+    synchronized AgentView view(Long agentId) {
+      List<TicketDTO> assigned = new ArrayList<>();
+      List<TicketDTO> available = new ArrayList<>();
+      List<TicketDTO> active = new ArrayList<>();
+      List<TicketDTO> closed = new ArrayList<>();
+      for (TicketDTO ticket : ordered.keySet()) {
+        if (isAssignedTo(ticket, agentId)) {
+          assigned.add(ticket);
+        }
+        if (isAvailable(ticket)) {
+          available.add(ticket);
+        }
+        if (ACTIVE_STATUSES.contains(ticket.getStatus())) {
+          active.add(ticket);
+        } else if (CLOSED_STATUSES.contains(ticket.getStatus())) {
+          closed.add(ticket);
+        }
+      }
+      return new AgentView(version, assigned, available, active, closed, resolvedToday(agentId));
+    }
+
+    synchronized TicketBoardDeltaDTO changesSince(Long agentId, long sinceVersion) {
+      TicketBoardDeltaDTO.TicketBoardDeltaDTOBuilder delta =
+          TicketBoardDeltaDTO.builder()
+              .fromVersion(sinceVersion)
+              .version(version)
+              .stats(stats(agentId));
+      if (sinceVersion == version) {
+        return delta.build();
+      }
+      long oldestServable = changes.isEmpty() ? version : changes.peekFirst().version() - 1;
+      if (sinceVersion > version || sinceVersion < oldestServable) {
+        return delta.reset(true).build();
+      }
+
+      // Walk back from the newest change; a ticket changed twice is sent once
+      Set<Long> changedIds = new LinkedHashSet<>();
+      Iterator<Change> newestFirst = changes.descendingIterator();
+      while (newestFirst.hasNext()) {
+        Change change = newestFirst.next();
+        if (change.version() <= sinceVersion) {
+          break;
+        }
+        changedIds.add(change.ticketId());
+      }
+
+      List<TicketDTO> changed = new ArrayList<>();
+      List<Long> removed = new ArrayList<>();
+      for (Long ticketId : changedIds) {
+        TicketDTO ticket = tickets.get(ticketId);
+        if (ticket != null) {
+          changed.add(ticket);
+        } else {
+          removed.add(ticketId);
+        }
+      }
+      return delta.changedTickets(changed).removedTicketIds(removed).build();
+    }
+
+    private AgentTicketBoardDTO.AgentStats stats(Long agentId) {
+      return AgentTicketBoardDTO.AgentStats.builder()
+          .assignedCount(assignedByAgent.getOrDefault(agentId, Set.of()).size())
+          .availableCount(availableCount)
+          .activeCount(activeCount)
+          .closedCount(closedCount)
+          .resolvedToday(resolvedToday(agentId))
+          .build();
+    }
+
+    // Counted over the agent's active assignments, as the database-backed board did
+    private long resolvedToday(Long agentId) {
+      LocalDate today = LocalDate.now();
+      long count = 0;
+      for (Long ticketId : assignedByAgent.getOrDefault(agentId, Set.of())) {
+        TicketDTO ticket = tickets.get(ticketId);
+        if (ticket.getStatus() == Ticket.Status.RESOLVED
+            && ticket.getUpdatedAt() != null
+            && ticket.getUpdatedAt().toLocalDate().isEqual(today)) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    // Older than the copy already held; a copy without a version is always taken
+    private boolean isStale(TicketDTO ticket) {
+      TicketDTO current = tickets.get(ticket.getId());
+      return current != null
+          && current.getVersion() != null
+          && ticket.getVersion() != null
+          && ticket.getVersion() < current.getVersion();
+    }
+
+    private void put(TicketDTO ticket) {
+      remove(ticket.getId());
+      tickets.put(ticket.getId(), ticket);
+      ordered.put(ticket, ticket.getId());
+      count(ticket, 1);
+    }
+
+    private void remove(Long ticketId) {
+      TicketDTO existing = tickets.remove(ticketId);
+      if (existing != null) {
+        ordered.remove(existing);
+        count(existing, -1);
+      }
+    }
+
+    private void count(TicketDTO ticket, int delta) {
+      if (isAvailable(ticket)) {
+        availableCount += delta;
+      }
+      if (ACTIVE_STATUSES.contains(ticket.getStatus())) {
+        activeCount += delta;
+        if (ticket.getAgentId() != null) {
+          Set<Long> assigned =
+              assignedByAgent.computeIfAbsent(ticket.getAgentId(), id -> new HashSet<>());
+          if (delta > 0) {
+            assigned.add(ticket.getId());
+          } else {
+            assigned.remove(ticket.getId());
+          }
+        }
+      } else if (CLOSED_STATUSES.contains(ticket.getStatus())) {
+        closedCount += delta;
+      }
+    }
+
+    private boolean isAssignedTo(TicketDTO ticket, Long agentId) {
+      return agentId.equals(ticket.getAgentId()) && ACTIVE_STATUSES.contains(ticket.getStatus());
+    }
+
+    private boolean isAvailable(TicketDTO ticket) {
+      return ticket.getAgentId() == null && ticket.getStatus() == Ticket.Status.OPEN;
+    }
+  }
+}
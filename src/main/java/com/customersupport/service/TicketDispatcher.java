@@ -0,0 +1,561 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.TicketDTO;
+import com.customersupport.dto.TicketRow;
+import com.customersupport.entity.Agent;
+import com.customersupport.entity.Ticket;
+import com.customersupport.event.TicketEvent;
+import com.customersupport.repository.AgentRepository;
+import com.customersupport.repository.TicketRepository;
+import com.customersupport.util.BatchUpdates;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Assigns OPEN, unassigned tickets to agents without anyone having to claim them. Each company
+ * has an in-memory queue of its unassigned tickets, most urgent first and then oldest first, kept
+ * current by committed {@link TicketEvent}s and resynced from the database periodically. A
+ * background thread wakes whenever a company's tickets change, matches queued tickets to agents
+ * that are available, on shift and under their ticket limit, and writes a whole batch of
+ * assignments in one transaction.
+ *
+ * <p>Agents whose specialization or department shares words with the ticket's category and tags
+ * are preferred, then the least loaded. Assignments use the same conditional updates as a manual
+ * claim, so a ticket claimed in the meantime, or by the dispatcher on another node, is skipped.
+ */
+@Service
+public class TicketDispatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(TicketDispatcher.class);
+
+  private static final String CLAIM_SQL =
+      "UPDATE tickets SET agent_id = ?, status = 'IN_PROGRESS', last_activity = ?, updated_at = ?,"
+          + " version = version + 1 WHERE id = ? AND agent_id IS NULL AND status = 'OPEN'";
+
+  private static final String RESERVE_SQL =
+      "UPDATE agents SET current_ticket_count = COALESCE(current_ticket_count, 0) + 1, version ="
+          + " version + 1 WHERE id = ? AND (max_concurrent_tickets IS NULL OR"
+          + " max_concurrent_tickets <= 0 OR COALESCE(current_ticket_count, 0) <"
+          + " max_concurrent_tickets)";
+
+  // Hands back a ticket whose agent filled up between planning and reserving
+  private static final String RELEASE_SQL =
+      "UPDATE tickets SET agent_id = NULL, status = 'OPEN', version = version + 1 WHERE id = ? AND"
+          + " agent_id = ?";
+
+  private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  // Tickets further down the queue that are looked at when skill matches are required
+  private static final int SKILL_SCAN_FACTOR = 10;
+
+  private static final Comparator<Candidate> DISPATCH_ORDER =
+      Comparator.comparing((Candidate candidate) -> candidate.priority().ordinal())
+          .reversed()
+          .thenComparing(
+              Candidate::createdAt, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+          .thenComparing(Candidate::ticketId);
+
+  private record Candidate(
+      Long ticketId, Ticket.Priority priority, LocalDateTime createdAt, Set<String> topics) {}
+
+  private record Assignment(Candidate candidate, Long agentId) {}
+
+  private final TicketRepository ticketRepository;
+  private final AgentRepository agentRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final EmailService emailService;
+  private final boolean enabled;
+  private final int batchSize;
+  private final long idlePollNanos;
+  private final long resyncIntervalMs;
+  private final boolean requireSkillMatch;
+
+  private final Map<Long, CompanyQueue> queues = new ConcurrentHashMap<>();
+  private final Set<Long> dirtyCompanies = ConcurrentHashMap.newKeySet();
+  private final LongAdder assigned = new LongAdder();
+  private final LongAdder conflicts = new LongAdder();
+  private final LongAdder overbooked = new LongAdder();
+  private final LongAdder batches = new LongAdder();
+  private final LongAdder failedBatches = new LongAdder();
+  private volatile long lastBatchMicros;
+  private volatile long lastResyncAt;
+  private volatile Thread dispatcherThread;
+  private volatile boolean running;
+
+  public TicketDispatcher(
+      TicketRepository ticketRepository,
+      AgentRepository agentRepository,
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      ApplicationEventPublisher eventPublisher,
+      EmailService emailService,
+      @Value("${ticket.dispatch.enabled:true}") boolean enabled,
+      @Value("${ticket.dispatch.batch-size:50}") int batchSize,
+      @Value("${ticket.dispatch.idle-poll-ms:2000}") long idlePollMs,
+      @Value("${ticket.dispatch.resync-interval-ms:300000}") long resyncIntervalMs,
+      @Value("${ticket.dispatch.require-skill-match:false}") boolean requireSkillMatch) {
+    this.ticketRepository = ticketRepository;
+    this.agentRepository = agentRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+    this.emailService = emailService;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.idlePollNanos = TimeUnit.MILLISECONDS.toNanos(idlePollMs);
+    this.resyncIntervalMs = resyncIntervalMs;
+    this.requireSkillMatch = requireSkillMatch;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    Thread thread = new Thread(this::runDispatcher, "ticket-dispatcher");
+    thread.setDaemon(true);
+    dispatcherThread = thread;
+    thread.start();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    running = false;
+    Thread thread = dispatcherThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+      try {
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTicketEvent(TicketEvent event) {
+    if (!enabled) {
+      return;
+    }
+    CompanyQueue queue = queues.computeIfAbsent(event.companyId(), id -> new CompanyQueue());
+    TicketDTO ticket = event.ticket();
+    if (ticket != null && ticket.getAgentId() == null && ticket.getStatus() == Ticket.Status.OPEN) {
+      queue.put(toCandidate(ticket));
+    } else {
+      queue.remove(event.ticketId());
+    }
+    // Also wakes the dispatcher when a resolved or reassigned ticket frees an agent slot
+    if (queue.size() > 0) {
+      wake(event.companyId());
+    }
+  }
+
+  /** Reload every company's queue from the database. */
+  public void resync() {
+    List<TicketRow> rows = ticketRepository.findUnassignedTicketRows();
+    Set<Long> companies = new HashSet<>();
+    for (TicketRow row : rows) {
+      // Only adds: tickets that were assigned meanwhile fail their conditional claim and drop out
+      queues
+          .computeIfAbsent(row.getCompanyId(), id -> new CompanyQueue())
+          .put(toCandidate(row));
+      companies.add(row.getCompanyId());
+    }
+    lastResyncAt = System.currentTimeMillis();
+    companies.forEach(this::wake);
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    int queued = 0;
+    for (CompanyQueue queue : queues.values()) {
+      queued += queue.size();
+    }
+    stats.put("enabled", enabled);
+    stats.put("queuedTickets", queued);
+    stats.put("companies", queues.size());
+    stats.put("assigned", assigned.sum());
+    stats.put("claimConflicts", conflicts.sum());
+    stats.put("overbooked", overbooked.sum());
+    stats.put("batches", batches.sum());
+    stats.put("failedBatches", failedBatches.sum());
+    stats.put("lastBatchMicros", lastBatchMicros);
+    stats.put("lastResyncAt", lastResyncAt);
+    return stats;
+  }
+
+  private void wake(Long companyId) {
+    dirtyCompanies.add(companyId);
+    Thread thread = dispatcherThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  private void runDispatcher() {
+    long nextResyncAt = 0;
+    while (running) {
+      try {
+        if (System.currentTimeMillis() >= nextResyncAt) {
+          resync();
+          nextResyncAt = System.currentTimeMillis() + resyncIntervalMs;
+        }
+        if (!dispatchDirtyCompanies()) {
+          LockSupport.parkNanos(this, idlePollNanos);
+          if (dirtyCompanies.isEmpty()) {
+            // Nothing changed for a while; retry companies whose tickets are waiting for agents,
+            // since shifts and availability change without ticket events
+            queues.forEach(
+                (companyId, queue) -> {
+                  if (queue.size() > 0) {
+                    dirtyCompanies.add(companyId);
+                  }
+                });
+          }
+        }
+      } catch (RuntimeException e) {
+        log.warn("Ticket dispatch pass failed", e);
+        LockSupport.parkNanos(this, idlePollNanos);
+      }
+    }
+  }
+
+  private boolean dispatchDirtyCompanies() {
+    boolean any = false;
+    Iterator<Long> companies = dirtyCompanies.iterator();
+    while (running && companies.hasNext()) {
+      Long companyId = companies.next();
+      companies.remove();
+      dispatchCompany(companyId);
+      any = true;
+    }
+    return any;
+  }
+
+  private void dispatchCompany(Long companyId) {
+    CompanyQueue queue = queues.get(companyId);
+    while (queue != null && queue.size() > 0) {
+      List<AgentSlot> agents = loadAgentSlots(companyId, LocalDateTime.now());
+      if (agents.isEmpty()) {
+        return;
+      }
+      List<Assignment> plan = plan(queue, agents);
+      if (plan.isEmpty()) {
+        return;
+      }
+      apply(queue, plan);
+      if (plan.size() < batchSize) {
+        return;
+      }
+    }
+  }
+
+  private List<AgentSlot> loadAgentSlots(Long companyId, LocalDateTime now) {
+    List<AgentSlot> slots = new ArrayList<>();
+    for (Agent agent : agentRepository.findByCompanyIdAndIsAvailable(companyId, true)) {
+      AgentSlot slot = new AgentSlot(agent);
+      if (slot.hasCapacity() && isOnShift(agent, now)) {
+        slots.add(slot);
+      }
+    }
+    return slots;
+  }
+
+  // Picks agents for the tickets at the head of the queue and takes those tickets off it
+  private List<Assignment> plan(CompanyQueue queue, List<AgentSlot> agents) {
+    int scanLimit = requireSkillMatch ? batchSize * SKILL_SCAN_FACTOR : batchSize;
+    List<Assignment> plan = new ArrayList<>();
+    for (Candidate candidate : queue.head(scanLimit)) {
+      if (plan.size() >= batchSize) {
+        break;
+      }
+      AgentSlot agent = chooseAgent(candidate, agents);
+      if (agent == null) {
+        if (requireSkillMatch) {
+          continue;
+        }
+        // Every agent is full
+        break;
+      }
+      if (queue.remove(candidate.ticketId())) {
+        agent.load++;
+        plan.add(new Assignment(candidate, agent.agentId));
+      }
+    }
+    return plan;
+  }
+
+  private AgentSlot chooseAgent(Candidate candidate, List<AgentSlot> agents) {
+    AgentSlot best = null;
+    int bestScore = -1;
+    for (AgentSlot agent : agents) {
+      if (!agent.hasCapacity()) {
+        continue;
+      }
+      int score = agent.score(candidate.topics());
+      if (requireSkillMatch && score == 0) {
+        continue;
+      }
+      if (best == null
+          || score > bestScore
+          || (score == bestScore && agent.load < best.load)
+          || (score == bestScore && agent.load == best.load && agent.agentId < best.agentId)) {
+        best = agent;
+        bestScore = score;
+      }
+    }
+    return best;
+  }
+
+  private void apply(CompanyQueue queue, List<Assignment> plan) {
+    long started = System.nanoTime();
+    List<Assignment> handedBack = new ArrayList<>();
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            handedBack.clear();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            // Tickets first, then agents: the same lock order as a manual claim
+            List<Object[]> claimArgs = new ArrayList<>(plan.size());
+            for (Assignment assignment : plan) {
+              claimArgs.add(
+                  new Object[] {
+                    assignment.agentId(), now, now, assignment.candidate().ticketId()
+                  });
+            }
+            int[] claimed = jdbcTemplate.batchUpdate(CLAIM_SQL, claimArgs);
+            List<Assignment> won = new ArrayList<>();
+            for (int i = 0; i < claimed.length; i++) {
+              if (BatchUpdates.changedRow(claimed[i])) {
+                won.add(plan.get(i));
+              } else {
+                conflicts.increment();
+              }
+            }
+            if (won.isEmpty()) {
+              return;
+            }
+
+            List<Object[]> reserveArgs = new ArrayList<>(won.size());
+            for (Assignment assignment : won) {
+              reserveArgs.add(new Object[] {assignment.agentId()});
+            }
+            int[] reserved = jdbcTemplate.batchUpdate(RESERVE_SQL, reserveArgs);
+            List<Assignment> confirmed = new ArrayList<>();
+            List<Object[]> releaseArgs = new ArrayList<>();
+            for (int i = 0; i < reserved.length; i++) {
+              Assignment assignment = won.get(i);
+              if (BatchUpdates.changedRow(reserved[i])) {
+                confirmed.add(assignment);
+              } else {
+                handedBack.add(assignment);
+                releaseArgs.add(
+                    new Object[] {assignment.candidate().ticketId(), assignment.agentId()});
+              }
+            }
+            if (!releaseArgs.isEmpty()) {
+              jdbcTemplate.batchUpdate(RELEASE_SQL, releaseArgs);
+            }
+            announce(confirmed);
+          });
+    } catch (DataAccessException | TransactionException e) {
+      log.warn("Ticket dispatch batch of {} failed, requeueing", plan.size(), e);
+      failedBatches.increment();
+      plan.forEach(assignment -> queue.put(assignment.candidate()));
+      return;
+    }
+
+    overbooked.add(handedBack.size());
+    handedBack.forEach(assignment -> queue.put(assignment.candidate()));
+    batches.increment();
+    lastBatchMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+  }
+
+  // Runs inside the batch transaction, so events and emails only go out if it commits
+  private void announce(List<Assignment> confirmed) {
+    if (confirmed.isEmpty()) {
+      return;
+    }
+    List<Long> ticketIds = new ArrayList<>(confirmed.size());
+    for (Assignment assignment : confirmed) {
+      ticketIds.add(assignment.candidate().ticketId());
+    }
+    Map<Long, String> customerEmails = new HashMap<>();
+    for (Object[] row : ticketRepository.findCustomerEmailsByTicketIds(ticketIds)) {
+      customerEmails.put((Long) row[0], (String) row[1]);
+    }
+    for (TicketRow row : ticketRepository.findTicketRowsByIdIn(ticketIds)) {
+      TicketDTO ticket = TicketDTO.fromRow(row);
+      eventPublisher.publishEvent(TicketEvent.of(TicketEvent.Type.ASSIGNED, ticket));
+      String customerEmail = customerEmails.get(ticket.getId());
+      if (customerEmail != null) {
+        emailService.sendTicketClaimedNotification(
+            customerEmail, ticket.getCustomerName(), ticket, ticket.getAgentName());
+      }
+    }
+    assigned.add(confirmed.size());
+  }
+
+  // Shift times are read as a daily window; an end before the start runs past midnight
+  private static boolean isOnShift(Agent agent, LocalDateTime now) {
+    String workingDays = agent.getWorkingDays();
+    if (workingDays != null && !workingDays.isBlank()) {
+      String days = workingDays.toUpperCase(Locale.ROOT);
+      String today = now.getDayOfWeek().name();
+      String shortToday = now.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
+      if (!days.contains(today) && !days.contains(shortToday.toUpperCase(Locale.ROOT))) {
+        return false;
+      }
+    }
+    if (agent.getShiftStart() == null || agent.getShiftEnd() == null) {
+      return true;
+    }
+    LocalTime start = agent.getShiftStart().toLocalTime();
+    LocalTime end = agent.getShiftEnd().toLocalTime();
+    LocalTime time = now.toLocalTime();
+    if (start.equals(end)) {
+      return true;
+    }
+    if (start.isBefore(end)) {
+      return !time.isBefore(start) && time.isBefore(end);
+    }
+    return !time.isBefore(start) || time.isBefore(end);
+  }
+
+  private static Candidate toCandidate(TicketDTO ticket) {
+    return toCandidate(
+        ticket.getId(),
+        ticket.getPriority(),
+        ticket.getCreatedAt(),
+        words(ticket.getCategoryName(), ticket.getTags()));
+  }
+
+  private static Candidate toCandidate(TicketRow row) {
+    return toCandidate(
+        row.getId(),
+        row.getPriority(),
+        row.getCreatedAt(),
+        words(row.getCategoryName(), row.getTags()));
+  }
+
+  private static Candidate toCandidate(
+      Long ticketId, Ticket.Priority priority, LocalDateTime createdAt, Set<String> topics) {
+    return new Candidate(
+        ticketId, priority != null ? priority : Ticket.Priority.MEDIUM, createdAt, topics);
+  }
+
+  private static Set<String> words(String... texts) {
+    Set<String> words = new HashSet<>();
+    for (String text : texts) {
+      if (text == null) {
+        continue;
+      }
+      for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+        // Skips short filler such as "of" or "it"
+        if (word.length() >= 3) {
+          words.add(word);
+        }
+      }
+    }
+    return words;
+  }
+
+  private static final class AgentSlot {
+    private final Long agentId;
+    private final Set<String> skills;
+    private final int limit;
+    private int load;
+
+    private AgentSlot(Agent agent) {
+      this.agentId = agent.getId();
+      this.skills = words(agent.getSpecialization(), agent.getDepartment());
+      this.limit = agent.getMaxConcurrentTickets() != null ? agent.getMaxConcurrentTickets() : 0;
+      this.load = agent.getCurrentTicketCount() != null ? agent.getCurrentTicketCount() : 0;
+    }
+
+    // A limit of zero or less means no limit, as in AgentRepository.reserveTicketSlot
+    boolean hasCapacity() {
+      return limit <= 0 || load < limit;
+    }
+
+    int score(Set<String> topics) {
+      int score = 0;
+      for (String topic : topics) {
+        if (skills.contains(topic)) {
+          score++;
+        }
+      }
+      return score;
+    }
+  }
+
+  private static final class CompanyQueue {
+    private final NavigableSet<Candidate> ordered = new TreeSet<>(DISPATCH_ORDER);
+    private final Map<Long, Candidate> byTicket = new HashMap<>();
+
+    synchronized void put(Candidate candidate) {
+      remove(candidate.ticketId());
+      ordered.add(candidate);
+      byTicket.put(candidate.ticketId(), candidate);
+    }
+
+    synchronized boolean remove(Long ticketId) {
+      Candidate existing = byTicket.remove(ticketId);
+      if (existing == null) {
+        return false;
+      }
+      ordered.remove(existing);
+      return true;
+    }
+
+    synchronized int size() {
+      return byTicket.size();
+    }
+
+    synchronized List<Candidate> head(int limit) {
+      List<Candidate> head = new ArrayList<>(Math.min(limit, ordered.size()));
+      for (Candidate candidate : ordered) {
+        if (head.size() >= limit) {
+          break;
+        }
+        head.add(candidate);
+      }
+      return head;
+    }
+  }
+}
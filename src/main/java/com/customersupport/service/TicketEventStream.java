@@ -0,0 +1,366 @@
+package com.customersupport.service;
+
+import com.customersupport.entity.Ticket;
+import com.customersupport.event.TicketEvent;
+import com.customersupport.util.BoundedRingBuffer;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes committed ticket changes to open Server-Sent Events connections, grouped by company.
+ * Agents get every change in their company. Customers get only changes to their own tickets, of
+ * the types in {@link #CUSTOMER_EVENTS}, and responses only when they are public.
+ *
+ * <p>Connections are held as async servlet requests, so an idle one costs no request thread. Each
+ * has a small bounded buffer drained by a shared sender pool; a connection that falls behind has
+ * its buffer dropped and is sent a single "resync" event telling the client to reload in full. A
+ * client that stops reading blocks the sender writing to it until the socket times out, so a send
+ * running longer than the send timeout drops the connection and gives the pool a stand-in thread
+ * until the blocked one returns. Like the board read model this only sees changes made on this
+ * node.
+ */
+@Service
+public class TicketEventStream {
+
+  private static final Logger log = LoggerFactory.getLogger(TicketEventStream.class);
+
+  /** What is pushed for a ticket change; clients fetch the ticket itself if they need more. */
+  public record Message(
+      String event,
+      Long ticketId,
+      String ticketNumber,
+      Ticket.Status status,
+      Long agentId,
+      Long customerId) {}
+
+  private static final Message HEARTBEAT = new Message("heartbeat", null, null, null, null, null);
+  private static final Message RESYNC = new Message("resync", null, null, null, null, null);
+  private static final Message CONNECTED = new Message("connected", null, null, null, null, null);
+
+  // What customers may see; SLA alerts and deletions are for staff only
+  private static final EnumSet<TicketEvent.Type> CUSTOMER_EVENTS =
+      EnumSet.of(
+          TicketEvent.Type.CREATED,
+          TicketEvent.Type.UPDATED,
+          TicketEvent.Type.CLAIMED,
+          TicketEvent.Type.ASSIGNED,
+          TicketEvent.Type.STATUS_CHANGED,
+          TicketEvent.Type.RESOLVED,
+          TicketEvent.Type.RESPONSE_ADDED);
+
+  private final int bufferSize;
+  private final long timeoutMs;
+  private final int maxConnections;
+  private final int senderThreads;
+  private final long sendTimeoutNanos;
+  private final ThreadPoolExecutor sender;
+  // Sender threads blocked on a dropped connection, each covered by a stand-in
+  private int blockedSenders;
+  private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+  private final AtomicInteger connections = new AtomicInteger();
+  private final LongAdder sent = new LongAdder();
+  private final LongAdder resyncs = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder evicted = new LongAdder();
+
+  public TicketEventStream(
+      @Value("${ticket.events.sse.buffer-size:64}") int bufferSize,
+      @Value("${ticket.events.sse.timeout-minutes:30}") long timeoutMinutes,
+      @Value("${ticket.events.sse.max-connections:10000}") int maxConnections,
+      @Value("${ticket.events.sse.sender-threads:2}") int senderThreads,
+      @Value("${ticket.events.sse.send-timeout-ms:5000}") long sendTimeoutMs) {
+    this.bufferSize = bufferSize;
+    this.timeoutMs = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+    this.maxConnections = maxConnections;
+    this.senderThreads = senderThreads;
+    this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+    AtomicInteger threadCount = new AtomicInteger();
+    // Each connection has at most one drain task queued, so the queue is bounded by connections
+    this.sender =
+        new ThreadPoolExecutor(
+            senderThreads,
+            senderThreads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "ticket-events-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  public SseEmitter subscribeAgent(Long companyId) {
+    return subscribe(companyId, null);
+  }
+
+  public SseEmitter subscribeCustomer(Long companyId, Long customerId) {
+    return subscribe(companyId, customerId);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTicketEvent(TicketEvent event) {
+    Set<Subscriber> companySubscribers = subscribers.get(event.companyId());
+    if (companySubscribers == null || companySubscribers.isEmpty()) {
+      return;
+    }
+    Message message = toMessage(event);
+    boolean customerVisible = isCustomerVisible(event);
+    for (Subscriber subscriber : companySubscribers) {
+      if (subscriber.customerId == null
+          || (customerVisible && subscriber.customerId.equals(message.customerId()))) {
+        push(subscriber, message);
+      }
+    }
+  }
+
+  // Drops connections whose current send has been blocked longer than the send timeout
+  @Scheduled(fixedDelayString = "${ticket.events.sse.send-check-ms:1000}")
+  public void evictBlockedConnections() {
+    long now = System.nanoTime();
+    for (Set<Subscriber> companySubscribers : subscribers.values()) {
+      for (Subscriber subscriber : companySubscribers) {
+        long started = subscriber.sendStartedNanos;
+        if (started != 0
+            && now - started > sendTimeoutNanos
+            && subscriber.blocked.compareAndSet(false, true)) {
+          log.info(
+              "Dropping ticket event connection for company {}: send blocked for over {} ms",
+              subscriber.companyId,
+              TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+          evicted.increment();
+          remove(subscriber);
+          resizeSender(1);
+        }
+      }
+    }
+  }
+
+  // Keeps proxies from closing idle connections and finds clients that went away
+  @Scheduled(fixedDelayString = "${ticket.events.sse.heartbeat-ms:20000}")
+  public void sendHeartbeats() {
+    for (Set<Subscriber> companySubscribers : subscribers.values()) {
+      for (Subscriber subscriber : companySubscribers) {
+        if (subscriber.buffer.isEmpty()) {
+          push(subscriber, HEARTBEAT);
+        }
+      }
+    }
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("connections", connections.get());
+    stats.put("companies", subscribers.size());
+    stats.put("maxConnections", maxConnections);
+    stats.put("bufferSize", bufferSize);
+    stats.put("eventsSent", sent.sum());
+    stats.put("resyncs", resyncs.sum());
+    stats.put("rejectedConnections", rejected.sum());
+    stats.put("evictedConnections", evicted.sum());
+    return stats;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sender.shutdownNow();
+    for (Set<Subscriber> companySubscribers : subscribers.values()) {
+      for (Subscriber subscriber : companySubscribers) {
+        subscriber.emitter.complete();
+      }
+    }
+    subscribers.clear();
+  }
+
+  private SseEmitter subscribe(Long companyId, Long customerId) {
+    if (connections.incrementAndGet() > maxConnections) {
+      connections.decrementAndGet();
+      rejected.increment();
+      throw new RuntimeException("Too many ticket event connections");
+    }
+    SseEmitter emitter = new SseEmitter(timeoutMs);
+    Subscriber subscriber =
+        new Subscriber(companyId, customerId, emitter, new BoundedRingBuffer<>(bufferSize));
+    // Added inside compute so it cannot race with remove() dropping an emptied company set
+    subscribers.compute(
+        companyId,
+        (id, companySubscribers) -> {
+          Set<Subscriber> set =
+              companySubscribers != null ? companySubscribers : ConcurrentHashMap.newKeySet();
+          set.add(subscriber);
+          return set;
+        });
+    emitter.onCompletion(() -> remove(subscriber));
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(error -> remove(subscriber));
+    // Sent straight away so the client knows the stream is live and can catch up on what it missed
+    push(subscriber, CONNECTED);
+    return emitter;
+  }
+
+  private void remove(Subscriber subscriber) {
+    if (!subscriber.removed.compareAndSet(false, true)) {
+      return;
+    }
+    connections.decrementAndGet();
+    subscribers.computeIfPresent(
+        subscriber.companyId,
+        (id, companySubscribers) -> {
+          companySubscribers.remove(subscriber);
+          return companySubscribers.isEmpty() ? null : companySubscribers;
+        });
+  }
+
+  private void push(Subscriber subscriber, Message message) {
+    if (subscriber.removed.get()) {
+      return;
+    }
+    if (!subscriber.buffer.offer(message)) {
+      // The client is too far behind for the events to be useful; tell it to reload instead
+      while (subscriber.buffer.poll() != null) {
+        // discard
+      }
+      subscriber.buffer.offer(RESYNC);
+      resyncs.increment();
+    }
+    scheduleDrain(subscriber);
+  }
+
+  private void scheduleDrain(Subscriber subscriber) {
+    if (!subscriber.draining.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      sender.execute(() -> drain(subscriber));
+    } catch (RejectedExecutionException e) {
+      subscriber.draining.set(false);
+    }
+  }
+
+  private void drain(Subscriber subscriber) {
+    try {
+      Message message;
+      while (!subscriber.removed.get() && (message = subscriber.buffer.poll()) != null) {
+        subscriber.sendStartedNanos = System.nanoTime();
+        try {
+          subscriber.emitter.send(toSseEvent(message));
+        } finally {
+          subscriber.sendStartedNanos = 0;
+        }
+        sent.increment();
+      }
+    } catch (IOException | IllegalStateException e) {
+      // Client disconnected or the emitter already completed
+      log.debug("Dropping ticket event connection for company {}", subscriber.companyId, e);
+      remove(subscriber);
+      return;
+    } finally {
+      subscriber.draining.set(false);
+      if (subscriber.blocked.getAndSet(false)) {
+        // Evicted while this send was blocked; the stand-in is no longer needed
+        resizeSender(-1);
+        completeQuietly(subscriber.emitter);
+      }
+    }
+    // A push that arrived after the last poll but before draining was cleared
+    if (!subscriber.removed.get() && !subscriber.buffer.isEmpty()) {
+      scheduleDrain(subscriber);
+    }
+  }
+
+  // Grows the pool by one thread per blocked sender, up to twice its configured size, and shrinks
+  // it again as blocked senders return
+  private synchronized void resizeSender(int delta) {
+    int blocked = blockedSenders + delta;
+    if (blocked < 0) {
+      return;
+    }
+    blockedSenders = blocked;
+    int size = senderThreads + Math.min(blocked, senderThreads);
+    if (size > sender.getMaximumPoolSize()) {
+      sender.setMaximumPoolSize(size);
+      sender.setCorePoolSize(size);
+    } else if (size < sender.getMaximumPoolSize()) {
+      sender.setCorePoolSize(size);
+      sender.setMaximumPoolSize(size);
+    }
+  }
+
+  private static void completeQuietly(SseEmitter emitter) {
+    try {
+      emitter.complete();
+    } catch (IllegalStateException e) {
+      // Already completed
+    }
+  }
+
+  private static boolean isCustomerVisible(TicketEvent event) {
+    if (!CUSTOMER_EVENTS.contains(event.type())) {
+      return false;
+    }
+    return event.type() != TicketEvent.Type.RESPONSE_ADDED
+        || Boolean.TRUE.equals(event.publicResponse());
+  }
+
+  private static SseEmitter.SseEventBuilder toSseEvent(Message message) {
+    if (message == HEARTBEAT) {
+      return SseEmitter.event().comment("heartbeat");
+    }
+    return SseEmitter.event().name(message.event()).data(message, MediaType.APPLICATION_JSON);
+  }
+
+  private static Message toMessage(TicketEvent event) {
+    String name = "ticket-" + event.type().name().toLowerCase().replace('_', '-');
+    if (event.ticket() == null) {
+      return new Message(name, event.ticketId(), null, null, null, null);
+    }
+    return new Message(
+        name,
+        event.ticketId(),
+        event.ticket().getTicketNumber(),
+        event.ticket().getStatus(),
+        event.ticket().getAgentId(),
+        event.ticket().getCustomerId());
+  }
+
+  private static final class Subscriber {
+    private final Long companyId;
+    private final Long customerId;
+    private final SseEmitter emitter;
+    private final BoundedRingBuffer<Message> buffer;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean removed = new AtomicBoolean();
+    private final AtomicBoolean blocked = new AtomicBoolean();
+    // When the send in progress started, 0 when none is
+    private volatile long sendStartedNanos;
+
+    private Subscriber(
+        Long companyId, Long customerId, SseEmitter emitter, BoundedRingBuffer<Message> buffer) {
+      this.companyId = companyId;
+      this.customerId = customerId;
+      this.emitter = emitter;
+      this.buffer = buffer;
+    }
+  }
+}
@@ -0,0 +1,269 @@
+package com.customersupport.service;
+
+import com.customersupport.dto.LatencyPercentilesDTO;
+import com.customersupport.dto.LatencyReportDTO;
+import com.customersupport.dto.TicketLatencyRow;
+import com.customersupport.entity.Ticket;
+import com.customersupport.repository.TicketReportQueries;
+import com.customersupport.util.LatencyHistogram;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Time-to-first-response and time-to-resolution histograms per company and agent, so reports can
+ * show the tail rather than just the mean. Each agent has one fixed-size histogram per kind
+ * (tickets without an agent share one); company figures are the agents' histograms merged. A
+ * company's histograms are seeded from its tickets on first read and then updated from the write
+ * paths once their transaction commits.
+ */
+@Service
+public class TicketLatencyHistograms {
+
+  // About 1.6% relative error in seconds, up to a year; anything slower counts as a year
+  private static final int PRECISION_BITS = 7;
+  private static final long MAX_SECONDS = Duration.ofDays(366).getSeconds();
+  private static final Long UNASSIGNED = 0L;
+
+  // Seeded tickets whose response or resolution is this recent are remembered while the seed
+  // runs, so a record arriving for one of them in the meantime is not counted again
+  private static final Duration SEED_OVERLAP = Duration.ofHours(1);
+
+  private enum Kind {
+    FIRST_RESPONSE,
+    RESOLUTION
+  }
+
+  private record Arrival(Kind kind, Long ticketId, Long agentId, long seconds) {}
+
+  private record Seeded(Kind kind, Long ticketId) {}
+
+  private final TicketReportQueries ticketReportQueries;
+  private final Map<Long, CompanyLatency> companies = new ConcurrentHashMap<>();
+
+  public TicketLatencyHistograms(TicketReportQueries ticketReportQueries) {
+    this.ticketReportQueries = ticketReportQueries;
+  }
+
+  /** Records the ticket's first response once the current transaction commits. */
+  public void recordFirstResponse(Ticket ticket) {
+    record(Kind.FIRST_RESPONSE, ticket, ticket.getFirstResponseTime());
+  }
+
+  /** Records the ticket's resolution once the current transaction commits. */
+  public void recordResolution(Ticket ticket) {
+    LocalDateTime resolvedAt =
+        ticket.getActualResolutionTime() != null
+            ? ticket.getActualResolutionTime()
+            : ticket.getClosedAt();
+    record(Kind.RESOLUTION, ticket, resolvedAt);
+  }
+
+  public LatencyReportDTO getLatencyReport(Long companyId) {
+    CompanyLatency company = company(companyId);
+    company.ensureLoaded();
+
+    LatencyHistogram firstResponse = newHistogram();
+    LatencyHistogram resolution = newHistogram();
+    List<LatencyReportDTO.AgentLatency> agents = new ArrayList<>();
+    company.histograms.forEach(
+        (agentId, histograms) -> {
+          firstResponse.add(histograms.get(Kind.FIRST_RESPONSE));
+          resolution.add(histograms.get(Kind.RESOLUTION));
+          if (!UNASSIGNED.equals(agentId)) {
+            agents.add(
+                LatencyReportDTO.AgentLatency.builder()
+                    .agentId(agentId)
+                    .firstResponse(percentiles(histograms.get(Kind.FIRST_RESPONSE)))
+                    .resolution(percentiles(histograms.get(Kind.RESOLUTION)))
+                    .build());
+          }
+        });
+
+    return LatencyReportDTO.builder()
+        .companyId(companyId)
+        .firstResponse(percentiles(firstResponse))
+        .resolution(percentiles(resolution))
+        .agents(agents)
+        .build();
+  }
+
+  public LatencyReportDTO.AgentLatency getAgentLatency(Long companyId, Long agentId) {
+    CompanyLatency company = company(companyId);
+    company.ensureLoaded();
+    Map<Kind, LatencyHistogram> histograms = company.histograms.get(agentId);
+    return LatencyReportDTO.AgentLatency.builder()
+        .agentId(agentId)
+        .firstResponse(
+            percentiles(histograms != null ? histograms.get(Kind.FIRST_RESPONSE) : null))
+        .resolution(percentiles(histograms != null ? histograms.get(Kind.RESOLUTION) : null))
+        .build();
+  }
+
+  private void record(Kind kind, Ticket ticket, LocalDateTime at) {
+    if (ticket.getCompany() == null || ticket.getCreatedAt() == null || at == null) {
+      return;
+    }
+    Long companyId = ticket.getCompany().getId();
+    Long agentId = ticket.getAgent() != null ? ticket.getAgent().getId() : UNASSIGNED;
+    Long ticketId = ticket.getId();
+    long seconds = Duration.between(ticket.getCreatedAt(), at).getSeconds();
+    afterCommit(() -> company(companyId).record(new Arrival(kind, ticketId, agentId, seconds)));
+  }
+
+  private CompanyLatency company(Long companyId) {
+    return companies.computeIfAbsent(companyId, CompanyLatency::new);
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+
+  private static LatencyHistogram newHistogram() {
+    return new LatencyHistogram(PRECISION_BITS, MAX_SECONDS);
+  }
+
+  private static LatencyPercentilesDTO percentiles(LatencyHistogram histogram) {
+    if (histogram == null) {
+      return LatencyPercentilesDTO.builder().build();
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    return LatencyPercentilesDTO.builder()
+        .count(snapshot.count())
+        .p50(minutes(snapshot.valueAtPercentile(50)))
+        .p90(minutes(snapshot.valueAtPercentile(90)))
+        .p99(minutes(snapshot.valueAtPercentile(99)))
+        .build();
+  }
+
+  private static double minutes(long seconds) {
+    return BigDecimal.valueOf(seconds)
+        .divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP)
+        .doubleValue();
+  }
+
+  private final class CompanyLatency {
+    private final Long companyId;
+    private final Map<Long, Map<Kind, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+    private final Object seedLock = new Object();
+    private volatile boolean loaded;
+    // Records that commit while the seed runs, applied once it is done; guarded by this
+    private List<Arrival> arrivals;
+
+    private CompanyLatency(Long companyId) {
+      this.companyId = companyId;
+    }
+
+    // Until the company is read its tickets are all still in the database, so nothing is
+    // recorded before the seed. Records committing while the seed streams are held back and
+    // applied afterwards, skipping the tickets the seed already counted for the same kind.
+    void ensureLoaded() {
+      if (loaded) {
+        return;
+      }
+      synchronized (seedLock) {
+        synchronized (this) {
+          if (loaded) {
+            return;
+          }
+          arrivals = new ArrayList<>();
+        }
+        LocalDateTime recentFrom = LocalDateTime.now().minus(SEED_OVERLAP);
+        Set<Seeded> recent = new HashSet<>();
+        try (Stream<TicketLatencyRow> rows =
+            ticketReportQueries.streamLatencyRowsByCompany(companyId)) {
+          rows.forEach(row -> seed(row, recentFrom, recent));
+        } catch (RuntimeException e) {
+          synchronized (this) {
+            arrivals = null;
+            histograms.clear();
+          }
+          throw e;
+        }
+        synchronized (this) {
+          for (Arrival arrival : arrivals) {
+            if (!recent.contains(new Seeded(arrival.kind(), arrival.ticketId()))) {
+              add(arrival);
+            }
+          }
+          arrivals = null;
+          loaded = true;
+        }
+      }
+    }
+
+    synchronized void record(Arrival arrival) {
+      if (loaded) {
+        add(arrival);
+      } else if (arrivals != null) {
+        arrivals.add(arrival);
+      }
+    }
+
+    private void add(Arrival arrival) {
+      histograms(arrival.agentId()).get(arrival.kind()).record(arrival.seconds());
+    }
+
+    private void seed(TicketLatencyRow row, LocalDateTime recentFrom, Set<Seeded> recent) {
+      if (row.getCreatedAt() == null) {
+        return;
+      }
+      Map<Kind, LatencyHistogram> agent =
+          histograms(row.getAgentId() != null ? row.getAgentId() : UNASSIGNED);
+      if (row.getFirstResponseTime() != null) {
+        agent
+            .get(Kind.FIRST_RESPONSE)
+            .record(Duration.between(row.getCreatedAt(), row.getFirstResponseTime()).getSeconds());
+        if (!row.getFirstResponseTime().isBefore(recentFrom)) {
+          recent.add(new Seeded(Kind.FIRST_RESPONSE, row.getTicketId()));
+        }
+      }
+      LocalDateTime resolvedAt =
+          row.getActualResolutionTime() != null ? row.getActualResolutionTime() : row.getClosedAt();
+      if (resolvedAt != null
+          && (row.getStatus() == Ticket.Status.RESOLVED
+              || row.getStatus() == Ticket.Status.CLOSED)) {
+        agent
+            .get(Kind.RESOLUTION)
+            .record(Duration.between(row.getCreatedAt(), resolvedAt).getSeconds());
+        if (!resolvedAt.isBefore(recentFrom)) {
+          recent.add(new Seeded(Kind.RESOLUTION, row.getTicketId()));
+        }
+      }
+    }
+
+    private Map<Kind, LatencyHistogram> histograms(Long agentId) {
+      return histograms.computeIfAbsent(
+          agentId,
+          id -> {
+            Map<Kind, LatencyHistogram> byKind = new HashMap<>();
+            for (Kind kind : Kind.values()) {
+              byKind.put(kind, newHistogram());
+            }
+            return byKind;
+          });
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.customersupport.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hands out ticket numbers from blocks reserved in ticket_number_sequences (hi/lo). Within a block
+ * numbers come from an in-memory AtomicLong, so the database is only hit once per block and no
+ * existence check is needed. Blocks are reserved under a row lock, so two nodes never receive
+ * overlapping ranges.
+ *
+ * <p>Blocks are reserved on the ticket number pool rather than the main one: the caller usually
+ * already holds a main pool connection for its own transaction, and a burst of callers each
+ * waiting for a second one could exhaust it.
+ */
+@Service
+public class TicketNumberAllocator {
+
+  public enum Format {
+    // T<companyId>-<sequence>, e.g. T7-000123
+    SEQUENCE,
+    // T<companyId mod 100><yyMMddHHmmss><sequence>, the legacy readable layout
+    TIMESTAMP
+  }
+
+  // TIMESTAMP numbers only carry the company id mod 100, so companies sharing those digits must
+  // not share sequence values; they all draw from this one instead of their own
+  static final long SHARED_SEQUENCE = 0L;
+
+  private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+  private static final DateTimeFormatter TIMESTAMP_FORMAT =
+      DateTimeFormatter.ofPattern("yyMMddHHmmss");
+
+  private static final String SELECT_FOR_UPDATE =
+      "SELECT next_value FROM ticket_number_sequences WHERE company_id = ? FOR UPDATE";
+  private static final String INSERT =
+      "INSERT INTO ticket_number_sequences (company_id, next_value) VALUES (?, ?)";
+  private static final String UPDATE =
+      "UPDATE ticket_number_sequences SET next_value = ? WHERE company_id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final Format format;
+  private final int blockSize;
+
+  private final Map<Long, Block> blocks = new ConcurrentHashMap<>();
+  private final Map<Long, Object> refillLocks = new ConcurrentHashMap<>();
+
+  public TicketNumberAllocator(
+      @Qualifier("ticketNumberDataSource") DataSource dataSource,
+      @Value("${ticket.number.format:SEQUENCE}") Format format,
+      @Value("${ticket.number.block-size:50}") int blockSize) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    // Bound to its own DataSource, so this never joins (or suspends) the caller's JPA transaction
+    this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    this.format = format;
+    this.blockSize = Math.max(1, blockSize);
+  }
+
+  public String nextTicketNumber(Long companyId) {
+    if (format == Format.TIMESTAMP) {
+      long value = nextValue(SHARED_SEQUENCE);
+      return String.format(
+          "T%02d%s%03d",
+          Math.abs(companyId % 100),
+          LocalDateTime.now().format(TIMESTAMP_FORMAT),
+          value);
+    }
+    return String.format("T%d-%06d", companyId, nextValue(companyId));
+  }
+
+  long nextValue(Long sequenceId) {
+    while (true) {
+      Block block = blocks.get(sequenceId);
+      if (block != null) {
+        long value = block.next.getAndIncrement();
+        if (value < block.end) {
+          return value;
+        }
+      }
+
+      // Block missing or exhausted: only one thread per sequence reserves the next one
+      synchronized (refillLocks.computeIfAbsent(sequenceId, id -> new Object())) {
+        if (blocks.get(sequenceId) == block) {
+          long start = reserveBlock(sequenceId);
+          blocks.put(sequenceId, new Block(start, start + blockSize));
+        }
+      }
+    }
+  }
+
+  private long reserveBlock(Long sequenceId) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        Long start = transactionTemplate.execute(status -> reserveBlockInTransaction(sequenceId));
+        if (start == null) {
+          throw new RuntimeException("Unable to reserve ticket numbers. Please try again.");
+        }
+        return start;
+      } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+        // Another node created the sequence row first, or the two inserts deadlocked; the row
+        // either exists now or will on the next try
+        if (attempt >= MAX_RESERVE_ATTEMPTS) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  private Long reserveBlockInTransaction(Long sequenceId) {
+    List<Long> current = jdbcTemplate.queryForList(SELECT_FOR_UPDATE, Long.class, sequenceId);
+    if (current.isEmpty()) {
+      jdbcTemplate.update(INSERT, sequenceId, 1L + blockSize);
+      return 1L;
+    }
+    long first = current.get(0);
+    jdbcTemplate.update(UPDATE, first + blockSize, sequenceId);
+    return first;
+  }
+
+  private static final class Block {
+    private final AtomicLong next;
+    private final long end;
+
+    private Block(long start, long end) {
+      this.next = new AtomicLong(start);
+      this.end = end;
+    }
+  }
+}
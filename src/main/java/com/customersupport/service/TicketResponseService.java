@@ -1,9 +1,11 @@
 package com.customersupport.service;
 
+import com.customersupport.dto.TicketDTO;
 import com.customersupport.dto.TicketResponseDTO;
 import com.customersupport.entity.Ticket;
 import com.customersupport.entity.TicketResponse;
 import com.customersupport.entity.User;
+import com.customersupport.event.TicketEvent;
 import com.customersupport.repository.TicketRepository;
 import com.customersupport.repository.TicketResponseRepository;
 import com.customersupport.repository.UserRepository;
@@ -14,6 +16,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +28,8 @@ public class TicketResponseService {
   private final TicketResponseRepository ticketResponseRepository;
   private final TicketRepository ticketRepository;
   private final UserRepository userRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TicketLatencyHistograms ticketLatencyHistograms;
 
   public TicketResponseDTO addResponse(Long ticketId, TicketResponseDTO responseDTO) {
     Ticket ticket =
@@ -49,8 +54,10 @@ public class TicketResponseService {
     response.setCreatedAt(LocalDateTime.now());
     response.setAttachments(responseDTO.getAttachments());
 
-    if (TicketResponse.ResponseType.AGENT_REPLY.equals(response.getResponseType())
-        && ticket.getFirstResponseTime() == null) {
+    boolean firstResponse =
+        TicketResponse.ResponseType.AGENT_REPLY.equals(response.getResponseType())
+            && ticket.getFirstResponseTime() == null;
+    if (firstResponse) {
       ticket.setFirstResponseTime(LocalDateTime.now());
     }
 
@@ -65,8 +72,14 @@ public class TicketResponseService {
     BigDecimal responseTime = calculateResponseTime(ticket.getCreatedAt(), response.getCreatedAt());
     response.setResponseTime(responseTime);
 
-    ticketRepository.save(ticket);
+    // Flushed so the event's copy carries the version this change commits with
+    Ticket savedTicket = ticketRepository.saveAndFlush(ticket);
     TicketResponse savedResponse = ticketResponseRepository.save(response);
+    if (firstResponse) {
+      ticketLatencyHistograms.recordFirstResponse(savedTicket);
+    }
+    eventPublisher.publishEvent(
+        TicketEvent.responseAdded(TicketDTO.fromEntity(savedTicket), isPublic));
 
     return convertToDTO(savedResponse);
   }
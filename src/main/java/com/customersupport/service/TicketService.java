@@ -1,23 +1,27 @@
 package com.customersupport.service;
 
 import com.customersupport.dto.AgentTicketBoardDTO;
+import com.customersupport.dto.TicketBoardDeltaDTO;
 import com.customersupport.dto.TicketCreateDTO;
 import com.customersupport.dto.TicketDTO;
+import com.customersupport.dto.TicketPageDTO;
+import com.customersupport.dto.TicketRow;
+import com.customersupport.dto.TicketStatusCounts;
 import com.customersupport.entity.Agent;
 import com.customersupport.entity.Category;
 import com.customersupport.entity.Company;
 import com.customersupport.entity.Customer;
 import com.customersupport.entity.Ticket;
+import com.customersupport.event.TicketEvent;
 import com.customersupport.repository.CategoryRepository;
 import com.customersupport.repository.CompanyRepository;
 import com.customersupport.repository.CustomerRepository;
 import com.customersupport.repository.TicketRepository;
 import jakarta.transaction.Transactional;
-import java.time.LocalDate;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
-import java.util.EnumMap;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
@@ -25,7 +29,15 @@ import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @Transactional
@@ -43,49 +55,83 @@ public class TicketService {
 
   @Autowired private EmailService emailService;
 
+  @Autowired private TicketNumberAllocator ticketNumberAllocator;
+
+  @Autowired private TicketBoardReadModel ticketBoardReadModel;
+
+  @Autowired private ApplicationEventPublisher eventPublisher;
+
+  @Autowired private TicketLatencyHistograms ticketLatencyHistograms;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Value("${default.page.size:10}")
+  private int defaultPageSize;
+
+  @Value("${ticket.claim.max-attempts:3}")
+  private int claimMaxAttempts;
+
+  @Value("${ticket.claim.retry-backoff-ms:25}")
+  private long claimRetryBackoffMs;
+
+  private static final int MAX_PAGE_SIZE = 100;
+
   private static final EnumSet<Ticket.Status> ACTIVE_STATUSES =
       EnumSet.of(Ticket.Status.OPEN, Ticket.Status.IN_PROGRESS, Ticket.Status.PENDING_CUSTOMER);
 
-  private static final EnumSet<Ticket.Status> CLOSED_STATUSES =
-      EnumSet.of(Ticket.Status.RESOLVED, Ticket.Status.CLOSED, Ticket.Status.CANCELLED);
+  private static final EnumSet<Ticket.Status> RESOLVED_STATUSES =
+      EnumSet.of(Ticket.Status.RESOLVED, Ticket.Status.CLOSED);
 
   // Get tickets by company with optional filters
   public List<TicketDTO> getTicketsByCompany(Long companyId) {
-    return ticketRepository.findByCompanyIdOrderByCreatedAtDesc(companyId).stream()
-        .map(TicketDTO::fromEntity)
-        .collect(Collectors.toList());
+    return toTicketDTOs(
+        ticketRepository.findCompanyTicketRows(companyId, null, null, Pageable.unpaged()));
   }
 
   public List<TicketDTO> getTicketsByCompany(Long companyId, Ticket.Status status, String keyword) {
-    List<Ticket> tickets;
+    return toTicketDTOs(
+        ticketRepository.findCompanyTicketRows(
+            companyId, status, normalizeKeyword(keyword), Pageable.unpaged()));
+  }
 
-    String normalizedKeyword = null;
-    if (keyword != null) {
-      normalizedKeyword = keyword.trim();
-    }
-    boolean hasKeyword = normalizedKeyword != null && !normalizedKeyword.isEmpty();
+  // Cursor-paginated company tickets, newest first. The cursor is the opaque token returned as
+  // nextCursor by the previous page.
+  public TicketPageDTO getTicketPageByCompany(
+      Long companyId, Ticket.Status status, String keyword, Integer size, String cursor) {
+    int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, MAX_PAGE_SIZE);
 
-    if (status != null && hasKeyword) {
-      tickets =
-          ticketRepository.searchTicketByCompany(companyId, normalizedKeyword).stream()
-              .filter(ticket -> ticket.getStatus() == status)
-              .sorted(Comparator.comparing(Ticket::getCreatedAt).reversed())
-              .collect(Collectors.toList());
-    } else if (status != null) {
-      tickets =
-          ticketRepository.findByCompanyIdAndStatus(companyId, status).stream()
-              .sorted(Comparator.comparing(Ticket::getCreatedAt).reversed())
-              .collect(Collectors.toList());
-    } else if (hasKeyword) {
+    String normalizedKeyword = normalizeKeyword(keyword);
+
+    // Fetch one extra row to know whether another page exists
+    PageRequest limit = PageRequest.of(0, pageSize + 1);
+    List<TicketRow> tickets;
+    if (cursor == null || cursor.isBlank()) {
       tickets =
-          ticketRepository.searchTicketByCompany(companyId, normalizedKeyword).stream()
-              .sorted(Comparator.comparing(Ticket::getCreatedAt).reversed())
-              .collect(Collectors.toList());
+          ticketRepository.findCompanyTicketRows(companyId, status, normalizedKeyword, limit);
     } else {
-      tickets = ticketRepository.findByCompanyIdOrderByCreatedAtDesc(companyId);
+      TicketCursor position = decodeCursor(cursor);
+      tickets =
+          ticketRepository.findCompanyTicketRowsAfter(
+              companyId, status, normalizedKeyword, position.createdAt(), position.id(), limit);
+    }
+
+    boolean hasMore = tickets.size() > pageSize;
+    if (hasMore) {
+      tickets = tickets.subList(0, pageSize);
+    }
+
+    String nextCursor = null;
+    if (hasMore) {
+      TicketRow last = tickets.get(tickets.size() - 1);
+      nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
     }
 
-    return tickets.stream().map(TicketDTO::fromEntity).collect(Collectors.toList());
+    return TicketPageDTO.builder()
+        .tickets(toTicketDTOs(tickets))
+        .size(tickets.size())
+        .nextCursor(nextCursor)
+        .hasMore(hasMore)
+        .build();
   }
 
   public long countTicketsByCompany(Long companyId) {
@@ -98,12 +144,12 @@ public class TicketService {
     return count != null ? count : 0L;
   }
 
+  public TicketStatusCounts getTicketStatusCounts(Long companyId) {
+    return TicketStatusCounts.fromRows(ticketRepository.countByStatusForCompany(companyId));
+  }
+
   public Map<Ticket.Status, Long> getTicketStatusBreakdown(Long companyId) {
-    Map<Ticket.Status, Long> breakdown = new EnumMap<>(Ticket.Status.class);
-    for (Ticket.Status status : Ticket.Status.values()) {
-      breakdown.put(status, countTicketsByCompanyAndStatus(companyId, status));
-    }
-    return breakdown;
+    return getTicketStatusCounts(companyId).asMap();
   }
 
   // Create a new ticket
@@ -154,7 +200,7 @@ public class TicketService {
     ticket.setSource(Optional.ofNullable(ticketCreateDTO.getSource()).orElse(Ticket.Source.WEB));
     ticket.setTags(ticketCreateDTO.getTags());
     ticket.setAttachment(ticketCreateDTO.getAttachments());
-    ticket.setTicketNumber(generateUniqueTicketNumber(company.getId()));
+    ticket.setTicketNumber(ticketNumberAllocator.nextTicketNumber(company.getId()));
 
     // Set category if provided
     if (ticketCreateDTO.getCategoryId() != null) {
@@ -178,13 +224,14 @@ public class TicketService {
 
     // Send email notifications to all agents of the company
     TicketDTO ticketDTO = TicketDTO.fromEntity(savedTicket);
+    publish(TicketEvent.Type.CREATED, ticketDTO);
     String customerName =
         customer.getUser().getFirstname() + " " + customer.getUser().getLastname();
 
-    // Get all agents for the company
-    List<Agent> companyAgents = agentRepository.findByCompanyId(company.getId());
+    // Get all agents for the company, with their users in the same query
+    List<Agent> companyAgents = agentRepository.findByCompanyIdWithUser(company.getId());
 
-    // Send email notification to each agent
+    // Queue an email notification for each agent
     for (Agent agent : companyAgents) {
       String agentName = agent.getUser().getFirstname() + " " + agent.getUser().getLastname();
       emailService.sendNewTicketNotification(
@@ -201,23 +248,18 @@ public class TicketService {
 
   // Get tickets by customer
   public List<TicketDTO> getTicketsByCustomer(Long customerId) {
-    return ticketRepository.findByCustomerIdOrderByCreatedAtDesc(customerId).stream()
-        .map(TicketDTO::fromEntity)
-        .collect(Collectors.toList());
+    return toTicketDTOs(ticketRepository.findCustomerTicketRows(customerId, null, null));
   }
 
   // Get tickets by customer and status
   public List<TicketDTO> getTicketsByCustomerAndStatus(Long customerId, Ticket.Status status) {
-    return ticketRepository.findByCustomerIdAndStatus(customerId, status).stream()
-        .map(TicketDTO::fromEntity)
-        .collect(Collectors.toList());
+    return toTicketDTOs(ticketRepository.findCustomerTicketRows(customerId, status, null));
   }
 
   // Search tickets by customer
   public List<TicketDTO> searchTicketsByCustomer(Long customerId, String keyword) {
-    return ticketRepository.searchTicketsByCustomer(customerId, keyword).stream()
-        .map(TicketDTO::fromEntity)
-        .collect(Collectors.toList());
+    return toTicketDTOs(
+        ticketRepository.findCustomerTicketRows(customerId, null, normalizeKeyword(keyword)));
   }
 
   // Update ticket (customer can only update if status is OPEN and no agent assigned)
@@ -271,8 +313,8 @@ public class TicketService {
       ticket.setAttachment(ticketUpdateDTO.getAttachments());
     }
 
-    Ticket updatedTicket = ticketRepository.save(ticket);
-    return TicketDTO.fromEntity(updatedTicket);
+    Ticket updatedTicket = ticketRepository.saveAndFlush(ticket);
+    return publish(TicketEvent.Type.UPDATED, TicketDTO.fromEntity(updatedTicket));
   }
 
   public TicketDTO getTicketForCustomer(Long ticketId, Long customerId) {
@@ -310,6 +352,7 @@ public class TicketService {
     Customer customer = ticket.getCustomer();
 
     ticketRepository.delete(ticket);
+    eventPublisher.publishEvent(TicketEvent.deleted(ticket.getCompany().getId(), ticketId));
 
     if (customer.getTotalTickets() > 0) {
       customer.setTotalTickets(customer.getTotalTickets() - 1);
@@ -333,9 +376,12 @@ public class TicketService {
           "This ticket cannot be cancelled. It is already resolved or closed");
     }
 
+    Ticket.Status previousStatus = ticket.getStatus();
     ticket.setStatus(Ticket.Status.CANCELLED);
     ticket.setClosedAt(LocalDateTime.now());
-    ticketRepository.save(ticket);
+    Ticket cancelledTicket = ticketRepository.saveAndFlush(ticket);
+    publishStatusChange(
+        TicketEvent.Type.STATUS_CHANGED, TicketDTO.fromEntity(cancelledTicket), previousStatus);
   }
 
   // Get ticket by ticket number
@@ -350,10 +396,10 @@ public class TicketService {
 
   // Get tickets by agent
   public List<TicketDTO> getTicketsByAgent(Long agentId) {
-    List<Ticket> tickets = ticketRepository.findByAgentId(agentId);
-    return tickets.stream().map(TicketDTO::fromEntity).collect(Collectors.toList());
+    return toTicketDTOs(ticketRepository.findAgentTicketRows(agentId, null));
   }
 
+  // Served from the in-memory board, which is kept current by ticket events
   public AgentTicketBoardDTO getAgentTicketBoard(Long agentId) {
     Agent agent =
         agentRepository
@@ -361,45 +407,7 @@ public class TicketService {
             .orElseThrow(() -> new RuntimeException("Agent not found"));
 
     Long companyId = agent.getCompany().getId();
-    List<TicketDTO> companyTickets =
-        ticketRepository.findByCompanyIdOrderByCreatedAtDesc(companyId).stream()
-            .map(TicketDTO::fromEntity)
-            .collect(Collectors.toList());
-
-    List<TicketDTO> assignedTickets =
-        companyTickets.stream()
-            .filter(
-                ticket ->
-                    agentId.equals(ticket.getAgentId())
-                        && ACTIVE_STATUSES.contains(ticket.getStatus()))
-            .collect(Collectors.toList());
-
-    List<TicketDTO> availableTickets =
-        companyTickets.stream()
-            .filter(
-                ticket -> ticket.getAgentId() == null && ticket.getStatus() == Ticket.Status.OPEN)
-            .collect(Collectors.toList());
-
-    List<TicketDTO> activeCompanyTickets =
-        companyTickets.stream()
-            .filter(ticket -> ACTIVE_STATUSES.contains(ticket.getStatus()))
-            .collect(Collectors.toList());
-
-    List<TicketDTO> closedCompanyTickets =
-        companyTickets.stream()
-            .filter(ticket -> CLOSED_STATUSES.contains(ticket.getStatus()))
-            .collect(Collectors.toList());
-
-    LocalDate today = LocalDate.now();
-
-    long resolvedToday =
-        assignedTickets.stream()
-            .filter(
-                ticket ->
-                    ticket.getStatus() == Ticket.Status.RESOLVED
-                        && ticket.getUpdatedAt() != null
-                        && ticket.getUpdatedAt().toLocalDate().isEqual(today))
-            .count();
+    TicketBoardReadModel.AgentView view = ticketBoardReadModel.view(companyId, agentId);
 
     Double averageResolutionHours =
         Optional.ofNullable(agent.getAverageResolutionTime())
@@ -413,11 +421,11 @@ public class TicketService {
 
     AgentTicketBoardDTO.AgentStats stats =
         AgentTicketBoardDTO.AgentStats.builder()
-            .assignedCount(assignedTickets.size())
-            .availableCount(availableTickets.size())
-            .activeCount(activeCompanyTickets.size())
-            .closedCount(closedCompanyTickets.size())
-            .resolvedToday(resolvedToday)
+            .assignedCount(view.assignedTickets().size())
+            .availableCount(view.availableTickets().size())
+            .activeCount(view.activeCompanyTickets().size())
+            .closedCount(view.closedCompanyTickets().size())
+            .resolvedToday(view.resolvedToday())
             .averageResolutionHours(averageResolutionHours)
             .satisfactionRating(satisfactionRating)
             .build();
@@ -434,19 +442,29 @@ public class TicketService {
             .build();
 
     return AgentTicketBoardDTO.builder()
-        .assignedTickets(assignedTickets)
-        .availableTickets(availableTickets)
-        .activeCompanyTickets(activeCompanyTickets)
-        .closedCompanyTickets(closedCompanyTickets)
+        .assignedTickets(view.assignedTickets())
+        .availableTickets(view.availableTickets())
+        .activeCompanyTickets(view.activeCompanyTickets())
+        .closedCompanyTickets(view.closedCompanyTickets())
         .stats(stats)
         .agent(agentSummary)
+        .version(view.version())
         .build();
   }
 
+  // Tickets that changed on the agent's board since the given board version
+  public TicketBoardDeltaDTO getAgentTicketBoardChanges(Long agentId, long sinceVersion) {
+    Agent agent =
+        agentRepository
+            .findById(agentId)
+            .orElseThrow(() -> new RuntimeException("Agent not found"));
+
+    return ticketBoardReadModel.changesSince(agent.getCompany().getId(), agentId, sinceVersion);
+  }
+
   // Get tickets by agent and status
   public List<TicketDTO> getTicketsByAgentAndStatus(Long agentId, Ticket.Status status) {
-    List<Ticket> tickets = ticketRepository.findByAgentIdAndStatus(agentId, status);
-    return tickets.stream().map(TicketDTO::fromEntity).collect(Collectors.toList());
+    return toTicketDTOs(ticketRepository.findAgentTicketRows(agentId, status));
   }
 
   // Update ticket status by agent
@@ -472,9 +490,13 @@ public class TicketService {
       }
     }
 
-    Ticket updatedTicket = ticketRepository.save(ticket);
+    Ticket updatedTicket = ticketRepository.saveAndFlush(ticket);
     updateAgentTicketCountOnStatusChange(ticket, previousStatus, status);
-    return TicketDTO.fromEntity(updatedTicket);
+    if (RESOLVED_STATUSES.contains(status) && !RESOLVED_STATUSES.contains(previousStatus)) {
+      ticketLatencyHistograms.recordResolution(updatedTicket);
+    }
+    return publishStatusChange(
+        TicketEvent.Type.STATUS_CHANGED, TicketDTO.fromEntity(updatedTicket), previousStatus);
   }
 
   // Update ticket priority
@@ -492,8 +514,8 @@ public class TicketService {
     ticket.setPriority(priority);
     ticket.setLastActivity(LocalDateTime.now());
 
-    Ticket updatedTicket = ticketRepository.save(ticket);
-    return TicketDTO.fromEntity(updatedTicket);
+    Ticket updatedTicket = ticketRepository.saveAndFlush(ticket);
+    return publish(TicketEvent.Type.UPDATED, TicketDTO.fromEntity(updatedTicket));
   }
 
   // Assign ticket to agent
@@ -516,20 +538,23 @@ public class TicketService {
     Agent previousAgent = ticket.getAgent();
     Ticket.Status previousStatus = ticket.getStatus();
 
-    validateAgentCapacity(agent);
+    boolean agentChanged = previousAgent == null || !previousAgent.getId().equals(agent.getId());
+    if (agentChanged) {
+      reserveAgentSlot(agent.getId());
+      if (previousAgent != null) {
+        decrementAgentTicketCount(previousAgent);
+      }
+    } else if (!ACTIVE_STATUSES.contains(previousStatus)) {
+      // Reopening the agent's own ticket takes a slot again; an active one already holds it
+      reserveAgentSlot(agent.getId());
+    }
 
     ticket.setAgent(agent);
     ticket.setStatus(Ticket.Status.IN_PROGRESS);
     ticket.setLastActivity(LocalDateTime.now());
 
-    boolean agentChanged = previousAgent == null || !previousAgent.getId().equals(agent.getId());
-    adjustAgentAssignmentCounts(previousAgent, agent);
-    if (!agentChanged) {
-      updateAgentTicketCountOnStatusChange(ticket, previousStatus, ticket.getStatus());
-    }
-
-    Ticket updatedTicket = ticketRepository.save(ticket);
-    TicketDTO ticketDTO = TicketDTO.fromEntity(updatedTicket);
+    Ticket updatedTicket = ticketRepository.saveAndFlush(ticket);
+    TicketDTO ticketDTO = publish(TicketEvent.Type.ASSIGNED, TicketDTO.fromEntity(updatedTicket));
 
     // Send email notification to the customer when agent is assigned by admin
     if (agentChanged) {
@@ -545,7 +570,30 @@ public class TicketService {
     return ticketDTO;
   }
 
+  // Claiming is a conditional UPDATE on the ticket plus an atomic slot reservation on the agent,
+  // so of several agents claiming one ticket exactly one wins and counts cannot drift. Lock
+  // conflicts with other writers are retried in a fresh transaction.
+  @Transactional(Transactional.TxType.SUPPORTS)
   public TicketDTO claimTicket(Long ticketId, Long agentId) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      // Part of a caller's transaction, which a retry could not start over
+      return attemptClaim(ticketId, agentId);
+    }
+
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return transaction.execute(status -> attemptClaim(ticketId, agentId));
+      } catch (ConcurrencyFailureException e) {
+        if (attempt >= claimMaxAttempts) {
+          throw new RuntimeException("Ticket is being updated, please try again");
+        }
+        backOff(attempt);
+      }
+    }
+  }
+
+  private TicketDTO attemptClaim(Long ticketId, Long agentId) {
     Ticket ticket =
         ticketRepository
             .findById(ticketId)
@@ -574,29 +622,26 @@ public class TicketService {
       throw new RuntimeException("You cannot claim tickets from another company");
     }
 
-    validateAgentCapacity(agent);
-
-    Agent previousAgent = ticket.getAgent();
-    Ticket.Status previousStatus = ticket.getStatus();
-
-    ticket.setAgent(agent);
-    ticket.setStatus(Ticket.Status.IN_PROGRESS);
-    ticket.setLastActivity(LocalDateTime.now());
-
-    boolean agentChanged = previousAgent == null || !previousAgent.getId().equals(agent.getId());
-    adjustAgentAssignmentCounts(previousAgent, agent);
-    if (!agentChanged) {
-      updateAgentTicketCountOnStatusChange(ticket, previousStatus, ticket.getStatus());
+    // The checks above read a snapshot; the UPDATE re-checks under the row lock. Either failure
+    // throws and rolls back the other change.
+    if (ticketRepository.claimIfOpen(ticketId, agent, LocalDateTime.now()) == 0) {
+      throw new RuntimeException("Ticket has already been claimed by another agent");
     }
+    reserveAgentSlot(agentId);
 
-    Ticket updatedTicket = ticketRepository.save(ticket);
-    TicketDTO ticketDTO = TicketDTO.fromEntity(updatedTicket);
+    Ticket claimedTicket =
+        ticketRepository
+            .findById(ticketId)
+            .orElseThrow(() -> new RuntimeException("Ticket not found"));
+    TicketDTO ticketDTO = publish(TicketEvent.Type.CLAIMED, TicketDTO.fromEntity(claimedTicket));
 
     // Send email notification to the customer
-    Customer customer = ticket.getCustomer();
+    Customer customer = claimedTicket.getCustomer();
     String customerName =
         customer.getUser().getFirstname() + " " + customer.getUser().getLastname();
-    String agentName = agent.getUser().getFirstname() + " " + agent.getUser().getLastname();
+    Agent claimingAgent = claimedTicket.getAgent();
+    String agentName =
+        claimingAgent.getUser().getFirstname() + " " + claimingAgent.getUser().getLastname();
 
     emailService.sendTicketClaimedNotification(
         customer.getUser().getEmail(), customerName, ticketDTO, agentName);
@@ -604,6 +649,18 @@ public class TicketService {
     return ticketDTO;
   }
 
+  private void backOff(int attempt) {
+    long delay =
+        claimRetryBackoffMs * attempt
+            + ThreadLocalRandom.current().nextLong(Math.max(1, claimRetryBackoffMs));
+    try {
+      Thread.sleep(delay);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while claiming ticket");
+    }
+  }
+
   // Resolve ticket
   public TicketDTO resolveTicket(Long ticketId, Long agentId, String resolution) {
     Ticket ticket =
@@ -623,41 +680,61 @@ public class TicketService {
     ticket.setActualResolutionTime(LocalDateTime.now());
     ticket.setLastActivity(LocalDateTime.now());
 
-    Ticket updatedTicket = ticketRepository.save(ticket);
+    Ticket updatedTicket = ticketRepository.saveAndFlush(ticket);
     updateAgentTicketCountOnStatusChange(ticket, previousStatus, Ticket.Status.RESOLVED);
-    return TicketDTO.fromEntity(updatedTicket);
+    if (!RESOLVED_STATUSES.contains(previousStatus)) {
+      ticketLatencyHistograms.recordResolution(updatedTicket);
+    }
+    return publishStatusChange(
+        TicketEvent.Type.RESOLVED, TicketDTO.fromEntity(updatedTicket), previousStatus);
   }
 
-  private String generateUniqueTicketNumber(Long companyId) {
-    int attempts = 0;
-    while (attempts < 5) {
-      String candidate = buildTicketNumber(companyId);
-      if (!ticketRepository.existsByTicketNumber(candidate)) {
-        return candidate;
-      }
-      attempts++;
-    }
-    throw new RuntimeException("Unable to generate a unique ticket number. Please try again.");
+  // Listeners such as the agent board see the change once the transaction commits. Updated tickets
+  // are flushed before they are copied, so the copy carries the version the change commits with.
+  private TicketDTO publish(TicketEvent.Type type, TicketDTO ticket) {
+    eventPublisher.publishEvent(TicketEvent.of(type, ticket));
+    return ticket;
+  }
+
+  private TicketDTO publishStatusChange(
+      TicketEvent.Type type, TicketDTO ticket, Ticket.Status previousStatus) {
+    eventPublisher.publishEvent(TicketEvent.statusChanged(type, ticket, previousStatus));
+    return ticket;
   }
 
-  private String buildTicketNumber(Long companyId) {
-    String companySegment =
-        companyId != null ? String.format("%02d", Math.abs(companyId % 100)) : "00";
-    String timestampSegment =
-        LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyMMddHHmmss"));
-    int random = ThreadLocalRandom.current().nextInt(0, 1000);
-    return String.format("T%s%s%03d", companySegment, timestampSegment, random);
+  private List<TicketDTO> toTicketDTOs(List<TicketRow> rows) {
+    return rows.stream().map(TicketDTO::fromRow).collect(Collectors.toList());
   }
 
-  private void adjustAgentAssignmentCounts(Agent previousAgent, Agent newAgent) {
-    if (previousAgent != null
-        && (newAgent == null || !previousAgent.getId().equals(newAgent.getId()))) {
-      decrementAgentTicketCount(previousAgent);
+  private String normalizeKeyword(String keyword) {
+    if (keyword == null) {
+      return null;
     }
+    String trimmed = keyword.trim();
+    return trimmed.isEmpty() ? null : trimmed;
+  }
+
+  private record TicketCursor(LocalDateTime createdAt, Long id) {}
 
-    if (newAgent != null
-        && (previousAgent == null || !previousAgent.getId().equals(newAgent.getId()))) {
-      incrementAgentTicketCount(newAgent);
+  private String encodeCursor(LocalDateTime createdAt, Long id) {
+    String raw = createdAt + "|" + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private TicketCursor decodeCursor(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = raw.lastIndexOf('|');
+      if (separator <= 0) {
+        throw new RuntimeException("Invalid pagination cursor");
+      }
+      return new TicketCursor(
+          LocalDateTime.parse(raw.substring(0, separator)),
+          Long.parseLong(raw.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new RuntimeException("Invalid pagination cursor");
     }
   }
 
@@ -678,28 +755,17 @@ public class TicketService {
     }
   }
 
+  // Counts are changed in the database rather than on the loaded Agent, which may be stale
   private void incrementAgentTicketCount(Agent agent) {
-    int currentCount = Optional.ofNullable(agent.getCurrentTicketCount()).orElse(0);
-    agent.setCurrentTicketCount(currentCount + 1);
-    agentRepository.save(agent);
+    agentRepository.incrementTicketCount(agent.getId());
   }
 
   private void decrementAgentTicketCount(Agent agent) {
-    int currentCount = Optional.ofNullable(agent.getCurrentTicketCount()).orElse(0);
-    if (currentCount > 0) {
-      agent.setCurrentTicketCount(currentCount - 1);
-      agentRepository.save(agent);
-    }
+    agentRepository.decrementTicketCount(agent.getId());
   }
 
-  private void validateAgentCapacity(Agent agent) {
-    Integer maxConcurrent = agent.getMaxConcurrentTickets();
-    if (maxConcurrent == null || maxConcurrent <= 0) {
-      return;
-    }
-
-    int currentCount = Optional.ofNullable(agent.getCurrentTicketCount()).orElse(0);
-    if (currentCount >= maxConcurrent) {
+  private void reserveAgentSlot(Long agentId) {
+    if (agentRepository.reserveTicketSlot(agentId) == 0) {
       throw new RuntimeException("You have reached your maximum concurrent ticket limit");
     }
   }
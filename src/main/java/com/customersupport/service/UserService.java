@@ -9,6 +9,7 @@ import com.customersupport.repository.RoleRepository;
 import com.customersupport.repository.UserRepository;
 import com.customersupport.util.PasswordEncoder;
 import jakarta.transaction.Transactional;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -30,6 +31,10 @@ public class UserService {
 
   @Autowired private EmailService emailService;
 
+  @Autowired private AuthService authService;
+
+  @Autowired private PrincipalCacheService principalCacheService;
+
   // get all users
   public List<UserDTO> getAllUsers() {
     return userRepository.findAllOrderByCreatedAtDesc().stream()
@@ -132,6 +137,7 @@ public class UserService {
     user.setEmailVerified(userDTO.getEmailVerified());
 
     User updatedUser = userRepository.save(user);
+    principalCacheService.invalidate(id);
     return UserDTO.fromEntity(updatedUser);
   }
 
@@ -141,6 +147,7 @@ public class UserService {
         userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
     user.setStatus(User.UserStatus.ACTIVE);
     userRepository.save(user);
+    principalCacheService.invalidate(id);
   }
 
   // Deactivate user
@@ -149,6 +156,7 @@ public class UserService {
         userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
     user.setStatus(User.UserStatus.INACTIVE);
     userRepository.save(user);
+    principalCacheService.invalidate(id);
   }
 
   // Delete user
@@ -156,6 +164,7 @@ public class UserService {
     User user =
         userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
     userRepository.delete(user);
+    principalCacheService.invalidate(id);
   }
 
   // Reset password
@@ -168,8 +177,9 @@ public class UserService {
 
     userRepository.save(user);
 
-    // Send email with new password
-    emailService.sendPasswordResetEmail(user, newPassword);
+    // The email links to the password page; the temporary password is only returned to the admin
+    String resetToken = authService.issuePasswordResetToken(user, Duration.ofHours(24));
+    emailService.sendPasswordResetEmail(user, resetToken);
 
     return newPassword;
   }
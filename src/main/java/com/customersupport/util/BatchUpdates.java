@@ -0,0 +1,27 @@
+package com.customersupport.util;
+
+import java.sql.Statement;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+
+/**
+ * Reads JDBC batch update counts. The MySQL URL sets rewriteBatchedStatements=true, so the driver
+ * sends a batch in as few round trips as it can. INSERT batches become multi-row statements that
+ * report SUCCESS_NO_INFO for every row, and ON DUPLICATE KEY UPDATE counts an updated row as 2.
+ * UPDATE and DELETE batches go out as one multi-statement query and keep exact per-row counts.
+ */
+public final class BatchUpdates {
+
+  private BatchUpdates() {}
+
+  /**
+   * Whether the statement at this position changed a row. Callers that act on the answer must not
+   * guess, so a count the driver did not report fails the batch instead.
+   */
+  public static boolean changedRow(int count) {
+    if (count == Statement.SUCCESS_NO_INFO) {
+      throw new IncorrectUpdateSemanticsDataAccessException(
+          "The driver did not report which batched statements changed a row");
+    }
+    return count > 0;
+  }
+}
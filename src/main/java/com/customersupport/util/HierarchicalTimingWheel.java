@@ -0,0 +1,183 @@
+package com.customersupport.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Hierarchical timing wheel (Varghese and Lauck) for timers keyed by {@code K}. Level 0 has one
+ * slot per tick; each higher level has slots {@code 2^wheelBits} times as wide. A timer sits in
+ * the lowest level whose current rotation contains its deadline and is moved down a level when
+ * the clock reaches its slot, so scheduling, cancelling and firing are O(1) and a tick only
+ * touches the slots that are due. Deadlines beyond the top level wait in its slot 0 and are
+ * placed again once the clock gets there.
+ *
+ * <p>Timers never fire early, and fire at most one tick late. Not thread-safe; callers lock.
+ */
+public final class HierarchicalTimingWheel<K, V> {
+
+  private final long tickMillis;
+  private final int wheelBits;
+  private final int mask;
+  private final Node<K, V>[][] levels;
+  private final Map<K, Node<K, V>> timers = new HashMap<>();
+  // The next tick to fire
+  private long currentTick;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public HierarchicalTimingWheel(long tickMillis, int wheelBits, int levelCount, long startMillis) {
+    if (tickMillis <= 0 || wheelBits <= 0 || levelCount <= 0 || wheelBits * levelCount >= 62) {
+      throw new IllegalArgumentException("Invalid timing wheel dimensions");
+    }
+    this.tickMillis = tickMillis;
+    this.wheelBits = wheelBits;
+    this.mask = (1 << wheelBits) - 1;
+    this.levels = new Node[levelCount][1 << wheelBits];
+    for (Node<K, V>[] level : levels) {
+      for (int slot = 0; slot < level.length; slot++) {
+        level[slot] = Node.sentinel();
+      }
+    }
+    this.currentTick = startMillis / tickMillis;
+  }
+
+  /** Schedules the timer for {@code key}, replacing any timer it already has. */
+  public void schedule(K key, long deadlineMillis, V value) {
+    cancel(key);
+    // Rounded up so the timer cannot fire before its deadline
+    long tick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+    Node<K, V> node = new Node<>(key, value, tick);
+    timers.put(key, node);
+    place(node);
+  }
+
+  public boolean cancel(K key) {
+    Node<K, V> node = timers.remove(key);
+    if (node == null) {
+      return false;
+    }
+    node.unlink();
+    return true;
+  }
+
+  public boolean contains(K key) {
+    return timers.containsKey(key);
+  }
+
+  public int size() {
+    return timers.size();
+  }
+
+  /**
+   * Fires, tick by tick, every timer due at or before {@code nowMillis}. The callback must not
+   * schedule or cancel timers on this wheel.
+   */
+  public int advance(long nowMillis, BiConsumer<K, V> expired) {
+    long targetTick = nowMillis / tickMillis;
+    int fired = 0;
+    while (currentTick <= targetTick) {
+      fired += step(expired);
+    }
+    return fired;
+  }
+
+  private int step(BiConsumer<K, V> expired) {
+    // Higher levels first: a timer moved down from level 2 may land in a level 1 slot due now
+    int top = 0;
+    while (top < levels.length - 1 && (currentTick & ((1L << (wheelBits * (top + 1))) - 1)) == 0) {
+      top++;
+    }
+    for (int level = top; level >= 1; level--) {
+      Node<K, V> node = detach(levels[level][slotIndex(currentTick, level)]);
+      while (node != null) {
+        Node<K, V> next = node.next;
+        place(node);
+        node = next;
+      }
+    }
+
+    int fired = 0;
+    Node<K, V> node = detach(levels[0][slotIndex(currentTick, 0)]);
+    while (node != null) {
+      Node<K, V> next = node.next;
+      timers.remove(node.key);
+      expired.accept(node.key, node.value);
+      fired++;
+      node = next;
+    }
+    currentTick++;
+    return fired;
+  }
+
+  private void place(Node<K, V> node) {
+    if (node.tick <= currentTick) {
+      append(levels[0][slotIndex(currentTick, 0)], node);
+      return;
+    }
+    for (int level = 0; level < levels.length; level++) {
+      int parentShift = wheelBits * (level + 1);
+      if ((node.tick >>> parentShift) == (currentTick >>> parentShift)) {
+        append(levels[level][slotIndex(node.tick, level)], node);
+        return;
+      }
+    }
+    // Further out than the top level reaches; slot 0 comes round first once its rotation ends
+    append(levels[levels.length - 1][0], node);
+  }
+
+  private int slotIndex(long tick, int level) {
+    return (int) ((tick >>> (wheelBits * level)) & mask);
+  }
+
+  private static <K, V> void append(Node<K, V> head, Node<K, V> node) {
+    node.prev = head.prev;
+    node.next = head;
+    head.prev.next = node;
+    head.prev = node;
+  }
+
+  // Empties the slot and returns its first node; the returned chain is null-terminated
+  private static <K, V> Node<K, V> detach(Node<K, V> head) {
+    if (head.next == head) {
+      return null;
+    }
+    Node<K, V> first = head.next;
+    head.prev.next = null;
+    head.next = head;
+    head.prev = head;
+    first.prev = null;
+    return first;
+  }
+
+  private static final class Node<K, V> {
+    private final K key;
+    private final V value;
+    private final long tick;
+    private Node<K, V> prev;
+    private Node<K, V> next;
+
+    private Node(K key, V value, long tick) {
+      this.key = key;
+      this.value = value;
+      this.tick = tick;
+    }
+
+    static <K, V> Node<K, V> sentinel() {
+      Node<K, V> head = new Node<>(null, null, 0);
+      head.prev = head;
+      head.next = head;
+      return head;
+    }
+
+    void unlink() {
+      if (prev != null) {
+        prev.next = next;
+      }
+      if (next != null) {
+        next.prev = prev;
+      }
+      prev = null;
+      next = null;
+    }
+  }
+}
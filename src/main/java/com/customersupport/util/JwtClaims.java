@@ -0,0 +1,13 @@
+package com.customersupport.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** Claims of a verified token, as issued by {@link JwtUtil#generateToken}. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JwtClaims(
+    Long userId, String email, String role, Long companyId, String companyName, long expiresAt) {
+
+  public boolean isExpired(long nowMillis) {
+    return expiresAt <= nowMillis;
+  }
+}
@@ -2,12 +2,15 @@ package com.customersupport.util;
 
 import com.customersupport.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Function;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,15 +19,30 @@ import org.springframework.stereotype.Component;
 @Component
 public class JwtUtil {
 
-  @Value("${jwt.secret:defaultSecretKey12345678901234567890}")
-  private String secret;
-
-  @Value("${jwt.expiration:86400000}") // Default 24 hours
-  private long expirationTime;
-
-  private Key getSigningKey() {
-    byte[] keyBytes = secret.getBytes();
-    return Keys.hmacShaKeyFor(keyBytes);
+  // Derived once from jwt.secret; the parser is immutable and thread-safe
+  private final Key signingKey;
+  private final JwtParser parser;
+  private final long expirationTime;
+  private final int cacheSize;
+
+  // Verified tokens keyed by their signature segment, least recently used evicted first
+  private final LinkedHashMap<String, CachedToken> verifiedTokens;
+
+  public JwtUtil(
+      @Value("${jwt.secret:defaultSecretKey12345678901234567890}") String secret,
+      @Value("${jwt.expiration:86400000}") long expirationTime, // Default 24 hours
+      @Value("${jwt.cache.max-entries:10000}") int cacheSize) {
+    this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    this.expirationTime = expirationTime;
+    this.cacheSize = Math.max(0, cacheSize);
+    this.verifiedTokens =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, CachedToken> eldest) {
+            return size() > JwtUtil.this.cacheSize;
+          }
+        };
   }
 
   public String generateToken(User user) {
@@ -46,37 +64,75 @@ public class JwtUtil {
         .setClaims(claims)
         .setIssuedAt(new Date(System.currentTimeMillis()))
         .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
-        .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+        .signWith(signingKey, SignatureAlgorithm.HS256)
         .compact();
   }
 
-  public Map<String, Object> validateTokenAndGetData(String token) {
-    final Claims claims = getAllClaimsFromToken(token);
+  /**
+   * Verify the token and return its claims. A token already verified by this instance is answered
+   * from the cache without re-checking the signature; expiry is still checked on every call.
+   */
+  public JwtClaims validateToken(String token) {
+    long now = System.currentTimeMillis();
+    String signature = signatureOf(token);
+
+    CachedToken cached = null;
+    if (cacheSize > 0 && signature != null) {
+      synchronized (verifiedTokens) {
+        cached = verifiedTokens.get(signature);
+      }
+    }
+
+    JwtClaims claims;
+    if (cached != null && cached.token.equals(token)) {
+      claims = cached.claims;
+    } else {
+      claims = toJwtClaims(getAllClaimsFromToken(token));
+      if (cacheSize > 0 && signature != null) {
+        synchronized (verifiedTokens) {
+          verifiedTokens.put(signature, new CachedToken(token, claims));
+        }
+      }
+    }
 
     // Check if token is expired
-    if (claims.getExpiration().before(new Date())) {
+    if (claims.isExpired(now)) {
+      if (signature != null) {
+        synchronized (verifiedTokens) {
+          verifiedTokens.remove(signature);
+        }
+      }
       throw new RuntimeException("Token has expired");
     }
 
-    Map<String, Object> userData = new HashMap<>();
-    userData.put("userId", claims.get("userId"));
-    userData.put("email", claims.get("email"));
-    userData.put("role", claims.get("role"));
+    return claims;
+  }
+
+  private JwtClaims toJwtClaims(Claims claims) {
+    Date expiration = claims.getExpiration();
+    return new JwtClaims(
+        toLong(claims.get("userId")),
+        (String) claims.get("email"),
+        (String) claims.get("role"),
+        toLong(claims.get("companyId")),
+        (String) claims.get("companyName"),
+        expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+  }
 
-    if (claims.get("companyId") != null) {
-      userData.put("companyId", claims.get("companyId"));
-      userData.put("companyName", claims.get("companyName"));
+  private Long toLong(Object value) {
+    if (value == null) {
+      return null;
     }
+    return value instanceof Number number ? number.longValue() : Long.valueOf(value.toString());
+  }
 
-    return userData;
+  private String signatureOf(String token) {
+    int dot = token.lastIndexOf('.');
+    return dot > 0 && dot < token.length() - 1 ? token.substring(dot + 1) : null;
   }
 
   private Claims getAllClaimsFromToken(String token) {
-    return Jwts.parserBuilder()
-        .setSigningKey(getSigningKey())
-        .build()
-        .parseClaimsJws(token)
-        .getBody();
+    return parser.parseClaimsJws(token).getBody();
   }
 
   public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
@@ -92,4 +148,6 @@ public class JwtUtil {
     final Date expiration = getExpirationDateFromToken(token);
     return expiration.before(new Date());
   }
+
+  private record CachedToken(String token, JwtClaims claims) {}
 }
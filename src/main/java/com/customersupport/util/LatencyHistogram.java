@@ -0,0 +1,106 @@
+package com.customersupport.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, thread-safe histogram of non-negative values in the style of HdrHistogram. Values
+ * below {@code 2^precisionBits} get a bucket each; above that every power of two is split into
+ * {@code 2^(precisionBits - 1)} equal buckets, so a reported percentile is within {@code
+ * 2^(1 - precisionBits)} of the recorded value however large it is. Values above the maximum are
+ * counted in the top bucket.
+ *
+ * <p>Histograms with the same dimensions can be merged by adding their counts.
+ */
+public final class LatencyHistogram {
+
+  private final int precisionBits;
+  private final int halfBucketCount;
+  private final long maxValue;
+  private final AtomicLongArray counts;
+
+  public LatencyHistogram(int precisionBits, long maxValue) {
+    if (precisionBits < 1 || precisionBits > 16 || maxValue < 1) {
+      throw new IllegalArgumentException("Invalid histogram dimensions");
+    }
+    this.precisionBits = precisionBits;
+    this.halfBucketCount = 1 << (precisionBits - 1);
+    this.maxValue = maxValue;
+    this.counts = new AtomicLongArray(indexOf(maxValue) + 1);
+  }
+
+  public void record(long value) {
+    counts.incrementAndGet(indexOf(Math.min(Math.max(value, 0), maxValue)));
+  }
+
+  /** Adds the counts of {@code other}, which must have the same dimensions. */
+  public void add(LatencyHistogram other) {
+    if (other.precisionBits != precisionBits || other.maxValue != maxValue) {
+      throw new IllegalArgumentException("Histogram dimensions differ");
+    }
+    for (int index = 0; index < counts.length(); index++) {
+      long count = other.counts.get(index);
+      if (count != 0) {
+        counts.addAndGet(index, count);
+      }
+    }
+  }
+
+  /** Copies the counts, so several percentiles can be read from one consistent view. */
+  public Snapshot snapshot() {
+    long[] copy = new long[counts.length()];
+    long total = 0;
+    for (int index = 0; index < copy.length; index++) {
+      copy[index] = counts.get(index);
+      total += copy[index];
+    }
+    return new Snapshot(copy, total);
+  }
+
+  private int indexOf(long value) {
+    if (value < (1L << precisionBits)) {
+      return (int) value;
+    }
+    int shift = 64 - Long.numberOfLeadingZeros(value) - precisionBits;
+    return shift * halfBucketCount + (int) (value >>> shift);
+  }
+
+  // The largest value that lands in the bucket, so percentiles never under-report
+  private long highestValueAt(int index) {
+    if (index < (1 << precisionBits)) {
+      return index;
+    }
+    int shift = index / halfBucketCount - 1;
+    long subBucket = index % halfBucketCount + halfBucketCount;
+    return Math.min(((subBucket + 1) << shift) - 1, maxValue);
+  }
+
+  public final class Snapshot {
+    private final long[] counts;
+    private final long total;
+
+    private Snapshot(long[] counts, long total) {
+      this.counts = counts;
+      this.total = total;
+    }
+
+    public long count() {
+      return total;
+    }
+
+    /** The value at or below which {@code percentile} percent of recordings fall; 0 if empty. */
+    public long valueAtPercentile(double percentile) {
+      if (total == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+      long seen = 0;
+      for (int index = 0; index < counts.length; index++) {
+        seen += counts[index];
+        if (seen >= rank) {
+          return highestValueAt(index);
+        }
+      }
+      return maxValue;
+    }
+  }
+}
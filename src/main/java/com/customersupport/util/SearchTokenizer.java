@@ -0,0 +1,99 @@
+package com.customersupport.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into lower-case, stemmed search terms. The stemmer is a small suffix stripper in the
+ * spirit of Porter step 1 (plurals, -ed, -ing, -ly and a few derivational endings); it only has to
+ * map a query word and the indexed word onto the same term, not produce dictionary stems.
+ */
+public final class SearchTokenizer {
+
+  private static final Set<String> STOP_WORDS =
+      Set.of(
+          "a", "an", "and", "are", "as", "at", "be", "but", "by", "can", "do", "does", "for",
+          "from", "has", "have", "how", "i", "if", "in", "is", "it", "its", "me", "my", "of", "on",
+          "or", "our", "so", "that", "the", "their", "there", "this", "to", "was", "we", "what",
+          "when", "where", "which", "who", "why", "will", "with", "you", "your");
+
+  private static final int MIN_STEM_LENGTH = 3;
+
+  private SearchTokenizer() {}
+
+  public static List<String> tokenize(String text) {
+    List<String> terms = new ArrayList<>();
+    if (text == null || text.isEmpty()) {
+      return terms;
+    }
+
+    String lower = text.toLowerCase(Locale.ROOT);
+    int start = -1;
+    for (int i = 0; i <= lower.length(); i++) {
+      boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        String word = lower.substring(start, i);
+        if (!STOP_WORDS.contains(word)) {
+          terms.add(stem(word));
+        }
+        start = -1;
+      }
+    }
+    return terms;
+  }
+
+  public static String stem(String word) {
+    if (word.length() <= MIN_STEM_LENGTH || !Character.isLetter(word.charAt(0))) {
+      return word;
+    }
+
+    String stem = word;
+    if (stem.endsWith("sses")) {
+      stem = stem.substring(0, stem.length() - 2);
+    } else if (stem.endsWith("ies")) {
+      stem = stem.substring(0, stem.length() - 3) + "y";
+    } else if (stem.endsWith("s") && !stem.endsWith("ss") && !stem.endsWith("us")) {
+      stem = stem.substring(0, stem.length() - 1);
+    }
+
+    stem = stripSuffix(stem, "ational", "ate");
+    stem = stripSuffix(stem, "ization", "ize");
+    stem = stripSuffix(stem, "fulness", "ful");
+    stem = stripSuffix(stem, "ement", "");
+    stem = stripSuffix(stem, "ment", "");
+    stem = stripSuffix(stem, "ingly", "");
+    stem = stripSuffix(stem, "edly", "");
+    stem = stripSuffix(stem, "ing", "");
+    stem = stripSuffix(stem, "ed", "");
+    stem = stripSuffix(stem, "ly", "");
+
+    // "stopped" -> "stopp" -> "stop", so inflected forms meet their base form
+    int length = stem.length();
+    if (length > MIN_STEM_LENGTH
+        && stem.charAt(length - 1) == stem.charAt(length - 2)
+        && "lsz".indexOf(stem.charAt(length - 1)) < 0
+        && !isVowel(stem.charAt(length - 1))) {
+      stem = stem.substring(0, length - 1);
+    }
+    // "update"/"updated" and "reset"/"resetting" end up identical without a trailing e
+    if (stem.length() > MIN_STEM_LENGTH && stem.endsWith("e")) {
+      stem = stem.substring(0, stem.length() - 1);
+    }
+    return stem;
+  }
+
+  private static String stripSuffix(String word, String suffix, String replacement) {
+    if (word.endsWith(suffix) && word.length() - suffix.length() >= MIN_STEM_LENGTH) {
+      return word.substring(0, word.length() - suffix.length()) + replacement;
+    }
+    return word;
+  }
+
+  private static boolean isVowel(char c) {
+    return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+  }
+}
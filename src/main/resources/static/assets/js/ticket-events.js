@@ -0,0 +1,101 @@
+// Ticket change stream (Server-Sent Events).
+// EventSource cannot send the Authorization header, so the stream is read with fetch and parsed
+// here. The connection is reopened with backoff when it ends; the server closes it periodically.
+function subscribeTicketEvents(url, token, onEvent) {
+    const stream = { connected: false, closed: false, controller: null };
+    let retryDelay = 1000;
+
+    async function connect() {
+        if (stream.closed) {
+            return;
+        }
+        stream.controller = new AbortController();
+        try {
+            const response = await fetch(url, {
+                headers: {
+                    'Accept': 'text/event-stream',
+                    'Authorization': `Bearer ${token}`
+                },
+                signal: stream.controller.signal
+            });
+            if (response.status === 401 || response.status === 403) {
+                // Not allowed to listen; pages fall back to their periodic refresh
+                stream.closed = true;
+                return;
+            }
+            if (!response.ok || !response.body) {
+                throw new Error(`Ticket event stream failed: ${response.status}`);
+            }
+
+            stream.connected = true;
+            retryDelay = 1000;
+            await readTicketEvents(response.body, onEvent);
+        } catch (error) {
+            if (error.name !== 'AbortError') {
+                console.warn('Ticket event stream interrupted:', error);
+            }
+        } finally {
+            stream.connected = false;
+        }
+
+        if (!stream.closed) {
+            setTimeout(connect, retryDelay);
+            retryDelay = Math.min(retryDelay * 2, 30000);
+        }
+    }
+
+    stream.close = function() {
+        stream.closed = true;
+        if (stream.controller) {
+            stream.controller.abort();
+        }
+    };
+
+    connect();
+    return stream;
+}
+
+async function readTicketEvents(body, onEvent) {
+    const reader = body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+
+    while (true) {
+        const { value, done } = await reader.read();
+        if (done) {
+            return;
+        }
+        buffer += decoder.decode(value, { stream: true });
+
+        let boundary;
+        while ((boundary = buffer.search(/\r?\n\r?\n/)) >= 0) {
+            const block = buffer.slice(0, boundary);
+            buffer = buffer.slice(boundary).replace(/^\r?\n\r?\n/, '');
+            dispatchTicketEvent(block, onEvent);
+        }
+    }
+}
+
+function dispatchTicketEvent(block, onEvent) {
+    let name = 'message';
+    const data = [];
+    block.split(/\r?\n/).forEach(line => {
+        // Lines starting with ':' are heartbeats
+        if (line.startsWith('event:')) {
+            name = line.slice(6).trim();
+        } else if (line.startsWith('data:')) {
+            data.push(line.slice(5).trimStart());
+        }
+    });
+    if (data.length === 0) {
+        return;
+    }
+
+    let payload = null;
+    try {
+        payload = JSON.parse(data.join('\n'));
+    } catch (error) {
+        payload = data.join('\n');
+    }
+    onEvent(name, payload);
+}
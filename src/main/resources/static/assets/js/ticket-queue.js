@@ -1,8 +1,44 @@
 document.addEventListener('DOMContentLoaded', function() {
     initializeTabs();
     setupDropdowns();
+    watchTicketQueue();
 });
 
+// The queue is rendered on the server, so pushed ticket changes only offer a reload
+function watchTicketQueue() {
+    const token = localStorage.getItem('token');
+    if (!token || typeof subscribeTicketEvents !== 'function') {
+        return;
+    }
+    subscribeTicketEvents('/api/agents/ticket-events', token, function(name) {
+        if (name !== 'connected') {
+            showQueueChangedNotice();
+        }
+    });
+}
+
+function showQueueChangedNotice() {
+    if (document.getElementById('queueChangedNotice')) {
+        return;
+    }
+    const notice = document.createElement('div');
+    notice.id = 'queueChangedNotice';
+    notice.className = 'queue-changed-notice';
+    notice.textContent = 'The ticket queue has changed. ';
+
+    const refreshLink = document.createElement('a');
+    refreshLink.href = '#';
+    refreshLink.textContent = 'Refresh';
+    refreshLink.addEventListener('click', function(event) {
+        event.preventDefault();
+        window.location.reload();
+    });
+    notice.appendChild(refreshLink);
+
+    const mainContent = document.querySelector('.main-content') || document.body;
+    mainContent.insertBefore(notice, mainContent.firstChild);
+}
+
 // Initialize tab functionality
 function initializeTabs() {
     const tabButtons = document.querySelectorAll('.tab-btn');
@@ -0,0 +1,130 @@
+package com.customersupport.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.customersupport.entity.EmailOutboxMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+class EmailDispatcherTest {
+
+  @RegisterExtension
+  static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private EmailOutboxService emailOutboxService;
+  private EmailDispatcher emailDispatcher;
+
+  @BeforeEach
+  void setUp() {
+    JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    mailSender.setHost("localhost");
+    mailSender.setPort(greenMail.getSmtp().getPort());
+
+    ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+    resolver.setPrefix("templates/emails/");
+    resolver.setSuffix(".html");
+    resolver.setTemplateMode(TemplateMode.HTML);
+    SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+    templateEngine.setTemplateResolver(resolver);
+
+    emailOutboxService = mock(EmailOutboxService.class);
+    emailDispatcher =
+        new EmailDispatcher(
+            emailOutboxService,
+            mailSender,
+            templateEngine,
+            objectMapper,
+            new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(emailDispatcher, "fromEmail", "support@example.com");
+    ReflectionTestUtils.setField(emailDispatcher, "batchSize", 50);
+  }
+
+  @Test
+  void deliversRenderedBatchAndMarksItSent() throws Exception {
+    when(emailOutboxService.claimDueBatch(anyInt()))
+        .thenReturn(
+            List.of(
+                message(1L, "alice@example.com", "password-reset", "abc123"),
+                message(2L, "bob@example.com", "password-reset", "def456")));
+
+    assertThat(emailDispatcher.dispatchBatch()).isEqualTo(2);
+
+    MimeMessage[] received = greenMail.getReceivedMessages();
+    assertThat(received).hasSize(2);
+    assertThat(GreenMailUtil.getBody(received[0])).contains("abc123");
+    verify(emailOutboxService).markSent(List.of(1L, 2L));
+    verify(emailOutboxService, never()).markFailed(anyMap());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void retriesMessagesThatCannotBeRendered() throws Exception {
+    when(emailOutboxService.claimDueBatch(anyInt()))
+        .thenReturn(
+            List.of(
+                message(1L, "alice@example.com", "password-reset", "abc123"),
+                message(2L, "bob@example.com", "no-such-template", "def456")));
+
+    emailDispatcher.dispatchBatch();
+
+    assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    verify(emailOutboxService).markSent(List.of(1L));
+    ArgumentCaptor<Map<Long, String>> failures = ArgumentCaptor.forClass(Map.class);
+    verify(emailOutboxService).markFailed(failures.capture());
+    assertThat(failures.getValue()).containsOnlyKeys(2L);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void retriesWholeBatchWhenServerIsDown() throws Exception {
+    when(emailOutboxService.claimDueBatch(anyInt()))
+        .thenReturn(List.of(message(1L, "alice@example.com", "password-reset", "abc123")));
+    greenMail.stop();
+
+    emailDispatcher.dispatchBatch();
+
+    verify(emailOutboxService, never()).markSent(anyList());
+    ArgumentCaptor<Map<Long, String>> failures = ArgumentCaptor.forClass(Map.class);
+    verify(emailOutboxService).markFailed(failures.capture());
+    assertThat(failures.getValue()).containsOnlyKeys(1L);
+  }
+
+  private EmailOutboxMessage message(Long id, String recipient, String template, String token)
+      throws Exception {
+    EmailOutboxMessage message = new EmailOutboxMessage();
+    message.setId(id);
+    message.setRecipient(recipient);
+    message.setSubject("Password Reset");
+    message.setTemplateName(template);
+    message.setTemplateModel(
+        objectMapper.writeValueAsString(
+            Map.of(
+                "userName", "Test User",
+                "passwordUrl", "http://localhost:8082/auth/password-reset?token=" + token,
+                "loginUrl", "http://localhost:8082/auth/login")));
+    return message;
+  }
+}
@@ -0,0 +1,72 @@
+package com.customersupport.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+import com.customersupport.dto.CompanyAdminRegistrationDTO;
+import com.customersupport.entity.Company;
+import com.customersupport.entity.User;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class EmailServiceTest {
+
+  @Mock private EmailOutboxService emailOutboxService;
+
+  @InjectMocks private EmailService emailService;
+
+  @Captor private ArgumentCaptor<Map<String, Object>> templateModel;
+
+  @Test
+  void accountEmailsCarryPasswordLinkRatherThanPassword() {
+    CompanyAdminRegistrationDTO admin = new CompanyAdminRegistrationDTO();
+    admin.setFirstName("Ada");
+    admin.setLastName("Admin");
+    admin.setEmail("ada@example.com");
+    admin.setPassword("Secret#123");
+
+    emailService.sendCompanyAdminRegistrationEmail(admin, new Company(), "setup-token");
+
+    verify(emailOutboxService)
+        .enqueue(
+            eq("ada@example.com"),
+            anyString(),
+            eq("company-admin-registration"),
+            templateModel.capture());
+    assertThat(templateModel.getValue())
+        .doesNotContainKey("password")
+        .containsEntry(
+            "passwordUrl", "http://localhost:8082/auth/password-reset?token=setup-token");
+    assertThat(templateModel.getValue().values()).doesNotContain("Secret#123");
+  }
+
+  @Test
+  void passwordResetEmailCarriesResetLink() {
+    User user = new User();
+    user.setFirstname("Bo");
+    user.setLastname("User");
+    user.setEmail("bo@example.com");
+
+    emailService.sendPasswordResetEmail(user, "reset-token");
+
+    verify(emailOutboxService)
+        .enqueue(
+            eq("bo@example.com"),
+            anyString(),
+            eq("password-reset"),
+            templateModel.capture());
+    assertThat(templateModel.getValue())
+        .doesNotContainKey("newPassword")
+        .containsEntry(
+            "passwordUrl", "http://localhost:8082/auth/password-reset?token=reset-token");
+  }
+}
@@ -0,0 +1,71 @@
+package com.customersupport.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.customersupport.dto.PrincipalSnapshot;
+import com.customersupport.entity.User;
+import com.customersupport.repository.UserRepository;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class PrincipalCacheServiceTest {
+
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final PrincipalCacheService principalCacheService =
+      new PrincipalCacheService(userRepository, 100, 60);
+
+  @Test
+  void servesRepeatLookupsFromCache() {
+    when(userRepository.findPrincipalSnapshot(1L)).thenReturn(Optional.of(principal(1L, 7L)));
+
+    principalCacheService.getPrincipal(1L);
+    principalCacheService.getPrincipal(1L);
+
+    verify(userRepository, times(1)).findPrincipalSnapshot(1L);
+  }
+
+  @Test
+  void doesNotCacheLoadThatOverlappedInvalidation() {
+    // The user is deactivated (and evicted after commit) while the old row is being read
+    when(userRepository.findPrincipalSnapshot(1L))
+        .thenAnswer(
+            invocation -> {
+              principalCacheService.invalidate(1L);
+              return Optional.of(principal(1L, 7L));
+            })
+        .thenReturn(Optional.of(inactive(principal(1L, 7L))));
+
+    principalCacheService.getPrincipal(1L);
+
+    assertThat(principalCacheService.getPrincipal(1L)).get().matches(p -> !p.isActive());
+  }
+
+  @Test
+  void doesNotCacheLoadThatOverlappedCompanyInvalidation() {
+    when(userRepository.findPrincipalSnapshot(1L))
+        .thenAnswer(
+            invocation -> {
+              principalCacheService.invalidateCompany(7L);
+              return Optional.of(principal(1L, 7L));
+            })
+        .thenReturn(Optional.of(inactive(principal(1L, 7L))));
+
+    principalCacheService.getPrincipal(1L);
+
+    assertThat(principalCacheService.getPrincipal(1L)).get().matches(p -> !p.isActive());
+  }
+
+  private static PrincipalSnapshot principal(Long userId, Long companyId) {
+    return new PrincipalSnapshot(
+        userId, "user" + userId + "@example.com", User.UserStatus.ACTIVE, "CUSTOMER", companyId);
+  }
+
+  private static PrincipalSnapshot inactive(PrincipalSnapshot principal) {
+    principal.setStatus(User.UserStatus.INACTIVE);
+    return principal;
+  }
+}
@@ -0,0 +1,280 @@
+package com.customersupport.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import com.customersupport.entity.Agent;
+import com.customersupport.entity.Company;
+import com.customersupport.entity.Customer;
+import com.customersupport.entity.Role;
+import com.customersupport.entity.Ticket;
+import com.customersupport.entity.User;
+import com.customersupport.repository.AgentRepository;
+import com.customersupport.repository.TicketRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Claims and assignments against an in-memory database: many agents racing for the same tickets
+ * must each win a ticket at most once, and agent ticket counts must match what they own.
+ */
+class TicketClaimConcurrencyTest {
+
+  private static final int THREADS = 64;
+  private static final int AGENTS = 8;
+  private static final int TICKETS = 16;
+
+  private EntityManagerFactory entityManagerFactory;
+  private TicketService ticketService;
+  private TransactionTemplate transactionTemplate;
+  private Company company;
+  private Customer customer;
+  private final List<Agent> agents = new ArrayList<>();
+  private int ticketSequence;
+
+  @BeforeEach
+  void setUp() {
+    JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:claims" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+    dataSource.setUser("sa");
+
+    LocalContainerEntityManagerFactoryBean factoryBean =
+        new LocalContainerEntityManagerFactoryBean();
+    factoryBean.setDataSource(dataSource);
+    factoryBean.setPackagesToScan("com.customersupport.entity");
+    factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+    Properties properties = new Properties();
+    properties.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+    properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+    factoryBean.setJpaProperties(properties);
+    factoryBean.afterPropertiesSet();
+    entityManagerFactory = factoryBean.getObject();
+
+    EntityManager shared =
+        SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+    JpaRepositoryFactory repositories = new JpaRepositoryFactory(shared);
+    JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+    transactionTemplate = new TransactionTemplate(transactionManager);
+
+    ticketService = new TicketService();
+    ReflectionTestUtils.setField(
+        ticketService, "ticketRepository", repositories.getRepository(TicketRepository.class));
+    ReflectionTestUtils.setField(
+        ticketService, "agentRepository", repositories.getRepository(AgentRepository.class));
+    ReflectionTestUtils.setField(ticketService, "emailService", mock(EmailService.class));
+    ReflectionTestUtils.setField(
+        ticketService, "ticketLatencyHistograms", mock(TicketLatencyHistograms.class));
+    ReflectionTestUtils.setField(
+        ticketService, "eventPublisher", mock(ApplicationEventPublisher.class));
+    ReflectionTestUtils.setField(ticketService, "transactionManager", transactionManager);
+    ReflectionTestUtils.setField(ticketService, "claimMaxAttempts", 5);
+    ReflectionTestUtils.setField(ticketService, "claimRetryBackoffMs", 5L);
+
+    EntityManager em = entityManagerFactory.createEntityManager();
+    em.getTransaction().begin();
+    company = new Company();
+    company.setName("Acme");
+    company.setEmail("acme@example.com");
+    em.persist(company);
+    Role role = new Role();
+    role.setName("SUPPORT_AGENT");
+    em.persist(role);
+    customer = new Customer();
+    customer.setUser(user(em, role, "customer@example.com"));
+    customer.setCompany(company);
+    em.persist(customer);
+    for (int i = 0; i < AGENTS; i++) {
+      Agent agent = new Agent();
+      agent.setUser(user(em, role, "agent" + i + "@example.com"));
+      agent.setCompany(company);
+      em.persist(agent);
+      agents.add(agent);
+    }
+    em.getTransaction().commit();
+    em.close();
+  }
+
+  @AfterEach
+  void tearDown() {
+    entityManagerFactory.close();
+  }
+
+  @Test
+  void everyTicketIsClaimedExactlyOnce() throws Exception {
+    setMaxConcurrentTickets(10);
+    List<Long> tickets = openTickets(TICKETS);
+
+    int claims = claimConcurrently(tickets);
+
+    assertThat(claims).isEqualTo(TICKETS);
+    assertCountsMatchOwnership(TICKETS, 10);
+  }
+
+  @Test
+  void concurrentClaimsRespectAgentCapacity() throws Exception {
+    setMaxConcurrentTickets(1);
+    List<Long> tickets = openTickets(TICKETS);
+
+    int claims = claimConcurrently(tickets);
+
+    assertThat(claims).isEqualTo(AGENTS);
+    assertCountsMatchOwnership(AGENTS, 1);
+  }
+
+  @Test
+  void reassigningActiveTicketToSameAgentAtCapacityKeepsItsSlot() throws Exception {
+    setMaxConcurrentTickets(1);
+    Long agentId = agents.get(0).getId();
+    Long ticketId = openTickets(1).get(0);
+    ticketService.claimTicket(ticketId, agentId);
+
+    transactionTemplate.executeWithoutResult(
+        status -> ticketService.assignTicketToAgent(ticketId, agentId));
+
+    assertCountsMatchOwnership(1, 1);
+  }
+
+  @Test
+  void reopeningOwnTicketAtCapacityIsRejected() throws Exception {
+    setMaxConcurrentTickets(1);
+    Long agentId = agents.get(0).getId();
+    List<Long> tickets = openTickets(2);
+    ticketService.claimTicket(tickets.get(0), agentId);
+    transactionTemplate.executeWithoutResult(
+        status -> ticketService.resolveTicket(tickets.get(0), agentId, "done"));
+    ticketService.claimTicket(tickets.get(1), agentId);
+
+    assertThatThrownBy(
+            () ->
+                transactionTemplate.executeWithoutResult(
+                    status -> ticketService.assignTicketToAgent(tickets.get(0), agentId)))
+        .hasMessageContaining("maximum concurrent ticket limit");
+    assertCountsMatchOwnership(1, 1);
+  }
+
+  private int claimConcurrently(List<Long> tickets) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    CyclicBarrier start = new CyclicBarrier(THREADS);
+    AtomicInteger claims = new AtomicInteger();
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < THREADS; t++) {
+        int thread = t;
+        futures.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  Long agentId = agents.get(thread % AGENTS).getId();
+                  for (int k = 0; k < tickets.size(); k++) {
+                    try {
+                      ticketService.claimTicket(
+                          tickets.get((thread * 5 + k) % tickets.size()), agentId);
+                      claims.incrementAndGet();
+                    } catch (RuntimeException e) {
+                      // Lost the race or at capacity
+                    }
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get(120, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return claims.get();
+  }
+
+  private void assertCountsMatchOwnership(int expectedAssigned, int maxPerAgent) {
+    EntityManager em = entityManagerFactory.createEntityManager();
+    try {
+      List<Ticket> tickets =
+          em.createQuery("SELECT t FROM Ticket t", Ticket.class).getResultList();
+      List<Ticket> active =
+          tickets.stream()
+              .filter(t -> t.getAgent() != null && t.getStatus() == Ticket.Status.IN_PROGRESS)
+              .toList();
+      assertThat(active).hasSize(expectedAssigned);
+
+      int total = 0;
+      for (Agent agent : em.createQuery("SELECT a FROM Agent a", Agent.class).getResultList()) {
+        long owned =
+            active.stream().filter(t -> t.getAgent().getId().equals(agent.getId())).count();
+        int count = agent.getCurrentTicketCount() != null ? agent.getCurrentTicketCount() : 0;
+        assertThat(count).as("ticket count of agent %d", agent.getId()).isEqualTo(owned);
+        assertThat(count).isLessThanOrEqualTo(maxPerAgent);
+        total += count;
+      }
+      assertThat(total).isEqualTo(expectedAssigned);
+    } finally {
+      em.close();
+    }
+  }
+
+  private void setMaxConcurrentTickets(int max) {
+    EntityManager em = entityManagerFactory.createEntityManager();
+    em.getTransaction().begin();
+    em.createQuery("UPDATE Agent a SET a.maxConcurrentTickets = :max")
+        .setParameter("max", max)
+        .executeUpdate();
+    em.getTransaction().commit();
+    em.close();
+  }
+
+  private List<Long> openTickets(int count) {
+    EntityManager em = entityManagerFactory.createEntityManager();
+    em.getTransaction().begin();
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Ticket ticket = new Ticket();
+      ticket.setTicketNumber("T-" + (++ticketSequence));
+      ticket.setCompany(em.getReference(Company.class, company.getId()));
+      ticket.setCustomer(em.getReference(Customer.class, customer.getId()));
+      ticket.setTitle("Ticket " + ticketSequence);
+      ticket.setDescription("Printer is on fire");
+      ticket.setStatus(Ticket.Status.OPEN);
+      ticket.setCreatedAt(LocalDateTime.now());
+      em.persist(ticket);
+      ids.add(ticket.getId());
+    }
+    em.getTransaction().commit();
+    em.close();
+    return ids;
+  }
+
+  private User user(EntityManager em, Role role, String email) {
+    User user = new User();
+    user.setCompany(company);
+    user.setRole(role);
+    user.setEmail(email);
+    user.setPassword("secret");
+    user.setFirstname("First");
+    user.setLastname("Last");
+    em.persist(user);
+    return user;
+  }
+}
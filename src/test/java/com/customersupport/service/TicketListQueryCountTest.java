@@ -0,0 +1,222 @@
+package com.customersupport.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.customersupport.dto.TicketDTO;
+import com.customersupport.entity.Agent;
+import com.customersupport.entity.Category;
+import com.customersupport.entity.Company;
+import com.customersupport.entity.Customer;
+import com.customersupport.entity.Review;
+import com.customersupport.entity.Role;
+import com.customersupport.entity.Ticket;
+import com.customersupport.entity.User;
+import com.customersupport.repository.TicketRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Ticket lists are read through one projection query with joins, so listing 500 tickets with
+ * agents, categories and reviews must not load any of them one ticket at a time.
+ */
+class TicketListQueryCountTest {
+
+  private static final int TICKETS = 500;
+  private static final int AGENTS = 5;
+  private static final int CATEGORIES = 4;
+
+  private EntityManagerFactory entityManagerFactory;
+  private Statistics statistics;
+  private TicketService ticketService;
+  private Company company;
+  private Customer customer;
+  private final List<Agent> agents = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:lists" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+    dataSource.setUser("sa");
+
+    LocalContainerEntityManagerFactoryBean factoryBean =
+        new LocalContainerEntityManagerFactoryBean();
+    factoryBean.setDataSource(dataSource);
+    factoryBean.setPackagesToScan("com.customersupport.entity");
+    factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+    Properties properties = new Properties();
+    properties.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+    properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+    properties.setProperty("hibernate.generate_statistics", "true");
+    factoryBean.setJpaProperties(properties);
+    factoryBean.afterPropertiesSet();
+    entityManagerFactory = factoryBean.getObject();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+    EntityManager shared =
+        SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+    ticketService = new TicketService();
+    ReflectionTestUtils.setField(
+        ticketService,
+        "ticketRepository",
+        new JpaRepositoryFactory(shared).getRepository(TicketRepository.class));
+
+    seed();
+  }
+
+  @AfterEach
+  void tearDown() {
+    entityManagerFactory.close();
+  }
+
+  @Test
+  void companyListsRunOneStatement() {
+    Long companyId = company.getId();
+
+    assertThat(statementsFor(() -> ticketService.getTicketsByCompany(companyId)))
+        .isEqualTo(1);
+    assertThat(
+            statementsFor(
+                () -> ticketService.getTicketsByCompany(companyId, Ticket.Status.OPEN, "Ticket")))
+        .isEqualTo(1);
+    assertThat(
+            statementsFor(
+                () ->
+                    ticketService
+                        .getTicketPageByCompany(companyId, null, null, 100, null)
+                        .getTickets()))
+        .isEqualTo(1);
+  }
+
+  @Test
+  void customerListsRunOneStatement() {
+    Long customerId = customer.getId();
+
+    assertThat(statementsFor(() -> ticketService.getTicketsByCustomer(customerId)))
+        .isEqualTo(1);
+    assertThat(
+            statementsFor(
+                () ->
+                    ticketService.getTicketsByCustomerAndStatus(
+                        customerId, Ticket.Status.RESOLVED)))
+        .isEqualTo(1);
+    assertThat(statementsFor(() -> ticketService.searchTicketsByCustomer(customerId, "Ticket")))
+        .isEqualTo(1);
+  }
+
+  @Test
+  void agentListsRunOneStatement() {
+    Long agentId = agents.get(0).getId();
+
+    assertThat(statementsFor(() -> ticketService.getTicketsByAgent(agentId))).isEqualTo(1);
+    assertThat(
+            statementsFor(
+                () -> ticketService.getTicketsByAgentAndStatus(agentId, Ticket.Status.RESOLVED)))
+        .isEqualTo(1);
+  }
+
+  @Test
+  void listedTicketsCarryTheirAssociations() {
+    List<TicketDTO> tickets = ticketService.getTicketsByCompany(company.getId());
+
+    assertThat(tickets).hasSize(TICKETS);
+    assertThat(tickets).allSatisfy(ticket -> assertThat(ticket.getCustomerName()).isNotBlank());
+    assertThat(tickets).filteredOn(TicketDTO::isHasReview).isNotEmpty();
+    assertThat(tickets).filteredOn(ticket -> ticket.getAgentName() != null).isNotEmpty();
+    assertThat(tickets).filteredOn(ticket -> ticket.getCategoryName() != null).isNotEmpty();
+  }
+
+  // Prepared statements the call runs; the list must not be empty, or the count proves nothing
+  private long statementsFor(Supplier<List<TicketDTO>> list) {
+    statistics.clear();
+    List<TicketDTO> tickets = list.get();
+    assertThat(tickets).isNotEmpty();
+    return statistics.getPrepareStatementCount();
+  }
+
+  private void seed() {
+    EntityManager em = entityManagerFactory.createEntityManager();
+    em.getTransaction().begin();
+    company = new Company();
+    company.setName("Acme");
+    company.setEmail("acme@example.com");
+    em.persist(company);
+    Role role = new Role();
+    role.setName("SUPPORT_AGENT");
+    em.persist(role);
+    customer = new Customer();
+    customer.setUser(user(em, role, "customer@example.com"));
+    customer.setCompany(company);
+    em.persist(customer);
+    for (int i = 0; i < AGENTS; i++) {
+      Agent agent = new Agent();
+      agent.setUser(user(em, role, "agent" + i + "@example.com"));
+      agent.setCompany(company);
+      em.persist(agent);
+      agents.add(agent);
+    }
+    List<Category> categories = new ArrayList<>();
+    for (int i = 0; i < CATEGORIES; i++) {
+      Category category = new Category();
+      category.setCompany(company);
+      category.setName("Category " + i);
+      em.persist(category);
+      categories.add(category);
+    }
+
+    // Every other ticket has an agent, every third a category, resolved ones a review
+    for (int i = 0; i < TICKETS; i++) {
+      Ticket ticket = new Ticket();
+      ticket.setTicketNumber("T-" + i);
+      ticket.setCompany(company);
+      ticket.setCustomer(customer);
+      ticket.setTitle("Ticket " + i);
+      ticket.setDescription("Printer is on fire");
+      ticket.setCreatedAt(LocalDateTime.now().minusMinutes(i));
+      Agent agent = i % 2 == 0 ? agents.get(i / 2 % AGENTS) : null;
+      ticket.setAgent(agent);
+      ticket.setCategory(i % 3 == 0 ? categories.get(i % CATEGORIES) : null);
+      ticket.setStatus(agent != null && i % 4 == 0 ? Ticket.Status.RESOLVED : Ticket.Status.OPEN);
+      em.persist(ticket);
+
+      if (ticket.getStatus() == Ticket.Status.RESOLVED) {
+        Review review = new Review();
+        review.setTicket(ticket);
+        review.setAgent(agent);
+        review.setCompany(company);
+        review.setCustomer(customer);
+        review.setRating(1 + i % 5);
+        em.persist(review);
+      }
+    }
+    em.getTransaction().commit();
+    em.close();
+  }
+
+  private User user(EntityManager em, Role role, String email) {
+    User user = new User();
+    user.setCompany(company);
+    user.setRole(role);
+    user.setEmail(email);
+    user.setPassword("secret");
+    user.setFirstname("First");
+    user.setLastname("Last");
+    em.persist(user);
+    return user;
+  }
+}